@@ -1,6 +1,8 @@
 package com.example.api_server.config;
 
+import com.example.api_server.service.SingleFlight;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.support.SimpleCacheManager;
@@ -8,39 +10,54 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 public class CacheConfig {
 
     @Bean
-    public CacheManager cacheManager() {
+    public CacheManager cacheManager(SingleFlight flights) {
         SimpleCacheManager manager = new SimpleCacheManager();
         manager.setCaches(List.of(
-                // Live intraday bars: full-fetch cache. Bumped beyond poll-cycle
-                // time so repeated full refreshes within a minute share a hit.
-                // Only used for the live "today" 1m view now — everything else
-                // intraday routes to the medium bucket below.
-                buildCache("historicalData", Duration.ofSeconds(90), 200),
-                // Multi-day intraday and same-day non-1m views. Ingestion runs
-                // every 5 min, so a 5-min TTL never serves data older than the
-                // upstream write cadence while turning the biggest miss path
-                // (e.g. 1m bars over 5d ≈ 290 KB/fetch) into one Supabase read
-                // every 5 min across all viewers.
-                buildCache("historicalDataMedium", Duration.ofMinutes(5), 200),
-                // Non-live timeframes (1d/1wk): session-long bars rarely change,
-                // so cache aggressively to cut Supabase egress.
-                buildCache("historicalDataLong", Duration.ofHours(1), 200),
-                // MAX(fetched_at) probe for the /since incremental endpoint.
-                // Short TTL so newly-ingested bars surface quickly, but long
-                // enough that a tight poll loop (every few seconds) shares a
-                // single cache entry across clients instead of hitting
-                // Supabase on every poll.
-                buildCache("latestFetchedAt", Duration.ofSeconds(15), 200),
+                // Raw bar series, one entry per (symbol, stored interval),
+                // each carrying its 15m/30m/4h/1wk rollups. Every
+                // period/interval combination is sliced out of these, and
+                // entries are kept current by ingestion appends and
+                // fetched_at catch-ups rather than expiring on a timer —
+                // only symbols nobody has viewed for an hour are dropped.
+                buildAccessCache("historicalSeries", Duration.ofHours(1), 200),
+                // Final /api/historical bodies (JSON + gzip) per
+                // symbol-period-interval. Validated against the series slice
+                // on every read rather than expired, so the TTL only bounds
+                // memory for views nobody is polling (a 5d/1m body is
+                // ~290 KB raw, ~40 KB gzipped).
+                buildAccessCache("historicalEncoded", Duration.ofMinutes(10), 100),
+                // Incrementally maintained indicator lines per
+                // symbol-interval-indicator(params). Advanced in place as
+                // bars land; the idle TTL only drops what nobody charts.
+                buildAccessCache("indicatorSeries", Duration.ofHours(1), 500),
+                // Session volume profiles per symbol-session-tickSize,
+                // advanced by the 1m bars that arrived since the last read.
+                buildAccessCache("volumeProfiles", Duration.ofHours(1), 100),
+                // MAX(fetched_at) probe for the /since incremental endpoint
+                // and the /api/historical validators. Advanced in place on
+                // every BarsWrittenEvent (our ingestion and the bar store's
+                // refresher), so the TTL is only a safety net for writes
+                // neither saw. Misses are single-flight: one probe runs and
+                // concurrent pollers wait for it.
+                new SingleFlightCache(buildCache("latestFetchedAt", Duration.ofMinutes(2), 200), flights),
                 // GEX is recomputed by the scheduled ingestion job every 15
-                // minutes, so serving 5-minute-old data is fine.
-                buildCache("gammaExposure", Duration.ofMinutes(5), 50),
+                // minutes, so serving 5-minute-old data is fine. Single-flight
+                // for the same reason as above.
+                new SingleFlightCache(buildCache("gammaExposure", Duration.ofMinutes(5), 50), flights),
                 buildCache("marketData", Duration.ofSeconds(60), 50),
+                // Decoded Yahoo bodies per URL (YahooGateway). Just long
+                // enough that the live, ingestion and GEX callers asking
+                // for the same chart in the same moment share one call;
+                // single-flight so concurrent misses do too.
+                new SingleFlightCache(buildCache("yahooResponses", Duration.ofSeconds(3), 500), flights),
                 // Live tick endpoint — cached briefly so a tight client poll
                 // cycle fans out to a single Yahoo call per TTL across all
                 // viewers. Keep short enough to feel live.
@@ -54,10 +71,31 @@ public class CacheConfig {
         return manager;
     }
 
+    private CaffeineCache buildAccessCache(String name, Duration idle, int maxSize) {
+        return new CaffeineCache(name, Caffeine.newBuilder()
+                .expireAfterAccess(idle)
+                .maximumSize(maxSize)
+                .build());
+    }
+
     private CaffeineCache buildCache(String name, Duration ttl, int maxSize) {
         return new CaffeineCache(name, Caffeine.newBuilder()
                 .expireAfterWrite(ttl)
                 .maximumSize(maxSize)
                 .build());
     }
+
+    /**
+     * Snapshot of a cache's values, for services that walk their own
+     * entries (refreshers, event listeners). Reading the native map
+     * doesn't count as access, so idle entries still expire. Empty for
+     * cache types that can't be enumerated.
+     */
+    public static Collection<?> values(Cache cache) {
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return List.copyOf(caffeine.asMap().values());
+        }
+        return nativeCache instanceof Map<?, ?> map ? List.copyOf(map.values()) : List.of();
+    }
 }
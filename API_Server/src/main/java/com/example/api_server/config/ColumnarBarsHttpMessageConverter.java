@@ -0,0 +1,48 @@
+package com.example.api_server.config;
+
+import com.example.api_server.dto.HistoricalDataResponse;
+import com.example.api_server.service.ColumnarBarsCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link HistoricalDataResponse} in the {@link ColumnarBarsCodec}
+ * encoding for clients that send {@code Accept: application/x-ohlc-columns}.
+ * Write-only: no endpoint takes bars as a request body, so there is no
+ * reason to run client bytes through the decoder.
+ */
+public class ColumnarBarsHttpMessageConverter extends AbstractHttpMessageConverter<HistoricalDataResponse> {
+
+    public static final MediaType COLUMNAR_BARS = MediaType.parseMediaType(ColumnarBarsCodec.MEDIA_TYPE);
+
+    public ColumnarBarsHttpMessageConverter() {
+        super(COLUMNAR_BARS);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return HistoricalDataResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected HistoricalDataResponse readInternal(Class<? extends HistoricalDataResponse> clazz,
+                                                  HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Columnar bars are response-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(HistoricalDataResponse response, HttpOutputMessage outputMessage)
+            throws IOException {
+        outputMessage.getBody().write(ColumnarBarsCodec.encode(response));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.api_server.config;
+
+import com.example.api_server.service.SingleFlight;
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Cache decorator whose {@link #get(Object, Callable)} — the path
+ * {@code @Cacheable(sync = true)} takes — loads each missing key once
+ * through {@link SingleFlight}. Concurrent misses wait for the one load and
+ * show up in its {@code coalesced} count under the cache's name.
+ */
+public class SingleFlightCache implements Cache {
+
+    private final Cache delegate;
+    private final SingleFlight flights;
+
+    public SingleFlightCache(Cache delegate, SingleFlight flights) {
+        this.delegate = delegate;
+        this.flights = flights;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper hit = delegate.get(key);
+        if (hit != null) return (T) hit.get();
+        return flights.run(getName(), key, () -> {
+            // The previous flight may have filled the entry just before this one started.
+            ValueWrapper filled = delegate.get(key);
+            if (filled != null) return (T) filled.get();
+            T value;
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(key, valueLoader, e);
+            }
+            delegate.put(key, value);
+            return value;
+        });
+    }
+
+    @Override
+    public String getName() { return delegate.getName(); }
+
+    @Override
+    public Object getNativeCache() { return delegate.getNativeCache(); }
+
+    @Override
+    public ValueWrapper get(Object key) { return delegate.get(key); }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) { return delegate.get(key, type); }
+
+    @Override
+    public void put(Object key, Object value) { delegate.put(key, value); }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) { return delegate.putIfAbsent(key, value); }
+
+    @Override
+    public void evict(Object key) { delegate.evict(key); }
+
+    @Override
+    public boolean evictIfPresent(Object key) { return delegate.evictIfPresent(key); }
+
+    @Override
+    public void clear() { delegate.clear(); }
+
+    @Override
+    public boolean invalidate() { return delegate.invalidate(); }
+}
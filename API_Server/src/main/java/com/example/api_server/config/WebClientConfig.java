@@ -8,6 +8,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 
@@ -27,10 +28,37 @@ public class WebClientConfig {
     @Value("${webclient.timeout.read:10000}")
     private int readTimeout;
 
+    @Value("${yahoo.pool.max-connections:32}")
+    private int maxConnections;
+
+    @Value("${yahoo.pool.max-idle-ms:30000}")
+    private long maxIdleMillis;
+
+    /**
+     * Keep-alive pool for the Yahoo host. Sized for ingestion's parallel
+     * fetches plus the live endpoints; idle connections are closed before
+     * Yahoo's edge drops them, so a reused socket is rarely a dead one, and
+     * recycled after a few minutes so DNS changes are picked up.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider yahooConnectionProvider() {
+        return ConnectionProvider.builder("yahoo")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectTimeout))
+                .maxIdleTime(Duration.ofMillis(maxIdleMillis))
+                .maxLifeTime(Duration.ofMinutes(5))
+                .evictInBackground(Duration.ofSeconds(30))
+                .build();
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        HttpClient httpClient = HttpClient.create()
+    public WebClient.Builder webClientBuilder(ConnectionProvider yahooConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(yahooConnectionProvider)
                 .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                // Chart and options bodies are JSON; gzip cuts them ~8x on the wire.
+                .compress(true)
                 .responseTimeout(Duration.ofMillis(readTimeout));
 
         return WebClient.builder()
@@ -0,0 +1,21 @@
+package com.example.api_server.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    /**
+     * Custom converters are consulted ahead of the defaults, so the
+     * endpoints that negotiate the columnar encoding list JSON first in
+     * {@code produces}: JSON still wins for {@code Accept: *}{@code /*}
+     * (what fetch() sends), and columnar is only picked when a client names
+     * it explicitly.
+     */
+    @Override
+    public void configureMessageConverters(HttpMessageConverters.ServerBuilder builder) {
+        builder.addCustomConverter(new ColumnarBarsHttpMessageConverter());
+    }
+}
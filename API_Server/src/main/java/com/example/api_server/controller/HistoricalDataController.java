@@ -1,10 +1,29 @@
 package com.example.api_server.controller;
 
+import com.example.api_server.config.ColumnarBarsHttpMessageConverter;
+import com.example.api_server.dto.ErrorResponse;
 import com.example.api_server.dto.HistoricalDataResponse;
+import com.example.api_server.dto.HistoricalQuery;
+import com.example.api_server.service.ColumnarBarsCodec;
+import com.example.api_server.service.HistoricalBatchService;
+import com.example.api_server.service.HistoricalBody;
 import com.example.api_server.service.HistoricalDataService;
 import com.example.api_server.service.LiveHistoricalService;
+import com.example.api_server.service.ResponseBytes;
 import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/historical")
@@ -13,20 +32,96 @@ public class HistoricalDataController {
 
     private final HistoricalDataService historicalDataService;
     private final LiveHistoricalService liveHistoricalService;
+    private final HistoricalBatchService historicalBatchService;
 
     public HistoricalDataController(HistoricalDataService historicalDataService,
-                                    LiveHistoricalService liveHistoricalService) {
+                                    LiveHistoricalService liveHistoricalService,
+                                    HistoricalBatchService historicalBatchService) {
         this.historicalDataService = historicalDataService;
         this.liveHistoricalService = liveHistoricalService;
+        this.historicalBatchService = historicalBatchService;
     }
 
+    /**
+     * Full chart payload. Written straight from the pre-serialized bytes the
+     * service caches — gzipped when the client accepts it — so a repeat
+     * request for an unchanged view does no Jackson or deflate work.
+     *
+     * Validators come from the cached MAX(fetched_at) probe: the ETag is that
+     * timestamp plus (symbol, period, interval, encoding) and the slice's
+     * first bar time — a relative period's window moves with the clock even
+     * when nothing is written — and Last-Modified the timestamp itself. A
+     * client revalidating a view nothing has been ingested into since gets
+     * a 304 off the cached slice, without an encode. A body standing in for
+     * a failed load goes out {@code no-store} with no validators, so nobody
+     * keeps revalidating an empty chart against it.
+     *
+     * Clients that ask for {@code application/x-ohlc-columns} get the
+     * {@link ColumnarBarsCodec} encoding instead of JSON, cached with it.
+     *
+     * Optional {@code maxPoints} downsamples the bars to at most that many
+     * (OHLC-preserving), which also lifts the 1m/5m lookback caps — a phone
+     * can ask for 3 months of 1m bars at 500 points.
+     */
     @GetMapping
     @RateLimiter(name = "marketDataApi")
-    public HistoricalDataResponse getHistoricalData(
+    public ResponseEntity<byte[]> getHistoricalData(
             @RequestParam String symbol,
             @RequestParam(defaultValue = "1mo") String period,
-            @RequestParam(defaultValue = "1d") String interval) {
-        return historicalDataService.getHistoricalData(symbol, period, interval);
+            @RequestParam(defaultValue = "1d") String interval,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request) {
+        HistoricalQuery.checkMaxPoints(maxPoints);
+        boolean columnar = acceptsColumnar(accept);
+        boolean gzip = !columnar && acceptsGzip(acceptEncoding);
+        HistoricalBody versioned = historicalDataService.getHistoricalDataBody(symbol, period, interval, maxPoints);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(columnar ? ColumnarBarsHttpMessageConverter.COLUMNAR_BARS : MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING)
+                // Let browsers keep the body but revalidate on every use.
+                .cacheControl(versioned.fallback() ? CacheControl.noStore() : CacheControl.noCache());
+
+        LocalDateTime lastModified = versioned.fallback() ? null
+                : historicalDataService.lastModified(symbol, interval);
+        if (lastModified != null) {
+            Instant version = lastModified.atZone(ZoneId.systemDefault()).toInstant();
+            String etag = "\"" + symbol.toUpperCase() + "-" + period + "-" + interval + "-"
+                    + version.toEpochMilli() + "-" + firstBarTag(versioned.firstTime())
+                    + (maxPoints == null ? "" : "-" + maxPoints + "pt")
+                    + (columnar ? "-col" : gzip ? "-gz" : "") + "\"";
+            if (request.checkNotModified(etag, version.toEpochMilli())) {
+                // 304 status and validators are already set on the response.
+                return null;
+            }
+            response.eTag(etag).lastModified(version);
+        }
+
+        ResponseBytes body = versioned.bytes();
+        if (columnar) {
+            return response.body(body.columns());
+        }
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    /**
+     * Many series in one round trip: the body is a JSON array of
+     * {@code {symbol, period, interval, maxPoints?}}, the response a JSON array of
+     * {@code /api/historical} bodies in the same order (or an
+     * {@code error} entry for a series that failed). Costs one rate-limiter
+     * token for the whole batch.
+     */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @RateLimiter(name = "marketDataApi")
+    public ResponseEntity<byte[]> getHistoricalDataBatch(@RequestBody List<HistoricalQuery> queries) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .body(historicalBatchService.load(queries));
     }
 
     /**
@@ -40,7 +135,7 @@ public class HistoricalDataController {
      * short-circuits without querying OHLC rows if ingestion hasn't written
      * anything new since that timestamp.
      */
-    @GetMapping("/since")
+    @GetMapping(value = "/since", produces = {MediaType.APPLICATION_JSON_VALUE, ColumnarBarsCodec.MEDIA_TYPE})
     @RateLimiter(name = "marketDataApi")
     public HistoricalDataResponse getHistoricalDataSince(
             @RequestParam String symbol,
@@ -56,9 +151,50 @@ public class HistoricalDataController {
      * candle over at minute boundaries between 5-minute ingestion runs
      * without burning DB egress.
      */
-    @GetMapping("/recent")
+    @GetMapping(value = "/recent", produces = {MediaType.APPLICATION_JSON_VALUE, ColumnarBarsCodec.MEDIA_TYPE})
     @RateLimiter(name = "marketDataApi")
     public HistoricalDataResponse getRecent1mBars(@RequestParam String symbol) {
         return liveHistoricalService.getRecent1mBars(symbol);
     }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Bad Request", ex.getMessage()));
+    }
+
+    private static String firstBarTag(long firstTime) {
+        return firstTime == HistoricalBody.NO_BARS ? "empty" : Long.toString(firstTime);
+    }
+
+    /** True when the client names the columnar encoding itself — wildcards keep JSON. */
+    private static boolean acceptsColumnar(String accept) {
+        if (accept == null) return false;
+        try {
+            for (MediaType type : MediaType.parseMediaTypes(accept)) {
+                if (type.equalsTypeAndSubtype(ColumnarBarsHttpMessageConverter.COLUMNAR_BARS)) {
+                    return type.getQualityValue() > 0;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        return false;
+    }
+
+    /** True unless the client omits gzip or explicitly refuses it with q=0. */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        for (String part : acceptEncoding.split(",")) {
+            String[] tokens = part.trim().split(";");
+            String coding = tokens[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) continue;
+            for (int i = 1; i < tokens.length; i++) {
+                String param = tokens[i].trim().replace(" ", "");
+                if (param.matches("q=0(\\.0*)?")) return false;
+            }
+            return true;
+        }
+        return false;
+    }
 }
@@ -0,0 +1,77 @@
+package com.example.api_server.controller;
+
+import com.example.api_server.dto.ErrorResponse;
+import com.example.api_server.dto.IndicatorResponse;
+import com.example.api_server.dto.TrendState;
+import com.example.api_server.service.IndicatorService;
+import com.example.api_server.service.IndicatorSpec;
+import com.example.api_server.service.TrendScanService;
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/indicators")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class IndicatorController {
+
+    private final IndicatorService indicatorService;
+    private final TrendScanService trendScanService;
+
+    public IndicatorController(IndicatorService indicatorService, TrendScanService trendScanService) {
+        this.indicatorService = indicatorService;
+        this.trendScanService = trendScanService;
+    }
+
+    /**
+     * Indicator lines over the same bars {@code /api/historical} returns for
+     * (symbol, period, interval). {@code type} is one of sma, ema, bb, vwap
+     * or trend; {@code length} applies to sma/ema/bb, {@code stdDev} to bb,
+     * {@code fast}/{@code slow} to trend. Omitted parameters take the
+     * chart's defaults (SMA 20, EMA 21, BB 20/2, trend 21/200).
+     */
+    @GetMapping
+    @RateLimiter(name = "marketDataApi")
+    public IndicatorResponse getIndicator(
+            @RequestParam String symbol,
+            @RequestParam(defaultValue = "1mo") String period,
+            @RequestParam(defaultValue = "1d") String interval,
+            @RequestParam String type,
+            @RequestParam(required = false) Integer length,
+            @RequestParam(required = false) Double stdDev,
+            @RequestParam(required = false) Integer fast,
+            @RequestParam(required = false) Integer slow) {
+        IndicatorSpec spec = IndicatorSpec.of(type, length, stdDev, fast, slow);
+        return indicatorService.getIndicator(symbol, period, interval, spec);
+    }
+
+    /**
+     * Latest fast/slow trend state for every symbol × timeframe, e.g.
+     * {@code ?symbols=SPY,QQQ&timeframes=M15,H1,D}. Timeframes are the
+     * trend table's labels (M15, M30, H1, H4, D, W); omitted means all.
+     */
+    @GetMapping("/trend")
+    @RateLimiter(name = "marketDataApi")
+    public List<TrendState> scanTrend(
+            @RequestParam List<String> symbols,
+            @RequestParam(required = false) List<String> timeframes,
+            @RequestParam(required = false) Integer fast,
+            @RequestParam(required = false) Integer slow) {
+        IndicatorSpec spec = IndicatorSpec.of("trend", null, null, fast, slow);
+        return trendScanService.scan(symbols, timeframes == null ? List.of() : timeframes, spec);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Bad Request", ex.getMessage()));
+    }
+}
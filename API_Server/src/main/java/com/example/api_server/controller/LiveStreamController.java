@@ -0,0 +1,53 @@
+package com.example.api_server.controller;
+
+import com.example.api_server.exception.MarketDataException;
+import com.example.api_server.service.LiveStreamService;
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/stream")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class LiveStreamController {
+
+    private final LiveStreamService liveStreamService;
+
+    public LiveStreamController(LiveStreamService liveStreamService) {
+        this.liveStreamService = liveStreamService;
+    }
+
+    /**
+     * Server-Sent Events replacement for polling {@code /api/market/live}
+     * and {@code /api/historical/recent}: {@code tick} and {@code bar}
+     * events as the server learns them. Costs one rate-limiter token per
+     * connection rather than one per poll; {@code EventSource} reconnects on
+     * its own when the stream times out.
+     *
+     * 400 for an interval that isn't streamed, 503 when the stream caps are
+     * reached.
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @RateLimiter(name = "marketDataApi")
+    public SseEmitter stream(@RequestParam String symbol,
+                             @RequestParam(defaultValue = "1m") String interval) {
+        return liveStreamService.subscribe(symbol, interval);
+    }
+
+    /**
+     * Status only: the {@code ErrorResponse} JSON the global handler writes
+     * can't be negotiated against {@code Accept: text/event-stream} (it
+     * would surface as a 500), and EventSource never reads the body anyway.
+     */
+    @ExceptionHandler(MarketDataException.class)
+    public ResponseEntity<Void> handleRefused(MarketDataException ex) {
+        return ResponseEntity.status(ex.getStatusCode()).build();
+    }
+}
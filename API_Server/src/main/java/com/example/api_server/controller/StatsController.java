@@ -0,0 +1,59 @@
+package com.example.api_server.controller;
+
+import com.example.api_server.service.LiveStreamService;
+import com.example.api_server.service.MarketDataIngestionService;
+import com.example.api_server.service.SingleFlight;
+import com.example.api_server.service.YahooGateway;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * Operational counters, in the same hand-rolled spirit as {@code /health}.
+ */
+@RestController
+@RequestMapping("/api/stats")
+public class StatsController {
+
+    private final SingleFlight flights;
+    private final LiveStreamService liveStreamService;
+    private final MarketDataIngestionService ingestionService;
+    private final YahooGateway yahoo;
+
+    public StatsController(SingleFlight flights, LiveStreamService liveStreamService,
+                           MarketDataIngestionService ingestionService, YahooGateway yahoo) {
+        this.flights = flights;
+        this.liveStreamService = liveStreamService;
+        this.ingestionService = ingestionService;
+        this.yahoo = yahoo;
+    }
+
+    /**
+     * Loads run vs. requests coalesced onto someone else's load, per group
+     * (cache name or store operation).
+     */
+    @GetMapping("/single-flight")
+    public Map<String, Map<String, Long>> singleFlight() {
+        return flights.stats();
+    }
+
+    /** Open SSE topics/subscribers, events sent, and updates superseded before a slow client took them. */
+    @GetMapping("/stream")
+    public Map<String, Long> stream() {
+        return liveStreamService.stats();
+    }
+
+    /** Historical-bar ingestion per symbol and interval: bars fetched vs. rows written, statement time. */
+    @GetMapping("/ingestion")
+    public Map<String, Map<String, Long>> ingestion() {
+        return ingestionService.stats();
+    }
+
+    /** Yahoo calls per endpoint: requests made vs. calls that went upstream, failures, call time. */
+    @GetMapping("/yahoo")
+    public Map<String, Map<String, Long>> yahoo() {
+        return yahoo.stats();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.api_server.controller;
+
+import com.example.api_server.dto.ErrorResponse;
+import com.example.api_server.dto.VolumeProfileResponse;
+import com.example.api_server.service.VolumeProfileService;
+import io.github.resilience4j.ratelimiter.annotation.RateLimiter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/volume-profile")
+@CrossOrigin(origins = {"http://localhost:5173", "http://localhost:5174"})
+public class VolumeProfileController {
+
+    private final VolumeProfileService volumeProfileService;
+
+    public VolumeProfileController(VolumeProfileService volumeProfileService) {
+        this.volumeProfileService = volumeProfileService;
+    }
+
+    /**
+     * Volume profile of one session from 1m bars, e.g.
+     * {@code ?symbol=NQ=F&session=2025-01-10}. {@code session} is the
+     * trading date (Globex day for futures) and defaults to the latest one;
+     * {@code tickSize} defaults to 0.25 for futures, 0.01 otherwise.
+     */
+    @GetMapping
+    @RateLimiter(name = "marketDataApi")
+    public VolumeProfileResponse getProfile(
+            @RequestParam String symbol,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate session,
+            @RequestParam(required = false) Double tickSize) {
+        double tick = VolumeProfileService.tickSizeFor(symbol, tickSize);
+        VolumeProfileService.checkSession(session);
+        return volumeProfileService.getProfile(symbol, session, tick);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ErrorResponse> handleBadRequest(IllegalArgumentException ex) {
+        return ResponseEntity.badRequest()
+                .body(new ErrorResponse(HttpStatus.BAD_REQUEST.value(), "Bad Request", ex.getMessage()));
+    }
+}
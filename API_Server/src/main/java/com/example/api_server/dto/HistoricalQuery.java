@@ -0,0 +1,38 @@
+package com.example.api_server.dto;
+
+/**
+ * One (symbol, period, interval) in a {@code POST /api/historical/batch}
+ * body. Defaults match the single-series GET endpoint, including the
+ * optional {@code maxPoints} downsampling budget.
+ */
+public class HistoricalQuery {
+
+    private String symbol;
+    private String period = "1mo";
+    private String interval = "1d";
+    private Integer maxPoints;
+
+    /** Smallest point budget that still draws a meaningful chart. */
+    public static final int MIN_MAX_POINTS = 10;
+
+    public HistoricalQuery() {
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public String getInterval() { return interval; }
+    public void setInterval(String interval) { this.interval = interval; }
+
+    public Integer getMaxPoints() { return maxPoints; }
+    public void setMaxPoints(Integer maxPoints) { this.maxPoints = maxPoints; }
+
+    public static void checkMaxPoints(Integer maxPoints) {
+        if (maxPoints != null && maxPoints < MIN_MAX_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be at least " + MIN_MAX_POINTS);
+        }
+    }
+}
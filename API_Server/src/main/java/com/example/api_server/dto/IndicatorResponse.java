@@ -0,0 +1,62 @@
+package com.example.api_server.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Indicator lines for a chart view, column-wise: {@code time} holds one
+ * label per bar (same format as {@link OhlcData#getTime()}) and each entry
+ * of {@code values} one number per bar, null until the indicator has warmed
+ * up. Trend responses also carry {@code states}
+ * ({@code bullish}/{@code bearish}/{@code neutral}, null before warm-up).
+ */
+public class IndicatorResponse {
+    private String symbol;
+    private String period;
+    private String interval;
+    private String indicator;
+    private Map<String, Object> params;
+    private List<String> time;
+    private Map<String, List<Double>> values;
+    private List<String> states;
+
+    public IndicatorResponse() {
+    }
+
+    public IndicatorResponse(String symbol, String period, String interval, String indicator,
+                             Map<String, Object> params, List<String> time,
+                             Map<String, List<Double>> values, List<String> states) {
+        this.symbol = symbol;
+        this.period = period;
+        this.interval = interval;
+        this.indicator = indicator;
+        this.params = params;
+        this.time = time;
+        this.values = values;
+        this.states = states;
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getPeriod() { return period; }
+    public void setPeriod(String period) { this.period = period; }
+
+    public String getInterval() { return interval; }
+    public void setInterval(String interval) { this.interval = interval; }
+
+    public String getIndicator() { return indicator; }
+    public void setIndicator(String indicator) { this.indicator = indicator; }
+
+    public Map<String, Object> getParams() { return params; }
+    public void setParams(Map<String, Object> params) { this.params = params; }
+
+    public List<String> getTime() { return time; }
+    public void setTime(List<String> time) { this.time = time; }
+
+    public Map<String, List<Double>> getValues() { return values; }
+    public void setValues(Map<String, List<Double>> values) { this.values = values; }
+
+    public List<String> getStates() { return states; }
+    public void setStates(List<String> states) { this.states = states; }
+}
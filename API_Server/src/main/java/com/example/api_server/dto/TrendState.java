@@ -0,0 +1,63 @@
+package com.example.api_server.dto;
+
+/**
+ * Latest 21/200-style trend reading for one symbol on one timeframe: the
+ * state {@code latestTrendState} would compute on the chart
+ * ({@code bullish}/{@code bearish}/{@code neutral}, null when there aren't
+ * enough bars), the two EMAs behind it and their per-bar slope.
+ */
+public class TrendState {
+    private String symbol;
+    private String timeframe;
+    private String interval;
+    private String time;
+    private String state;
+    private Double close;
+    private Double fast;
+    private Double slow;
+    private Double fastSlope;
+    private Double slowSlope;
+    private String error;
+
+    public TrendState() {
+    }
+
+    public TrendState(String symbol, String timeframe, String interval) {
+        this.symbol = symbol;
+        this.timeframe = timeframe;
+        this.interval = interval;
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getTimeframe() { return timeframe; }
+    public void setTimeframe(String timeframe) { this.timeframe = timeframe; }
+
+    public String getInterval() { return interval; }
+    public void setInterval(String interval) { this.interval = interval; }
+
+    public String getTime() { return time; }
+    public void setTime(String time) { this.time = time; }
+
+    public String getState() { return state; }
+    public void setState(String state) { this.state = state; }
+
+    public Double getClose() { return close; }
+    public void setClose(Double close) { this.close = close; }
+
+    public Double getFast() { return fast; }
+    public void setFast(Double fast) { this.fast = fast; }
+
+    public Double getSlow() { return slow; }
+    public void setSlow(Double slow) { this.slow = slow; }
+
+    public Double getFastSlope() { return fastSlope; }
+    public void setFastSlope(Double fastSlope) { this.fastSlope = fastSlope; }
+
+    public Double getSlowSlope() { return slowSlope; }
+    public void setSlowSlope(Double slowSlope) { this.slowSlope = slowSlope; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+}
@@ -0,0 +1,65 @@
+package com.example.api_server.dto;
+
+import java.util.List;
+
+/**
+ * Volume profile of one trading session, column-wise over a contiguous
+ * tick grid: {@code price[i]} is a tick-aligned price and {@code raw[i]} /
+ * {@code smoothed[i]} the volume at it (raw is 0 where no volume landed).
+ * {@code from}/{@code to} are the session bounds in the same format as
+ * {@link OhlcData#getTime()}; {@code bars} is how many 1m bars went in.
+ */
+public class VolumeProfileResponse {
+    private String symbol;
+    private String session;
+    private String from;
+    private String to;
+    private double tickSize;
+    private int bars;
+    private List<Double> price;
+    private List<Double> raw;
+    private List<Double> smoothed;
+
+    public VolumeProfileResponse() {
+    }
+
+    public VolumeProfileResponse(String symbol, String session, String from, String to, double tickSize,
+                                 int bars, List<Double> price, List<Double> raw, List<Double> smoothed) {
+        this.symbol = symbol;
+        this.session = session;
+        this.from = from;
+        this.to = to;
+        this.tickSize = tickSize;
+        this.bars = bars;
+        this.price = price;
+        this.raw = raw;
+        this.smoothed = smoothed;
+    }
+
+    public String getSymbol() { return symbol; }
+    public void setSymbol(String symbol) { this.symbol = symbol; }
+
+    public String getSession() { return session; }
+    public void setSession(String session) { this.session = session; }
+
+    public String getFrom() { return from; }
+    public void setFrom(String from) { this.from = from; }
+
+    public String getTo() { return to; }
+    public void setTo(String to) { this.to = to; }
+
+    public double getTickSize() { return tickSize; }
+    public void setTickSize(double tickSize) { this.tickSize = tickSize; }
+
+    public int getBars() { return bars; }
+    public void setBars(int bars) { this.bars = bars; }
+
+    public List<Double> getPrice() { return price; }
+    public void setPrice(List<Double> price) { this.price = price; }
+
+    public List<Double> getRaw() { return raw; }
+    public void setRaw(List<Double> raw) { this.raw = raw; }
+
+    public List<Double> getSmoothed() { return smoothed; }
+    public void setSmoothed(List<Double> smoothed) { this.smoothed = smoothed; }
+}
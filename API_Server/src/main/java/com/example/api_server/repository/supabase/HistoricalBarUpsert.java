@@ -0,0 +1,23 @@
+package com.example.api_server.repository.supabase;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Set-based write path for {@code historical_data}, mixed into
+ * {@link SupabaseHistoricalDataRepository}.
+ */
+public interface HistoricalBarUpsert {
+
+    /**
+     * Upsert every bar of one (symbol, interval) batch in a single statement
+     * and transaction, with the same ON CONFLICT semantics as
+     * {@link SupabaseHistoricalDataRepository#upsertBar}. When a date occurs
+     * more than once the last bar wins, as it did row by row.
+     *
+     * @return rows inserted or updated
+     */
+    int upsertBars(String symbol, String intervalType, List<HistoricalBar> bars, LocalDateTime fetchedAt);
+}
@@ -0,0 +1,88 @@
+package com.example.api_server.repository.supabase;
+
+import com.example.api_server.dto.HistoricalBar;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One INSERT ... SELECT FROM unnest(...) per batch: the columns travel as
+ * six array parameters, so a 1m range=1d fetch (~400–1300 bars) is one
+ * round trip to the pooler instead of one per bar. Plain JDBC on the
+ * Supabase data source — it joins the JPA transaction through the shared
+ * connection. Arrays are sent as text and cast server-side so the naive
+ * timestamps aren't shifted by the JVM zone.
+ */
+class HistoricalBarUpsertImpl implements HistoricalBarUpsert {
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO historical_data
+                (symbol, date, interval_type, open, high, low, close_price, volume, fetched_at)
+            SELECT ?, t.date, ?, t.open, t.high, t.low, t.close_price, t.volume, ?::timestamp
+            FROM unnest(?::timestamp[], ?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::int8[])
+                AS t(date, open, high, low, close_price, volume)
+            ON CONFLICT (symbol, date, interval_type)
+            DO UPDATE SET
+                open = EXCLUDED.open,
+                high = EXCLUDED.high,
+                low = EXCLUDED.low,
+                close_price = EXCLUDED.close_price,
+                volume = EXCLUDED.volume,
+                fetched_at = EXCLUDED.fetched_at
+            """;
+
+    private final JdbcTemplate jdbc;
+
+    HistoricalBarUpsertImpl(@Qualifier("supabaseDataSource") DataSource dataSource) {
+        this.jdbc = new JdbcTemplate(dataSource);
+    }
+
+    @Override
+    @Transactional("supabaseTransactionManager")
+    public int upsertBars(String symbol, String intervalType, List<HistoricalBar> bars, LocalDateTime fetchedAt) {
+        // ON CONFLICT can't touch the same row twice in one statement.
+        Map<LocalDateTime, HistoricalBar> byDate = new LinkedHashMap<>();
+        for (HistoricalBar b : bars) byDate.put(b.date(), b);
+        if (byDate.isEmpty()) return 0;
+
+        int n = byDate.size();
+        String[] dates = new String[n];
+        Double[] open = new Double[n];
+        Double[] high = new Double[n];
+        Double[] low = new Double[n];
+        Double[] close = new Double[n];
+        Long[] volume = new Long[n];
+        int i = 0;
+        for (HistoricalBar b : byDate.values()) {
+            dates[i] = b.date().toString();
+            open[i] = b.open();
+            high[i] = b.high();
+            low[i] = b.low();
+            close[i] = b.close();
+            volume[i] = b.volume();
+            i++;
+        }
+
+        return jdbc.update((Connection con) -> {
+            PreparedStatement ps = con.prepareStatement(UPSERT_SQL);
+            ps.setString(1, symbol);
+            ps.setString(2, intervalType);
+            ps.setObject(3, fetchedAt);
+            ps.setArray(4, con.createArrayOf("text", dates));
+            ps.setArray(5, con.createArrayOf("float8", open));
+            ps.setArray(6, con.createArrayOf("float8", high));
+            ps.setArray(7, con.createArrayOf("float8", low));
+            ps.setArray(8, con.createArrayOf("float8", close));
+            ps.setArray(9, con.createArrayOf("int8", volume));
+            return ps;
+        });
+    }
+}
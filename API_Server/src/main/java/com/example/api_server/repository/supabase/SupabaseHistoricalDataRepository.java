@@ -11,11 +11,13 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface SupabaseHistoricalDataRepository extends JpaRepository<HistoricalDataEntity, Long> {
+public interface SupabaseHistoricalDataRepository extends JpaRepository<HistoricalDataEntity, Long>,
+        HistoricalBarUpsert {
 
     /**
      * Projection-based read used by the chart path. Hydrates only the columns
@@ -40,6 +42,37 @@ public interface SupabaseHistoricalDataRepository extends JpaRepository<Historic
             @Param("symbol") String symbol, @Param("intervalType") String intervalType,
             @Param("start") LocalDateTime start);
 
+    /**
+     * Bars in {@code [start, end)}. Used by the in-memory bar store to reach
+     * further back than its resident window without re-reading the rows it
+     * already holds.
+     */
+    @Query("SELECT new com.example.api_server.dto.HistoricalBar(" +
+            "h.date, h.open, h.high, h.low, h.close, h.volume) " +
+            "FROM HistoricalDataEntity h " +
+            "WHERE h.symbol = :symbol AND h.intervalType = :intervalType " +
+            "AND h.date >= :start AND h.date < :end " +
+            "ORDER BY h.date ASC")
+    List<HistoricalBar> findBarsBySymbolAndIntervalBetween(
+            @Param("symbol") String symbol, @Param("intervalType") String intervalType,
+            @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    /**
+     * Rows (re)written after {@code fetchedAfter} within the date window.
+     * Used by the in-memory bar store to catch up with another writer — the
+     * date bound keeps the scan on the unique index, the fetched_at filter
+     * keeps egress down to the rows that actually changed.
+     */
+    @Query("SELECT new com.example.api_server.dto.HistoricalBar(" +
+            "h.date, h.open, h.high, h.low, h.close, h.volume) " +
+            "FROM HistoricalDataEntity h " +
+            "WHERE h.symbol = :symbol AND h.intervalType = :intervalType AND h.date >= :start " +
+            "AND h.fetchedAt > :fetchedAfter " +
+            "ORDER BY h.date ASC")
+    List<HistoricalBar> findBarsBySymbolAndIntervalFetchedAfter(
+            @Param("symbol") String symbol, @Param("intervalType") String intervalType,
+            @Param("start") LocalDateTime start, @Param("fetchedAfter") LocalDateTime fetchedAfter);
+
     /**
      * Cheap MAX(date) probe used to decide whether an incremental fetch has
      * anything to return without transferring any OHLC rows. Returning this
@@ -60,6 +93,23 @@ public interface SupabaseHistoricalDataRepository extends JpaRepository<Historic
     LocalDateTime findMaxFetchedAtBySymbolAndIntervalType(
             @Param("symbol") String symbol, @Param("intervalType") String intervalType);
 
+    /**
+     * The same probe for every interval of {@code symbols} in one grouped
+     * query — what the bar store's background refresh issues per pass.
+     */
+    @Query("SELECT h.symbol AS symbol, h.intervalType AS intervalType, MAX(h.fetchedAt) AS maxFetchedAt " +
+            "FROM HistoricalDataEntity h WHERE h.symbol IN :symbols GROUP BY h.symbol, h.intervalType")
+    List<LatestFetch> findMaxFetchedAtBySymbols(@Param("symbols") Collection<String> symbols);
+
+    /** One row of {@link #findMaxFetchedAtBySymbols}. */
+    interface LatestFetch {
+        String getSymbol();
+
+        String getIntervalType();
+
+        LocalDateTime getMaxFetchedAt();
+    }
+
     List<HistoricalDataEntity> findBySymbolAndIntervalTypeAndDateBetweenOrderByDateAsc(
             String symbol, String intervalType, LocalDate startDate, LocalDate endDate);
 
@@ -71,9 +121,8 @@ public interface SupabaseHistoricalDataRepository extends JpaRepository<Historic
     /**
      * Upsert a single OHLC bar keyed by (symbol, date, interval_type). Matches
      * the ON CONFLICT semantics in the Python ingestion code so re-ingesting
-     * the developing last bar overwrites it in place. Called in a loop by the
-     * Spring Boot ingestion scheduler — Postgres handles the per-row INSERT
-     * pretty cheaply via the existing unique index.
+     * the developing last bar overwrites it in place. Ingestion writes whole
+     * batches through {@link #upsertBars} instead.
      */
     @Modifying
     @Transactional("supabaseTransactionManager")
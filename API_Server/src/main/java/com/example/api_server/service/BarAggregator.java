@@ -0,0 +1,177 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.util.List;
+
+/**
+ * Single-pass OHLCV aggregation over primitive columns.
+ *
+ * One loop per input range: each bar is compared against the current
+ * bucket's exclusive end, and folded in place (max high, min low, last
+ * close, summed volume) or opens the next output row. No per-bucket lists,
+ * no boxing, no allocation — callers pass the output columns in, sized for
+ * the worst case of one output row per input row.
+ *
+ * Output is identical to the old {@code LinkedHashMap}-based
+ * {@code aggregateToNMinutes}/{@code aggregateToWeekly}; see
+ * {@code BarAggregatorTest}.
+ */
+public final class BarAggregator {
+
+    private BarAggregator() {}
+
+    /**
+     * Aggregate {@code in[from, to)} (ascending by time) into {@code out},
+     * starting at row 0 of {@code out}. {@code out.size()} is ignored.
+     *
+     * @return the number of output rows written
+     */
+    public static int aggregate(BarSeries.Snapshot in, int from, int to,
+                                BarBucketing bucketing, BarSeries.Snapshot out) {
+        long[] time = in.time();
+        double[] open = in.open();
+        double[] high = in.high();
+        double[] low = in.low();
+        double[] close = in.close();
+        long[] volume = in.volume();
+
+        long[] oTime = out.time();
+        double[] oOpen = out.open();
+        double[] oHigh = out.high();
+        double[] oLow = out.low();
+        double[] oClose = out.close();
+        long[] oVolume = out.volume();
+
+        int o = -1;
+        long bucketEnd = Long.MIN_VALUE;
+        double h = 0;
+        double l = 0;
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            long t = time[i];
+            long vol = volume[i] < 0 ? 0L : volume[i];
+            if (t >= bucketEnd) {
+                if (o >= 0) {
+                    oHigh[o] = h;
+                    oLow[o] = l;
+                    oVolume[o] = v;
+                }
+                long start = bucketing.bucketStart(t);
+                bucketEnd = bucketing.nextBucketStart(start);
+                o++;
+                oTime[o] = start;
+                oOpen[o] = open[i];
+                h = high[i];
+                l = low[i];
+                v = vol;
+            } else {
+                if (high[i] > h) h = high[i];
+                if (low[i] < l) l = low[i];
+                v += vol;
+            }
+            oClose[o] = close[i];
+        }
+        if (o >= 0) {
+            oHigh[o] = h;
+            oLow[o] = l;
+            oVolume[o] = v;
+        }
+        return o + 1;
+    }
+
+    /** Convenience wrapper that allocates the output columns for {@code in[from, size)}. */
+    public static BarSeries.Snapshot aggregate(BarSeries.Snapshot in, int from, BarBucketing bucketing) {
+        BarSeries.Snapshot out = allocate(Math.max(0, in.size() - from));
+        int n = aggregate(in, from, in.size(), bucketing, out);
+        return new BarSeries.Snapshot(out.time(), out.open(), out.high(), out.low(), out.close(), out.volume(), n);
+    }
+
+    /**
+     * Shrink {@code in[from, to)} to at most {@code maxPoints} rows for
+     * display. Runs of consecutive bars fold into one with the run's first
+     * time and open, highest high, lowest low, last close and summed volume
+     * — min/max bucketing by count, so every wick and gap in the range
+     * still shows at the lower resolution. Returns a copy of the range when
+     * it already fits.
+     */
+    public static BarSeries.Snapshot downsample(BarSeries.Snapshot in, int from, int to, int maxPoints) {
+        int n = Math.max(0, to - from);
+        int per = Math.max(1, (n + maxPoints - 1) / maxPoints);
+        int rows = (n + per - 1) / per;
+
+        long[] time = in.time();
+        double[] open = in.open();
+        double[] high = in.high();
+        double[] low = in.low();
+        double[] close = in.close();
+        long[] volume = in.volume();
+        BarSeries.Snapshot out = allocate(rows);
+        for (int r = 0; r < rows; r++) {
+            int start = from + r * per;
+            int end = Math.min(to, start + per);
+            double h = high[start];
+            double l = low[start];
+            long v = 0;
+            boolean anyVolume = false;
+            for (int i = start; i < end; i++) {
+                if (high[i] > h) h = high[i];
+                if (low[i] < l) l = low[i];
+                if (volume[i] >= 0) {
+                    v += volume[i];
+                    anyVolume = true;
+                }
+            }
+            out.time()[r] = time[start];
+            out.open()[r] = open[start];
+            out.high()[r] = h;
+            out.low()[r] = l;
+            out.close()[r] = close[end - 1];
+            out.volume()[r] = anyVolume ? v : BarSeries.NO_VOLUME;
+        }
+        return new BarSeries.Snapshot(out.time(), out.open(), out.high(), out.low(), out.close(), out.volume(), rows);
+    }
+
+    public static BarSeries.Snapshot allocate(int capacity) {
+        return new BarSeries.Snapshot(new long[capacity], new double[capacity], new double[capacity],
+                new double[capacity], new double[capacity], new long[capacity], 0);
+    }
+
+    /** {@code head} followed by {@code tail} in new columns; every head row must be older than the tail. */
+    public static BarSeries.Snapshot concat(BarSeries.Snapshot head, BarSeries.Snapshot tail) {
+        int h = head.size();
+        int n = h + tail.size();
+        BarSeries.Snapshot out = allocate(n);
+        System.arraycopy(head.time(), 0, out.time(), 0, h);
+        System.arraycopy(head.open(), 0, out.open(), 0, h);
+        System.arraycopy(head.high(), 0, out.high(), 0, h);
+        System.arraycopy(head.low(), 0, out.low(), 0, h);
+        System.arraycopy(head.close(), 0, out.close(), 0, h);
+        System.arraycopy(head.volume(), 0, out.volume(), 0, h);
+        System.arraycopy(tail.time(), 0, out.time(), h, tail.size());
+        System.arraycopy(tail.open(), 0, out.open(), h, tail.size());
+        System.arraycopy(tail.high(), 0, out.high(), h, tail.size());
+        System.arraycopy(tail.low(), 0, out.low(), h, tail.size());
+        System.arraycopy(tail.close(), 0, out.close(), h, tail.size());
+        System.arraycopy(tail.volume(), 0, out.volume(), h, tail.size());
+        return new BarSeries.Snapshot(out.time(), out.open(), out.high(), out.low(), out.close(), out.volume(), n);
+    }
+
+    /** Column copy of {@code bars}; rows with a NULL price are dropped. */
+    public static BarSeries.Snapshot columnsOf(List<HistoricalBar> bars) {
+        BarSeries.Snapshot out = allocate(bars.size());
+        int n = 0;
+        for (HistoricalBar b : bars) {
+            if (b.date() == null || b.open() == null || b.high() == null
+                    || b.low() == null || b.close() == null) continue;
+            out.time()[n] = BarSeries.timeKey(b.date());
+            out.open()[n] = b.open();
+            out.high()[n] = b.high();
+            out.low()[n] = b.low();
+            out.close()[n] = b.close();
+            out.volume()[n] = b.volume() == null ? BarSeries.NO_VOLUME : b.volume();
+            n++;
+        }
+        return new BarSeries.Snapshot(out.time(), out.open(), out.high(), out.low(), out.close(), out.volume(), n);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.api_server.service;
+
+/**
+ * Maps a {@link BarSeries} time key to the start of the bucket it rolls up
+ * into. Mirrors the {@code LocalDateTime} grouping the aggregation code has
+ * always used: N-minute buckets are aligned to midnight of the bar's own
+ * day, weekly buckets start on Monday 00:00.
+ *
+ * {@link #nextBucketStart} lets {@link BarAggregator} test bucket membership
+ * with one comparison per bar instead of recomputing the bucket each time.
+ * Calendar buckets (months, quarters) fit the same two methods.
+ */
+public interface BarBucketing {
+
+    long SECONDS_PER_DAY = 86_400L;
+
+    long bucketStart(long timeKey);
+
+    /** Exclusive end of the bucket that starts at {@code bucketStart}. */
+    long nextBucketStart(long bucketStart);
+
+    static BarBucketing minutes(int n) {
+        long width = n * 60L;
+        return new BarBucketing() {
+            @Override
+            public long bucketStart(long t) {
+                long dayStart = Math.floorDiv(t, SECONDS_PER_DAY) * SECONDS_PER_DAY;
+                return dayStart + ((t - dayStart) / width) * width;
+            }
+
+            @Override
+            public long nextBucketStart(long start) {
+                // Buckets restart at midnight even when n doesn't divide a day.
+                long nextDay = (Math.floorDiv(start, SECONDS_PER_DAY) + 1) * SECONDS_PER_DAY;
+                return Math.min(start + width, nextDay);
+            }
+        };
+    }
+
+    /**
+     * {@code n}-minute buckets starting {@code offsetMinutes} past midnight
+     * and running straight through it, for widths that divide a day —
+     * {@code minutes(60, 30)} is Yahoo's equity hour (09:30, 10:30, … ET,
+     * every US offset being whole hours).
+     */
+    static BarBucketing minutes(int n, int offsetMinutes) {
+        long width = n * 60L;
+        long offset = offsetMinutes * 60L;
+        return new BarBucketing() {
+            @Override
+            public long bucketStart(long t) {
+                return t - Math.floorMod(t - offset, width);
+            }
+
+            @Override
+            public long nextBucketStart(long start) {
+                return start + width;
+            }
+        };
+    }
+
+    static BarBucketing weekly() {
+        return new BarBucketing() {
+            @Override
+            public long bucketStart(long t) {
+                long epochDay = Math.floorDiv(t, SECONDS_PER_DAY);
+                // 1970-01-01 was a Thursday, i.e. three days after a Monday.
+                long monday = epochDay - Math.floorMod(epochDay + 3, 7);
+                return monday * SECONDS_PER_DAY;
+            }
+
+            @Override
+            public long nextBucketStart(long start) {
+                return start + 7 * SECONDS_PER_DAY;
+            }
+        };
+    }
+
+    /** Bucketing for a derived interval, or null when {@code interval} is stored as-is. */
+    static BarBucketing forInterval(String interval) {
+        return switch (interval) {
+            case "15m" -> minutes(15);
+            case "30m" -> minutes(30);
+            case "4h" -> minutes(240);
+            case "1wk" -> weekly();
+            default -> null;
+        };
+    }
+}
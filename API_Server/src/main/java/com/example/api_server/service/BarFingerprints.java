@@ -0,0 +1,101 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * What ingestion last wrote per (symbol, interval): a 64-bit fingerprint of
+ * each bar's OHLCV, keyed by bar time. Each run re-fetches a whole window
+ * (the {@code range=1d}/{@code 5d}, or the overlap behind the fetch
+ * watermark) in which usually only the developing bar or two differ.
+ * Diffing the window against these fingerprints leaves just those rows to
+ * upsert, so {@code fetched_at}, the {@code /since} and ETag watermark,
+ * only advances when a bar really changed.
+ *
+ * A key with no entry yet is seeded through the supplied loader with what
+ * the table holds for the batch's window, so a restart doesn't rewrite it.
+ */
+final class BarFingerprints {
+
+    private final Map<String, Map<Long, Long>> written = new ConcurrentHashMap<>();
+
+    /**
+     * Bars of {@code batch} that differ from what was last written for the
+     * key (all of them when nothing is known). {@code seed} is called with
+     * the batch's first date when the key has no fingerprints yet.
+     */
+    List<HistoricalBar> changed(String symbol, String interval, List<HistoricalBar> batch,
+                                Function<LocalDateTime, List<HistoricalBar>> seed) {
+        if (batch.isEmpty()) return batch;
+        String key = key(symbol, interval);
+        Map<Long, Long> known = written.get(key);
+        if (known == null) {
+            // The seed is a Supabase read: run it outside the map, not under
+            // computeIfAbsent's bin lock. A racing seed or record wins.
+            Map<Long, Long> seeded = new HashMap<>();
+            for (HistoricalBar b : seed.apply(earliest(batch))) seeded.put(BarSeries.timeKey(b.date()), of(b));
+            Map<Long, Long> raced = written.putIfAbsent(key, seeded);
+            known = raced == null ? seeded : raced;
+        }
+        List<HistoricalBar> out = new ArrayList<>();
+        synchronized (known) {
+            for (HistoricalBar b : batch) {
+                Long fp = known.get(BarSeries.timeKey(b.date()));
+                if (fp == null || fp != of(b)) out.add(b);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Remember {@code bars} as written, and drop fingerprints older than the
+     * batch window they came from — later fetches can't reach those dates.
+     */
+    void record(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime windowStart) {
+        Map<Long, Long> known = written.computeIfAbsent(key(symbol, interval), k -> new HashMap<>());
+        synchronized (known) {
+            long cutoff = BarSeries.timeKey(windowStart);
+            known.keySet().removeIf(t -> t < cutoff);
+            for (HistoricalBar b : bars) known.put(BarSeries.timeKey(b.date()), of(b));
+        }
+    }
+
+    /** Forget {@code bars}, so a later fetch still seeing them counts them as changed. */
+    void forget(String symbol, String interval, List<HistoricalBar> bars) {
+        Map<Long, Long> known = written.get(key(symbol, interval));
+        if (known == null) return;
+        synchronized (known) {
+            for (HistoricalBar b : bars) known.remove(BarSeries.timeKey(b.date()));
+        }
+    }
+
+    static LocalDateTime earliest(List<HistoricalBar> bars) {
+        LocalDateTime min = bars.get(0).date();
+        for (HistoricalBar b : bars) if (b.date().isBefore(min)) min = b.date();
+        return min;
+    }
+
+    private static long of(HistoricalBar b) {
+        long h = mix(0, Double.doubleToLongBits(b.open()));
+        h = mix(h, Double.doubleToLongBits(b.high()));
+        h = mix(h, Double.doubleToLongBits(b.low()));
+        h = mix(h, Double.doubleToLongBits(b.close()));
+        return mix(h, b.volume() == null ? BarSeries.NO_VOLUME : b.volume());
+    }
+
+    private static long mix(long h, long v) {
+        h = (h ^ v) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+    private static String key(String symbol, String interval) {
+        return symbol + "-" + interval;
+    }
+}
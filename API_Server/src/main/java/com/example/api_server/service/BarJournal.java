@@ -0,0 +1,455 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-behind log for ingested bars: ingestion appends each
+ * (symbol, interval) batch here and returns, a flusher {@link #drain}s it
+ * to {@code historical_data}. Bars that land while Supabase is down wait
+ * on disk instead of being dropped, and survive a restart.
+ *
+ * The log is a run of memory-mapped segment files ({@code <id>.seg}). A
+ * record is {@code [int length][int crc32][payload]}, the payload one
+ * batch's fetch time, symbol, interval and bars; the length is
+ * written last, so a record torn by a crash reads as the end of the log
+ * (a zero length) or fails its CRC, and is ignored. Each append is forced
+ * to disk before it returns. A {@code checkpoint} file, replaced
+ * atomically after every drained batch, holds the position of the first
+ * record not yet in the database; segments wholly before it are deleted.
+ * Reopening the directory replays everything after the checkpoint.
+ *
+ * Draining is at-least-once — a batch that fails part way is written again
+ * whole — which the upsert's ON CONFLICT makes harmless. A failure the sink
+ * doesn't call {@linkplain Sink#retryable retryable} counts against its
+ * (symbol, interval) group; after {@code maxAttempts} of them the group's
+ * bars are appended to {@code dead-letter.csv} and the rest of the batch
+ * goes on, so one bad group can't hold every later bar back.
+ */
+final class BarJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarJournal.class);
+
+    private static final String CHECKPOINT = "checkpoint";
+    private static final String SUFFIX = ".seg";
+    private static final String DEAD_LETTER = "dead-letter.csv";
+    private static final int HEADER = 8;
+    /** Payload: fetchedAt seconds and nanos, bar count, symbol, interval, bars. */
+    private static final int COUNT_AT = 12;
+    /** time, open, high, low, close, volume. */
+    private static final int BAR_BYTES = 6 * 8;
+
+    /** Where one drained batch's (symbol, interval) groups go; throwing leaves the batch in the log. */
+    interface Sink {
+        void write(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime fetchedAt);
+
+        /** Whether {@code ex} is the database's, not the group's, and shouldn't count as an attempt. */
+        default boolean retryable(RuntimeException ex) {
+            return true;
+        }
+
+        /** {@code bars} went to the dead-letter file and won't be written. */
+        default void deadLettered(String symbol, String interval, List<HistoricalBar> bars) {
+        }
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final int maxAttempts;
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private long checkpointSegment;
+    private int checkpointOffset;
+    /** Non-retryable failures per group of the batch at the checkpoint; drain thread only. */
+    private final Map<String, Integer> attempts = new HashMap<>();
+    private long deadLetteredGroups;
+    private long deadLetteredBars;
+
+    private BarJournal(Path dir, int segmentBytes, int maxAttempts) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Open (or create) the journal in {@code dir}, recovering whatever it
+     * holds past the checkpoint. A group is dead-lettered on its
+     * {@code maxAttempts}th non-retryable failure.
+     */
+    static BarJournal open(Path dir, int segmentBytes, int maxAttempts) {
+        BarJournal journal = new BarJournal(dir, segmentBytes, maxAttempts);
+        try {
+            Files.createDirectories(dir);
+            journal.recover();
+        } catch (IOException ex) {
+            journal.close();
+            throw new UncheckedIOException("Could not open bar journal in " + dir, ex);
+        }
+        return journal;
+    }
+
+    /** Append one batch and force it to disk. */
+    synchronized void append(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime fetchedAt) {
+        byte[] sym = symbol.getBytes(StandardCharsets.UTF_8);
+        byte[] ivl = interval.getBytes(StandardCharsets.UTF_8);
+        int length = COUNT_AT + 4 + 2 + sym.length + 2 + ivl.length + bars.size() * BAR_BYTES;
+        Segment tail = segments.lastEntry().getValue();
+        if (tail.end + HEADER + length > tail.buffer.capacity()) tail = roll(HEADER + length);
+
+        MappedByteBuffer buf = tail.buffer;
+        int at = tail.end;
+        buf.position(at + HEADER);
+        buf.putLong(fetchedAt.toEpochSecond(ZoneOffset.UTC)).putInt(fetchedAt.getNano());
+        buf.putInt(bars.size());
+        buf.putShort((short) sym.length).put(sym);
+        buf.putShort((short) ivl.length).put(ivl);
+        for (HistoricalBar b : bars) {
+            buf.putLong(BarSeries.timeKey(b.date()))
+                    .putDouble(orNaN(b.open())).putDouble(orNaN(b.high()))
+                    .putDouble(orNaN(b.low())).putDouble(orNaN(b.close()))
+                    .putLong(b.volume() == null ? BarSeries.NO_VOLUME : b.volume());
+        }
+        buf.putInt(at + 4, crc(buf, at + HEADER, length));
+        buf.force(at + 4, HEADER - 4 + length);
+        // Publish the record only once its body is durable.
+        buf.putInt(at, length);
+        buf.force(at, 4);
+        tail.end = at + HEADER + length;
+    }
+
+    /**
+     * Hand up to {@code maxBars} bars past the checkpoint to {@code sink},
+     * merged per (symbol, interval) with later records winning a shared
+     * date, and move the checkpoint past them once every group is written
+     * or dead-lettered.
+     *
+     * @return bars drained, dead-lettered ones included; 0 when the log is empty
+     */
+    int drain(int maxBars, Sink sink) {
+        Batch batch = read(maxBars);
+        if (batch.bars == 0) return 0;
+        for (Map.Entry<String, Group> e : batch.groups.entrySet()) {
+            Group g = e.getValue();
+            List<HistoricalBar> bars = new ArrayList<>(g.bars.values());
+            try {
+                sink.write(g.symbol, g.interval, bars, g.fetchedAt);
+            } catch (RuntimeException ex) {
+                if (sink.retryable(ex) || attempts.merge(e.getKey(), 1, Integer::sum) < maxAttempts) throw ex;
+                deadLetter(g, bars, ex);
+                sink.deadLettered(g.symbol, g.interval, bars);
+            }
+        }
+        commit(batch.endSegment, batch.endOffset);
+        attempts.clear();
+        return batch.bars;
+    }
+
+    /**
+     * Bytes of records not yet drained, the segment files holding them, and
+     * the groups and bars dead-lettered since the journal was opened.
+     */
+    synchronized Map<String, Long> stats() {
+        long pending = 0;
+        for (Segment s : segments.values()) {
+            pending += s.end - (s.id == checkpointSegment ? checkpointOffset : 0);
+        }
+        Map<String, Long> m = new LinkedHashMap<>();
+        m.put("pendingBytes", pending);
+        m.put("segments", (long) segments.size());
+        m.put("deadLetteredGroups", deadLetteredGroups);
+        m.put("deadLetteredBars", deadLetteredBars);
+        return m;
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment s : segments.values()) s.close();
+        segments.clear();
+    }
+
+    // --- internals ---
+
+    private synchronized Batch read(int maxBars) {
+        Batch batch = new Batch();
+        long segId = checkpointSegment;
+        int offset = checkpointOffset;
+        for (Segment s : segments.tailMap(checkpointSegment, true).values()) {
+            if (s.id != segId) {
+                segId = s.id;
+                offset = 0;
+            }
+            MappedByteBuffer buf = s.buffer;
+            while (offset < s.end) {
+                int count = buf.getInt(offset + HEADER + COUNT_AT);
+                if (batch.bars > 0 && batch.bars + count > maxBars) {
+                    batch.endSegment = segId;
+                    batch.endOffset = offset;
+                    return batch;
+                }
+                batch.add(buf, offset + HEADER);
+                offset += HEADER + buf.getInt(offset);
+            }
+        }
+        batch.endSegment = segId;
+        batch.endOffset = offset;
+        return batch;
+    }
+
+    private synchronized void commit(long segment, int offset) {
+        // Past the end of a finished segment is the start of the next one.
+        Segment at = segments.get(segment);
+        Map.Entry<Long, Segment> next = segments.higherEntry(segment);
+        if (at != null && offset >= at.end && next != null) {
+            segment = next.getKey();
+            offset = 0;
+        }
+        writeCheckpoint(segment, offset);
+        checkpointSegment = segment;
+        checkpointOffset = offset;
+        while (!segments.isEmpty() && segments.firstKey() < segment) {
+            Segment drained = segments.pollFirstEntry().getValue();
+            drained.close();
+            try {
+                Files.deleteIfExists(drained.path);
+            } catch (IOException ex) {
+                logger.warn("Could not delete drained journal segment {}: {}", drained.path, ex.getMessage());
+            }
+        }
+    }
+
+    /** Append {@code bars} to the dead-letter file, forced to disk, so the checkpoint can move past them. */
+    private synchronized void deadLetter(Group g, List<HistoricalBar> bars, RuntimeException cause) {
+        Path file = dir.resolve(DEAD_LETTER);
+        StringBuilder csv = new StringBuilder();
+        if (!Files.exists(file)) csv.append("symbol,interval,fetched_at,date,open,high,low,close,volume\n");
+        for (HistoricalBar b : bars) {
+            csv.append(g.symbol).append(',').append(g.interval).append(',').append(g.fetchedAt).append(',')
+                    .append(b.date()).append(',').append(orEmpty(b.open())).append(',')
+                    .append(orEmpty(b.high())).append(',').append(orEmpty(b.low())).append(',')
+                    .append(orEmpty(b.close())).append(',').append(orEmpty(b.volume())).append('\n');
+        }
+        try {
+            Files.writeString(file, csv, StandardOpenOption.CREATE, StandardOpenOption.APPEND,
+                    StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not dead-letter " + g.symbol + " " + g.interval, ex);
+        }
+        deadLetteredGroups++;
+        deadLetteredBars += bars.size();
+        logger.error("Bar journal: {} {} failed {} times, moved {} bars to {}: {}", g.symbol, g.interval,
+                maxAttempts, bars.size(), file, cause.getMessage());
+    }
+
+    private void recover() throws IOException {
+        Path cp = dir.resolve(CHECKPOINT);
+        if (Files.exists(cp)) {
+            String[] parts = Files.readString(cp).trim().split(" ");
+            checkpointSegment = Long.parseLong(parts[0]);
+            checkpointOffset = Integer.parseInt(parts[1]);
+        }
+        List<Path> files;
+        try (Stream<Path> list = Files.list(dir)) {
+            files = list.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+        for (Path p : files) {
+            String name = p.getFileName().toString();
+            long id = Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+            if (id < checkpointSegment) {
+                Files.deleteIfExists(p);
+                continue;
+            }
+            Segment s = Segment.map(id, p, (int) Files.size(p));
+            s.end = validEnd(s);
+            segments.put(id, s);
+        }
+        if (segments.isEmpty()) {
+            long id = Math.max(1, checkpointSegment);
+            segments.put(id, Segment.map(id, segmentPath(id), segmentBytes));
+            checkpointSegment = id;
+            checkpointOffset = 0;
+        } else if (!segments.containsKey(checkpointSegment)) {
+            checkpointSegment = segments.firstKey();
+            checkpointOffset = 0;
+        }
+        Map<String, Long> pending = stats();
+        if (pending.get("pendingBytes") > 0) {
+            logger.info("Bar journal: replaying {} bytes in {} segment(s) from {}",
+                    pending.get("pendingBytes"), pending.get("segments"), dir);
+        }
+    }
+
+    /** Offset just past the last intact record of {@code s}. */
+    private static int validEnd(Segment s) {
+        MappedByteBuffer buf = s.buffer;
+        int offset = 0;
+        while (offset + HEADER <= buf.capacity()) {
+            int length = buf.getInt(offset);
+            if (length <= 0 || offset + HEADER + length > buf.capacity()) break;
+            if (buf.getInt(offset + 4) != crc(buf, offset + HEADER, length)) {
+                logger.warn("Bar journal: torn record in {} at {}, ignoring the rest of the segment", s.path, offset);
+                break;
+            }
+            offset += HEADER + length;
+        }
+        return offset;
+    }
+
+    private Segment roll(int needed) {
+        long id = segments.lastKey() + 1;
+        try {
+            Segment s = Segment.map(id, segmentPath(id), Math.max(segmentBytes, needed));
+            segments.put(id, s);
+            return s;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create journal segment " + id, ex);
+        }
+    }
+
+    private void writeCheckpoint(long segment, int offset) {
+        Path cp = dir.resolve(CHECKPOINT);
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        try {
+            Files.writeString(tmp, segment + " " + offset, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.SYNC);
+            Files.move(tmp, cp, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not write journal checkpoint", ex);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return dir.resolve(String.format("%016d%s", id, SUFFIX));
+    }
+
+    private static int crc(MappedByteBuffer buf, int from, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buf.slice(from, length));
+        return (int) crc.getValue();
+    }
+
+    private static double orNaN(Double v) {
+        return v == null ? Double.NaN : v;
+    }
+
+    private static Double orNull(double v) {
+        return Double.isNaN(v) ? null : v;
+    }
+
+    private static String orEmpty(Object v) {
+        return v == null ? "" : v.toString();
+    }
+
+    /**
+     * One mapped segment file. Java 21 has no public way to unmap a
+     * {@link MappedByteBuffer}: {@link #close} drops the reference and the
+     * GC unmaps it later, until when a deleted segment's pages stay
+     * allocated. That is bounded — at most one {@code segmentBytes} mapping
+     * per segment drained since the last collection, on top of the
+     * undrained segments themselves, which a flusher keeping up holds to one.
+     */
+    private static final class Segment {
+        final long id;
+        final Path path;
+        final FileChannel channel;
+        MappedByteBuffer buffer;
+        /** Offset just past the last record. */
+        int end;
+
+        private Segment(long id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        static Segment map(long id, Path path, int size) throws IOException {
+            FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            try {
+                return new Segment(id, path, ch, ch.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            } catch (IOException ex) {
+                ch.close();
+                throw ex;
+            }
+        }
+
+        void close() {
+            buffer = null;
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                logger.warn("Could not close journal segment {}: {}", path, ex.getMessage());
+            }
+        }
+    }
+
+    private static final class Group {
+        final String symbol;
+        final String interval;
+        /** By date; a later record's bar replaces an earlier one's. */
+        final Map<LocalDateTime, HistoricalBar> bars = new TreeMap<>();
+        LocalDateTime fetchedAt;
+
+        Group(String symbol, String interval) {
+            this.symbol = symbol;
+            this.interval = interval;
+        }
+    }
+
+    private static final class Batch {
+        final Map<String, Group> groups = new LinkedHashMap<>();
+        int bars;
+        long endSegment;
+        int endOffset;
+
+        /** Decode the record payload at {@code p} into its group. */
+        void add(MappedByteBuffer buf, int p) {
+            LocalDateTime fetchedAt = LocalDateTime.ofEpochSecond(buf.getLong(p), buf.getInt(p + 8), ZoneOffset.UTC);
+            int count = buf.getInt(p + COUNT_AT);
+            p += COUNT_AT + 4;
+            String symbol = string(buf, p);
+            p += 2 + buf.getShort(p);
+            String interval = string(buf, p);
+            p += 2 + buf.getShort(p);
+
+            Group g = groups.computeIfAbsent(symbol + " " + interval, k -> new Group(symbol, interval));
+            if (g.fetchedAt == null || fetchedAt.isAfter(g.fetchedAt)) g.fetchedAt = fetchedAt;
+            for (int i = 0; i < count; i++, p += BAR_BYTES) {
+                long volume = buf.getLong(p + 40);
+                HistoricalBar b = new HistoricalBar(BarSeries.dateOf(buf.getLong(p)),
+                        orNull(buf.getDouble(p + 8)), orNull(buf.getDouble(p + 16)),
+                        orNull(buf.getDouble(p + 24)), orNull(buf.getDouble(p + 32)),
+                        volume == BarSeries.NO_VOLUME ? null : volume);
+                g.bars.put(b.date(), b);
+            }
+            bars += count;
+        }
+
+        private static String string(MappedByteBuffer buf, int p) {
+            byte[] bytes = new byte[buf.getShort(p)];
+            buf.get(p + 2, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Columnar, time-sorted OHLCV series for one (symbol, stored interval).
+ *
+ * Times are the naive {@code historical_data.date} column encoded as seconds
+ * since 1970-01-01T00:00 with no zone applied (see {@link #timeKey}). That
+ * keeps bucketing arithmetic identical to the {@code LocalDateTime}-based
+ * aggregation code; the zone is only applied when a response is built.
+ *
+ * Reads are lock-free: {@link #snapshot()} returns an immutable view of
+ * {@code [0, size)}. Writers append in place past {@code size} when the
+ * arrays have room (older snapshots never look that far), and copy the
+ * columns whenever an existing bar is revised or inserted out of order.
+ */
+public final class BarSeries {
+
+    /** Sentinel for a NULL {@code volume} column — keeps the array primitive. */
+    public static final long NO_VOLUME = -1L;
+
+    /** {@link #merge} result when nothing in the batch differed from what was resident. */
+    public static final long NO_CHANGE = Long.MAX_VALUE;
+
+    /** {@link #coveredFrom()} value for a series holding the full history. */
+    public static final long ALL_HISTORY = Long.MIN_VALUE;
+
+    private static final int MIN_CAPACITY = 64;
+
+    private volatile Snapshot snapshot = new Snapshot(
+            new long[0], new double[0], new double[0], new double[0], new double[0], new long[0], 0);
+
+    /** Earliest time key the series is known to be complete from. */
+    private volatile long coveredFrom = Long.MAX_VALUE;
+
+    /** MAX(fetched_at) the series has caught up with; null until warmed. */
+    private volatile LocalDateTime syncedFetchedAt;
+
+    private volatile boolean warm;
+
+    public static long timeKey(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    public static LocalDateTime dateOf(long timeKey) {
+        return LocalDateTime.ofEpochSecond(timeKey, 0, ZoneOffset.UTC);
+    }
+
+    public Snapshot snapshot() { return snapshot; }
+
+    public boolean isWarm() { return warm; }
+
+    public long coveredFrom() { return coveredFrom; }
+
+    public LocalDateTime syncedFetchedAt() { return syncedFetchedAt; }
+
+    /** True when every bar at or after {@code cutoff} is resident. */
+    public boolean covers(LocalDateTime cutoff) {
+        if (!warm) return false;
+        if (cutoff == null) return coveredFrom == ALL_HISTORY;
+        return timeKey(cutoff) >= coveredFrom;
+    }
+
+    /**
+     * Replace the contents with a freshly loaded window. {@code from} is the
+     * cutoff the load used (null = full history), {@code fetchedAt} the
+     * MAX(fetched_at) observed before the load started.
+     */
+    public synchronized void warm(List<HistoricalBar> bars, LocalDateTime from, LocalDateTime fetchedAt) {
+        snapshot = new Snapshot(
+                new long[0], new double[0], new double[0], new double[0], new double[0], new long[0], 0);
+        merge(bars, from == null ? ALL_HISTORY : timeKey(from));
+        coveredFrom = from == null ? ALL_HISTORY : timeKey(from);
+        syncedFetchedAt = fetchedAt;
+        warm = true;
+    }
+
+    /** Mark a rolled-up series usable once its first fold is in place. */
+    synchronized void warmDerived(long coveredFrom) {
+        this.coveredFrom = coveredFrom;
+        warm = true;
+    }
+
+    /**
+     * Reach the covered window back to {@code from} (null = full history)
+     * with the rows just loaded for {@code [from, coveredFrom)}.
+     *
+     * @return the earliest time key that was inserted, or {@link #NO_CHANGE}
+     */
+    public synchronized long extend(List<HistoricalBar> older, LocalDateTime from) {
+        long changedFrom = merge(older, ALL_HISTORY);
+        long key = from == null ? ALL_HISTORY : timeKey(from);
+        if (key < coveredFrom) coveredFrom = key;
+        return changedFrom;
+    }
+
+    /**
+     * Upsert {@code bars} (ascending by date) and drop anything older than
+     * {@code retainFrom}. A bar with the same date as a resident one replaces
+     * it, matching the ON CONFLICT semantics of the table; bars identical to
+     * the resident row are skipped.
+     *
+     * @return the earliest time key that was inserted or changed, or
+     *         {@link #NO_CHANGE} when the batch matched what was resident
+     */
+    public synchronized long merge(List<HistoricalBar> bars, long retainFrom) {
+        Snapshot cur = snapshot;
+        int n = cur.size;
+
+        List<HistoricalBar> changed = new ArrayList<>(bars.size());
+        long minChanged = NO_CHANGE;
+        boolean ascending = true;
+        long prev = Long.MIN_VALUE;
+        for (HistoricalBar b : bars) {
+            if (!complete(b)) continue;
+            long t = timeKey(b.date());
+            if (t < retainFrom) continue;
+            int idx = lowerBound(cur.time, n, t);
+            if (idx < n && cur.time[idx] == t && sameRow(cur, idx, b)) continue;
+            changed.add(b);
+            if (t <= prev) ascending = false;
+            prev = t;
+            if (t < minChanged) minChanged = t;
+        }
+
+        boolean trims = retainFrom != ALL_HISTORY && n > 0 && cur.time[0] < retainFrom;
+        if (changed.isEmpty() && !trims) return NO_CHANGE;
+
+        if (!trims && ascending && (n == 0 || minChanged > cur.time[n - 1])
+                && n + changed.size() <= cur.time.length) {
+            // Pure append into spare capacity: older snapshots stop at n, so
+            // writing past it is invisible to them.
+            int size = n;
+            for (HistoricalBar b : changed) write(cur, size++, timeKey(b.date()), b);
+            snapshot = new Snapshot(cur.time, cur.open, cur.high, cur.low, cur.close, cur.volume, size);
+        } else {
+            mergeCopy(cur, changed, retainFrom);
+        }
+        if (retainFrom != ALL_HISTORY && retainFrom > coveredFrom) {
+            coveredFrom = retainFrom;
+        }
+        return minChanged;
+    }
+
+    /**
+     * Replace every row at or after {@code fromKey} with {@code tail}, and
+     * drop rows before {@code retainFrom}. Used to refold the buckets of a
+     * rolled-up series that a base-series change touched.
+     */
+    synchronized void replaceTail(long fromKey, long retainFrom, Snapshot tail) {
+        Snapshot cur = snapshot;
+        int keepFrom = lowerBound(cur.time, cur.size, retainFrom);
+        int keepTo = Math.max(keepFrom, lowerBound(cur.time, cur.size, fromKey));
+        int size = (keepTo - keepFrom) + tail.size;
+
+        Snapshot out;
+        if (keepFrom == 0 && keepTo == cur.size && size <= cur.time.length) {
+            out = cur;
+        } else {
+            int cap = Math.max(MIN_CAPACITY, size + size / 2);
+            out = new Snapshot(new long[cap], new double[cap], new double[cap],
+                    new double[cap], new double[cap], new long[cap], 0);
+            copy(cur, keepFrom, out, 0, keepTo - keepFrom);
+        }
+        copy(tail, 0, out, keepTo - keepFrom, tail.size);
+        snapshot = new Snapshot(out.time, out.open, out.high, out.low, out.close, out.volume, size);
+    }
+
+    public synchronized void markSynced(LocalDateTime fetchedAt) {
+        if (fetchedAt != null && (syncedFetchedAt == null || fetchedAt.isAfter(syncedFetchedAt))) {
+            syncedFetchedAt = fetchedAt;
+        }
+    }
+
+    private void mergeCopy(Snapshot cur, List<HistoricalBar> bars, long retainFrom) {
+        int n = cur.size;
+        int cap = Math.max(MIN_CAPACITY, (n + bars.size()) + (n + bars.size()) / 2);
+        Snapshot out = new Snapshot(new long[cap], new double[cap], new double[cap],
+                new double[cap], new double[cap], new long[cap], 0);
+
+        int i = lowerBound(cur.time, n, retainFrom);
+        int size = 0;
+        int j = 0;
+        long lastWritten = Long.MIN_VALUE;
+        while (i < n || j < bars.size()) {
+            HistoricalBar b = j < bars.size() ? bars.get(j) : null;
+            long tb = b == null ? Long.MAX_VALUE : timeKey(b.date());
+            long ta = i < n ? cur.time[i] : Long.MAX_VALUE;
+
+            if (tb <= ta) {
+                if (tb == ta) i++;
+                if (size > 0 && tb == lastWritten) {
+                    // Duplicate date inside the batch — last one wins.
+                    write(out, size - 1, tb, b);
+                } else {
+                    write(out, size++, tb, b);
+                }
+                lastWritten = tb;
+                j++;
+            } else {
+                copy(cur, i, out, size, 1);
+                lastWritten = ta;
+                size++;
+                i++;
+            }
+        }
+        snapshot = new Snapshot(out.time, out.open, out.high, out.low, out.close, out.volume, size);
+    }
+
+    private static void copy(Snapshot src, int from, Snapshot dst, int to, int len) {
+        System.arraycopy(src.time, from, dst.time, to, len);
+        System.arraycopy(src.open, from, dst.open, to, len);
+        System.arraycopy(src.high, from, dst.high, to, len);
+        System.arraycopy(src.low, from, dst.low, to, len);
+        System.arraycopy(src.close, from, dst.close, to, len);
+        System.arraycopy(src.volume, from, dst.volume, to, len);
+    }
+
+    private static boolean sameRow(Snapshot s, int idx, HistoricalBar b) {
+        long v = b.volume() == null ? NO_VOLUME : b.volume();
+        return s.open[idx] == b.open() && s.high[idx] == b.high() && s.low[idx] == b.low()
+                && s.close[idx] == b.close() && s.volume[idx] == v;
+    }
+
+    private static void write(Snapshot s, int idx, long t, HistoricalBar b) {
+        s.time[idx] = t;
+        s.open[idx] = b.open();
+        s.high[idx] = b.high();
+        s.low[idx] = b.low();
+        s.close[idx] = b.close();
+        s.volume[idx] = b.volume() == null ? NO_VOLUME : b.volume();
+    }
+
+    private static boolean complete(HistoricalBar b) {
+        return b.date() != null && b.open() != null && b.high() != null && b.low() != null && b.close() != null;
+    }
+
+    /** First index in {@code time[0, size)} whose value is {@code >= key}. */
+    static int lowerBound(long[] time, int size, long key) {
+        int lo = 0;
+        int hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (time[mid] < key) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * Immutable view of the first {@code size} rows of the column arrays.
+     * The arrays may be longer than {@code size}; never read past it.
+     */
+    public record Snapshot(long[] time, double[] open, double[] high, double[] low,
+                           double[] close, long[] volume, int size) {
+
+        public int indexAtOrAfter(LocalDateTime cutoff) {
+            return cutoff == null ? 0 : indexAtOrAfter(timeKey(cutoff));
+        }
+
+        public int indexAtOrAfter(long timeKey) {
+            return lowerBound(time, size, timeKey);
+        }
+
+        /** View of rows {@code [from, size)} sharing these columns. */
+        public View view(int from) {
+            return new View(this, Math.min(from, size), size);
+        }
+
+        public List<HistoricalBar> toBars(int from) {
+            List<HistoricalBar> out = new ArrayList<>(Math.max(0, size - from));
+            for (int i = from; i < size; i++) {
+                out.add(new HistoricalBar(
+                        dateOf(time[i]), open[i], high[i], low[i], close[i],
+                        volume[i] == NO_VOLUME ? null : volume[i]));
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Window {@code [from, to)} over a snapshot's columns. Slicing a view
+     * is a binary search on the time column — no rows are copied, so every
+     * period served off one series shares the same arrays.
+     */
+    public record View(Snapshot columns, int from, int to) {
+
+        public static final View EMPTY = new View(
+                new Snapshot(new long[0], new double[0], new double[0], new double[0],
+                        new double[0], new long[0], 0), 0, 0);
+
+        public int size() { return to - from; }
+
+        public boolean isEmpty() { return to <= from; }
+
+        public long lastTime() { return columns.time[to - 1]; }
+
+        /** Narrow to rows whose time key is {@code >= timeKey}. */
+        public View atOrAfter(long timeKey) {
+            int lo = from;
+            int hi = to;
+            long[] time = columns.time;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (time[mid] < timeKey) lo = mid + 1;
+                else hi = mid;
+            }
+            return lo == from ? this : new View(columns, lo, to);
+        }
+    }
+}
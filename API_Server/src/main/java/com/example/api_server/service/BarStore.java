@@ -0,0 +1,456 @@
+package com.example.api_server.service;
+
+import com.example.api_server.config.CacheConfig;
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.repository.supabase.SupabaseHistoricalDataRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory bar store: one cache entry per (symbol, stored interval) holding
+ * the raw {@link BarSeries} and the rollups derived from it. Every
+ * period/interval combination the chart asks for is a slice of that entry,
+ * so switching period or interval never costs another DB read. Entries live
+ * in the {@code historicalSeries} Caffeine cache (see {@code CacheConfig}),
+ * which evicts symbols nobody has looked at for a while.
+ *
+ * Entries are warmed from Supabase on first use and then kept current two ways:
+ * <ul>
+ *   <li>{@link MarketDataIngestionService} publishes a {@link BarsWrittenEvent}
+ *       for the bars it just upserted and the store patches them in, so the
+ *       tickers this server ingests never need a DB read after warm-up.</li>
+ *   <li>Symbols the Azure writer owns are caught up in the background by
+ *       {@link #refreshResident}, which pulls only the rows written since
+ *       the series last synced. The read path does the same catch-up when
+ *       the cached MAX(fetched_at) probe gets ahead of the series, which
+ *       normally only happens when the refresher is off.</li>
+ * </ul>
+ * A series starts with a resident window sized to the common chart views
+ * (see {@link #residentWindowFor}). A request reaching further back extends
+ * it with just the missing older rows, up to the per-interval lookback cap
+ * (see {@link #maxLookbackFor}); the next write trims it back to the
+ * resident window. A downsampled read may reach further still (see
+ * {@link #downsampledLookbackFor}), but those rows are loaded for that read
+ * alone and never become resident.
+ *
+ * Derived intervals (15m/30m from 5m, 4h from 1h, 1wk from 1d) are kept as
+ * rolled-up series of their own. They are folded once on first read and
+ * from then on every base-series change refolds only the buckets it
+ * touched — normally just the developing one.
+ */
+@Component
+public class BarStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarStore.class);
+
+    public static final String CACHE_NAME = "historicalSeries";
+
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    /**
+     * How long after its session closes a series is still refreshed in the
+     * background — past the 16:25–16:40 ET daily-bar write.
+     */
+    private static final Duration REFRESH_GRACE = Duration.ofMinutes(45);
+
+    /** Stored interval → the derived intervals rolled up from it. */
+    private static final Map<String, List<String>> ROLLUPS = Map.of(
+            "5m", List.of("15m", "30m"),
+            "1h", List.of("4h"),
+            "1d", List.of("1wk"));
+
+    private final SupabaseHistoricalDataRepository repository;
+    private final Cache entries;
+    private final SingleFlight flights;
+
+    private final ApplicationEventPublisher events;
+
+    /** Raw series for one (symbol, stored interval) plus its rollups. */
+    private static final class Entry {
+        final String symbol;
+        final String storedInterval;
+        final BarSeries raw = new BarSeries();
+        final ConcurrentMap<String, BarSeries> rollups = new ConcurrentHashMap<>();
+
+        Entry(String symbol, String storedInterval) {
+            this.symbol = symbol;
+            this.storedInterval = storedInterval;
+        }
+    }
+
+    public BarStore(SupabaseHistoricalDataRepository repository, CacheManager cacheManager,
+                    SingleFlight flights, ApplicationEventPublisher events) {
+        this.repository = repository;
+        this.flights = flights;
+        this.events = events;
+        this.entries = cacheManager.getCache(CACHE_NAME);
+    }
+
+    /**
+     * Bars at {@code interval} from {@code cutoff} on, sliced out of the
+     * (symbol, {@code storedInterval}) entry. The cutoff is clamped to the
+     * stored interval's lookback cap; null means as far back as allowed.
+     *
+     * @param maxFetchedAt the current MAX(fetched_at) for the pair, used both
+     *                     as the sync watermark for a fresh warm-up and to
+     *                     decide whether a resident series needs a delta pull
+     */
+    public BarSeries.View read(String symbol, String storedInterval, String interval,
+                               LocalDateTime cutoff, LocalDateTime maxFetchedAt) {
+        return read(symbol, storedInterval, interval, cutoff, maxFetchedAt, false);
+    }
+
+    /**
+     * {@link #read(String, String, String, LocalDateTime, LocalDateTime)} for
+     * a caller that downsamples the result: the response size no longer
+     * grows with the row count, so the cutoff is clamped to the wider
+     * {@link #downsampledLookbackFor} cap instead. Rows older than
+     * {@link #maxLookbackFor} are loaded into a copy for this read only.
+     */
+    public BarSeries.View read(String symbol, String storedInterval, String interval,
+                               LocalDateTime cutoff, LocalDateTime maxFetchedAt, boolean downsampled) {
+        String upper = symbol.toUpperCase();
+        Entry e = entries.get(key(upper, storedInterval), () -> new Entry(upper, storedInterval));
+        BarSeries s = e.raw;
+        sync(e, upper, storedInterval, maxFetchedAt);
+
+        LocalDateTime residentFloor = maxLookbackFor(storedInterval);
+        LocalDateTime floor = downsampled ? downsampledLookbackFor(storedInterval) : residentFloor;
+        if (floor != null && (cutoff == null || cutoff.isBefore(floor))) {
+            if (cutoff != null) {
+                logger.info("Clamped lookback for {} {} (requested cutoff {} → {})",
+                        upper, interval, cutoff, floor);
+            }
+            cutoff = floor;
+        }
+        boolean wide = residentFloor != null && (cutoff == null || cutoff.isBefore(residentFloor));
+        LocalDateTime reach = wide ? residentFloor : cutoff;
+        if (!s.covers(reach)) {
+            flights.run("barStore.extend", key(upper, storedInterval), () -> {
+                synchronized (s) {
+                    if (!s.covers(reach)) extend(e, upper, storedInterval, reach);
+                }
+                return s;
+            });
+            // A shared extension may have stopped short of this caller's cutoff.
+            if (!s.covers(reach)) {
+                synchronized (s) {
+                    if (!s.covers(reach)) extend(e, upper, storedInterval, reach);
+                }
+            }
+        }
+
+        BarBucketing bucketing = storedInterval.equals(interval) ? null : BarBucketing.forInterval(interval);
+        if (wide) {
+            BarSeries.Snapshot all = widen(upper, storedInterval, s, cutoff);
+            int from = all.indexAtOrAfter(cutoff);
+            return bucketing == null ? all.view(from) : BarAggregator.aggregate(all, from, bucketing).view(0);
+        }
+        if (bucketing == null) {
+            BarSeries.Snapshot snap = s.snapshot();
+            return snap.view(snap.indexAtOrAfter(cutoff));
+        }
+        // Start from the bucket holding the cutoff, same as aggregating
+        // the raw rows at or after it would.
+        BarSeries.Snapshot rolled = rollup(e, interval).snapshot();
+        return rolled.view(cutoff == null ? 0
+                : rolled.indexAtOrAfter(bucketing.bucketStart(BarSeries.timeKey(cutoff))));
+    }
+
+    /**
+     * Everything resident for (symbol, {@code storedInterval}) at
+     * {@code interval}, synced but never extended. Its first row only moves
+     * when a read extends the series or old rows are trimmed, so state
+     * anchored at it — EMA seeds, running sums — stays valid as bars are
+     * appended.
+     */
+    public BarSeries.View readResident(String symbol, String storedInterval, String interval,
+                                       LocalDateTime maxFetchedAt) {
+        String upper = symbol.toUpperCase();
+        Entry e = entries.get(key(upper, storedInterval), () -> new Entry(upper, storedInterval));
+        sync(e, upper, storedInterval, maxFetchedAt);
+        BarSeries series = storedInterval.equals(interval) || BarBucketing.forInterval(interval) == null
+                ? e.raw
+                : rollup(e, interval);
+        return series.snapshot().view(0);
+    }
+
+    /**
+     * Patch the resident series with bars that were just written. No-op for
+     * series nobody has read yet — their warm-up will pick the rows up from
+     * the DB — and for writes the series has already caught up past (e.g.
+     * the event {@link #refreshResident} publishes after its own catch-up).
+     */
+    @EventListener
+    @Order(0)
+    public void onBarsWritten(BarsWrittenEvent event) {
+        Entry e = entries.get(key(event.symbol(), event.interval()), Entry.class);
+        if (e == null || !e.raw.isWarm() || event.bars().isEmpty()) return;
+        BarSeries s = e.raw;
+        synchronized (s) {
+            LocalDateTime synced = s.syncedFetchedAt();
+            if (synced != null && !event.fetchedAt().isAfter(synced)) return;
+            long changedFrom = s.merge(event.bars(), retainFrom(event.interval()));
+            // Ingestion is the only writer for the symbols it ingests (see
+            // MarketDataIngestionScheduler), so its own write is the new watermark.
+            s.markSynced(event.fetchedAt());
+            propagate(e, event.interval(), changedFrom);
+        }
+    }
+
+    /**
+     * Catch every resident series whose market is live (see
+     * {@link #REFRESH_GRACE}) up with rows another writer has put in
+     * Supabase, off the request path, and publish a {@link BarsWrittenEvent}
+     * for each one that moved so the caches built on top refresh too. One
+     * grouped MAX(fetched_at) query per pass, none when every market is
+     * closed; the delta query only runs for series that changed. A closed
+     * market's series still catch up on read, off the probe.
+     *
+     * @return the number of series that were caught up
+     */
+    public int refreshResident(LocalDateTime now) {
+        long at = BarSeries.timeKey(now);
+        List<Entry> live = new ArrayList<>();
+        Set<String> symbols = new HashSet<>();
+        for (Object value : CacheConfig.values(entries)) {
+            if (!(value instanceof Entry e) || !e.raw.isWarm() || e.raw.syncedFetchedAt() == null) continue;
+            if (!TradingSession.isLive(e.symbol, at, REFRESH_GRACE.toSeconds())) continue;
+            live.add(e);
+            symbols.add(e.symbol);
+        }
+        if (live.isEmpty()) return 0;
+
+        Map<String, LocalDateTime> latest = new HashMap<>();
+        for (SupabaseHistoricalDataRepository.LatestFetch row : repository.findMaxFetchedAtBySymbols(symbols)) {
+            latest.put(key(row.getSymbol(), row.getIntervalType()), row.getMaxFetchedAt());
+        }
+        int refreshed = 0;
+        for (Entry e : live) {
+            BarSeries s = e.raw;
+            LocalDateTime synced = s.syncedFetchedAt();
+            LocalDateTime max = latest.get(key(e.symbol, e.storedInterval));
+            if (max == null || !max.isAfter(synced)) continue;
+            List<HistoricalBar> delta = sync(e, e.symbol, e.storedInterval, max);
+            events.publishEvent(BarsWrittenEvent.of(e.symbol, e.storedInterval, delta, max));
+            refreshed++;
+        }
+        return refreshed;
+    }
+
+    /**
+     * Warm or catch up the raw series. Loads are single-flight per series:
+     * concurrent readers wait on the one DB query instead of each issuing
+     * their own (or queueing on the series lock to re-check it).
+     *
+     * @return the rows a catch-up pulled, empty for a warm-up or no-op
+     */
+    private List<HistoricalBar> sync(Entry e, String symbol, String storedInterval, LocalDateTime maxFetchedAt) {
+        BarSeries s = e.raw;
+        if (s.isWarm() && (maxFetchedAt == null
+                || (s.syncedFetchedAt() != null && !maxFetchedAt.isAfter(s.syncedFetchedAt())))) {
+            return List.of();
+        }
+        return flights.run("barStore.load", key(symbol, storedInterval), () -> {
+            synchronized (s) {
+                if (!s.isWarm() || s.syncedFetchedAt() == null) {
+                    // Cold, or warmed while the pair had no rows at all —
+                    // nothing to diff against.
+                    warm(e, symbol, storedInterval, maxFetchedAt);
+                } else if (maxFetchedAt != null && maxFetchedAt.isAfter(s.syncedFetchedAt())) {
+                    return catchUp(e, symbol, storedInterval, maxFetchedAt);
+                }
+            }
+            return List.of();
+        });
+    }
+
+    /**
+     * Rolled-up series for {@code interval}, folded from the entry's raw
+     * series on first use. Coverage follows the raw series.
+     */
+    private BarSeries rollup(Entry e, String interval) {
+        BarSeries base = e.raw;
+        BarSeries r = e.rollups.computeIfAbsent(interval, k -> new BarSeries());
+        if (!r.isWarm()) {
+            // Fold under the base lock so no base change can slip in between
+            // the fold and the series becoming visible to propagate().
+            synchronized (base) {
+                if (!r.isWarm()) {
+                    refold(base.snapshot(), r, BarBucketing.forInterval(interval), Long.MIN_VALUE);
+                    r.warmDerived(base.coveredFrom());
+                }
+            }
+        }
+        return r;
+    }
+
+    private void warm(Entry e, String symbol, String storedInterval, LocalDateTime maxFetchedAt) {
+        BarSeries s = e.raw;
+        LocalDateTime from = residentWindowFor(storedInterval);
+        List<HistoricalBar> bars = from == null
+                ? repository.findBarsBySymbolAndInterval(symbol, storedInterval)
+                : repository.findBarsBySymbolAndIntervalSince(symbol, storedInterval, from);
+        s.warm(bars, from, maxFetchedAt);
+        propagate(e, storedInterval, Long.MIN_VALUE);
+        logger.info("Bar store warmed {} {}: {} rows from {}", symbol, storedInterval, bars.size(),
+                from == null ? "start" : from);
+    }
+
+    private List<HistoricalBar> catchUp(Entry e, String symbol, String storedInterval, LocalDateTime maxFetchedAt) {
+        BarSeries s = e.raw;
+        LocalDateTime coveredFrom = s.coveredFrom() == BarSeries.ALL_HISTORY
+                ? EPOCH
+                : BarSeries.dateOf(s.coveredFrom());
+        List<HistoricalBar> delta = repository.findBarsBySymbolAndIntervalFetchedAfter(
+                symbol, storedInterval, coveredFrom, s.syncedFetchedAt());
+        long changedFrom = s.merge(delta, retainFrom(storedInterval));
+        s.markSynced(maxFetchedAt);
+        propagate(e, storedInterval, changedFrom);
+        logger.debug("Bar store caught up {} {}: {} changed rows", symbol, storedInterval, delta.size());
+        return delta;
+    }
+
+    /** Load only the rows between {@code from} and what is already resident. */
+    private void extend(Entry e, String symbol, String storedInterval, LocalDateTime from) {
+        BarSeries s = e.raw;
+        LocalDateTime until = BarSeries.dateOf(s.coveredFrom());
+        List<HistoricalBar> older = repository.findBarsBySymbolAndIntervalBetween(
+                symbol, storedInterval, from == null ? EPOCH : from, until);
+        long changedFrom = s.extend(older, from);
+        propagate(e, storedInterval, changedFrom);
+        for (BarSeries r : e.rollups.values()) {
+            if (r.isWarm()) r.warmDerived(s.coveredFrom());
+        }
+        logger.info("Bar store extended {} {} back to {}: {} rows", symbol, storedInterval,
+                from == null ? "start" : from, older.size());
+    }
+
+    /**
+     * The resident rows with {@code [from, coveredFrom)} loaded in front of
+     * them, for a downsampled read past {@link #maxLookbackFor}. The copy
+     * belongs to the caller; the series itself keeps its window.
+     */
+    private BarSeries.Snapshot widen(String symbol, String storedInterval, BarSeries s, LocalDateTime from) {
+        BarSeries.Snapshot resident;
+        long coveredFrom;
+        synchronized (s) {
+            resident = s.snapshot();
+            coveredFrom = s.coveredFrom();
+        }
+        if (coveredFrom == BarSeries.ALL_HISTORY) return resident;
+        List<HistoricalBar> older = repository.findBarsBySymbolAndIntervalBetween(
+                symbol, storedInterval, from == null ? EPOCH : from, BarSeries.dateOf(coveredFrom));
+        logger.debug("Bar store read {} {} back to {}: {} rows not kept", symbol, storedInterval,
+                from == null ? "start" : from, older.size());
+        return BarAggregator.concat(BarAggregator.columnsOf(older), resident);
+    }
+
+    /** Refold the rollups of {@code e} from the bucket holding {@code changedFrom}. */
+    private static void propagate(Entry e, String storedInterval, long changedFrom) {
+        if (changedFrom == BarSeries.NO_CHANGE) return;
+        for (String interval : ROLLUPS.getOrDefault(storedInterval, List.of())) {
+            BarSeries r = e.rollups.get(interval);
+            if (r != null && r.isWarm()) {
+                refold(e.raw.snapshot(), r, BarBucketing.forInterval(interval), changedFrom);
+            }
+        }
+    }
+
+    private static void refold(BarSeries.Snapshot base, BarSeries target, BarBucketing bucketing, long changedFrom) {
+        long from = changedFrom == Long.MIN_VALUE ? Long.MIN_VALUE : bucketing.bucketStart(changedFrom);
+        int i = from == Long.MIN_VALUE ? 0 : base.indexAtOrAfter(from);
+        long retainFrom = base.size() == 0 ? Long.MIN_VALUE : bucketing.bucketStart(base.time()[0]);
+        target.replaceTail(from, retainFrom, BarAggregator.aggregate(base, i, bucketing));
+    }
+
+    /**
+     * Rows older than the resident window are trimmed on every write, so a
+     * read that extended the series only holds the older rows until then.
+     */
+    private static long retainFrom(String storedInterval) {
+        LocalDateTime from = residentWindowFor(storedInterval);
+        return from == null ? BarSeries.ALL_HISTORY : BarSeries.timeKey(from);
+    }
+
+    /**
+     * How far back each stored interval stays resident, sized to the chart
+     * views that read it (query cutoffs include the weekend/holiday buffer):
+     * <ul>
+     *   <li>1m → 14 days (1d/5d views)</li>
+     *   <li>5m → 4 months (5m/15m/30m up to 3mo)</li>
+     *   <li>1h → 25 months (1h/4h up to 2y)</li>
+     *   <li>1d → full history (1d/1wk, rows are cheap)</li>
+     * </ul>
+     */
+    static LocalDateTime residentWindowFor(String storedInterval) {
+        LocalDateTime now = LocalDateTime.now();
+        return switch (storedInterval) {
+            case "1m" -> now.minusDays(14);
+            case "5m" -> now.minusMonths(4);
+            case "1h" -> now.minusMonths(25);
+            default -> null;
+        };
+    }
+
+    /**
+     * Hard floor on how far back a series may reach, per stored interval.
+     * Keeps any single response under ~600 KB after projection even on
+     * worst-case inputs (period=max, or absurd period/interval pairings).
+     * <ul>
+     *   <li>1m stored → 30 days (~11k rows)</li>
+     *   <li>5m stored → 6 months (~14k rows)</li>
+     *   <li>1h stored → 5 years (~12k rows)</li>
+     *   <li>1d stored → no cap (rows are cheap)</li>
+     * </ul>
+     */
+    static LocalDateTime maxLookbackFor(String storedInterval) {
+        LocalDateTime now = LocalDateTime.now();
+        return switch (storedInterval) {
+            case "1m" -> now.minusDays(30);
+            case "5m" -> now.minusMonths(6);
+            case "1h" -> now.minusYears(5);
+            default -> null;
+        };
+    }
+
+    /**
+     * Lookback cap for reads whose response is downsampled to a point
+     * budget. Bounded by what one read can reasonably load, not by payload
+     * size; the rows past {@link #maxLookbackFor} are never kept resident:
+     * <ul>
+     *   <li>1m stored → 90 days (~125k rows for a 23h futures session)</li>
+     *   <li>5m stored → 2 years</li>
+     *   <li>1h and 1d stored → no cap</li>
+     * </ul>
+     */
+    static LocalDateTime downsampledLookbackFor(String storedInterval) {
+        LocalDateTime now = LocalDateTime.now();
+        return switch (storedInterval) {
+            case "1m" -> now.minusDays(90);
+            case "5m" -> now.minusYears(2);
+            default -> null;
+        };
+    }
+
+    private static String key(String symbol, String storedInterval) {
+        return symbol + "|" + storedInterval;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.api_server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps resident bar series current with the Azure writer's symbols (SPY,
+ * QQQ, ES=F, NQ=F, …) so chart readers find the new bars already in memory
+ * instead of paying for the catch-up query themselves. Tickers this server
+ * ingests don't need it — {@link MarketDataIngestionService} patches those
+ * directly via {@link BarsWrittenEvent}.
+ *
+ * Each pass only looks at series whose market is trading (futures nearly
+ * around the clock on weekdays, equities during RTH) and probes them all
+ * with one grouped MAX(fetched_at) query; weekends cost nothing.
+ */
+@Component
+public class BarStoreRefreshScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarStoreRefreshScheduler.class);
+
+    private final BarStore barStore;
+    private final boolean enabled;
+
+    public BarStoreRefreshScheduler(BarStore barStore,
+                                    @Value("${app.scheduler.bar-refresh.enabled:true}") boolean enabled) {
+        this.barStore = barStore;
+        this.enabled = enabled;
+    }
+
+    @Scheduled(fixedDelayString = "${app.scheduler.bar-refresh.interval-ms:15000}",
+            initialDelayString = "${app.scheduler.bar-refresh.interval-ms:15000}")
+    public void run() {
+        if (!enabled) return;
+        try {
+            int refreshed = barStore.refreshResident(LocalDateTime.now(ZoneOffset.UTC));
+            if (refreshed > 0) {
+                logger.debug("Bar store refresh: {} series caught up", refreshed);
+            }
+        } catch (Exception ex) {
+            // The next pass retries; readers fall back to catching up themselves.
+            logger.warn("Bar store refresh failed: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bars for one (symbol, stored interval) landed in {@code historical_data}.
+ * Published by {@link MarketDataIngestionService} after its own upserts and
+ * by {@link BarStore#refreshResident()} when it picks up rows the Azure
+ * writer put there. {@code from}/{@code to} bound the bar dates touched;
+ * {@code fetchedAt} is the write's {@code fetched_at} watermark.
+ */
+public record BarsWrittenEvent(String symbol, String interval, List<HistoricalBar> bars,
+                               LocalDateTime from, LocalDateTime to, LocalDateTime fetchedAt) {
+
+    public static BarsWrittenEvent of(String symbol, String interval, List<HistoricalBar> bars,
+                                      LocalDateTime fetchedAt) {
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (HistoricalBar b : bars) {
+            if (b.date() == null) continue;
+            if (from == null || b.date().isBefore(from)) from = b.date();
+            if (to == null || b.date().isAfter(to)) to = b.date();
+        }
+        return new BarsWrittenEvent(symbol.toUpperCase(), interval, bars, from, to, fetchedAt);
+    }
+}
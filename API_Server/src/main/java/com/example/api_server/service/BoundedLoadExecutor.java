@@ -0,0 +1,49 @@
+package com.example.api_server.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fan-out for request-driven loads (batch /api/historical, trend scans).
+ * Each task runs on its own virtual thread, but at most
+ * {@code app.historical.batch.parallelism} of them run at once across all
+ * callers: a cold load holds one of the five Supabase connections, and
+ * ingestion needs one too. Warm loads are in-memory and release their
+ * permit in microseconds.
+ *
+ * {@link MarketDataIngestionService} keeps its own instance with its own
+ * bound for the Yahoo fetches.
+ */
+@Component
+public class BoundedLoadExecutor {
+
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public BoundedLoadExecutor(@Value("${app.historical.batch.parallelism:4}") int parallelism) {
+        this.permits = new Semaphore(parallelism);
+    }
+
+    public <T> Future<T> submit(Callable<T> load) {
+        return executor.submit(() -> {
+            permits.acquire();
+            try {
+                return load.call();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalDataResponse;
+import com.example.api_server.dto.OhlcData;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact columnar encoding of a {@link HistoricalDataResponse}, served as
+ * {@value #MEDIA_TYPE} when a client asks for it. JSON stays the default.
+ *
+ * Layout (varint = unsigned LEB128, zvarint = zigzag varint):
+ * <pre>
+ *   byte     version (1)
+ *   byte     flags: bit 0 = daily times (epoch days), bit 1 = lastFetched present
+ *   string   symbol, period, interval, timestamp  (varint length + UTF-8)
+ *   zvarint  lastFetched                          (if flag bit 1)
+ *   byte     d — prices are sent as round(price * 10^d)
+ *   varint   n — number of bars
+ *   n × zvarint  time: first value, then deltas (seconds, or days for daily)
+ *   n × zvarint  close - previous close          (previous close of row 0 = 0)
+ *   n × zvarint  open  - previous close
+ *   n × zvarint  high  - previous close
+ *   n × zvarint  low   - previous close
+ *   n × varint   volume + 1                      (0 = null)
+ * </pre>
+ * Consecutive bars differ by a few ticks, so each price costs one or two
+ * bytes and a regular 1m time column one byte per bar. {@code d} is the
+ * smallest number of decimals (up to 8) that round-trips every price.
+ */
+public final class ColumnarBarsCodec {
+
+    public static final String MEDIA_TYPE = "application/x-ohlc-columns";
+
+    private static final int VERSION = 1;
+    private static final int FLAG_DAILY = 1;
+    private static final int FLAG_LAST_FETCHED = 2;
+    private static final int MAX_DECIMALS = 8;
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    private ColumnarBarsCodec() {}
+
+    public static byte[] encode(HistoricalDataResponse response) {
+        List<OhlcData> bars = response.getData() == null ? List.of() : response.getData();
+        int n = bars.size();
+        boolean daily = n > 0 && bars.get(0).getTime().indexOf('-') >= 0;
+        long[] time = new long[n];
+        double[][] ohlc = new double[4][n];
+        long[] volume = new long[n];
+        for (int i = 0; i < n; i++) {
+            OhlcData b = bars.get(i);
+            time[i] = daily ? LocalDate.parse(b.getTime()).toEpochDay() : Long.parseLong(b.getTime());
+            ohlc[0][i] = b.getOpen();
+            ohlc[1][i] = b.getHigh();
+            ohlc[2][i] = b.getLow();
+            ohlc[3][i] = b.getClose();
+            volume[i] = b.getVolume() == null ? BarSeries.NO_VOLUME : b.getVolume();
+        }
+        ByteArrayOutputStream out = header(response.getSymbol(), response.getPeriod(), response.getInterval(),
+                response.getTimestamp(), response.getLastFetched(), daily, n);
+        writeColumns(out, time, ohlc[0], ohlc[1], ohlc[2], ohlc[3], volume, 0, n);
+        return out.toByteArray();
+    }
+
+    /**
+     * Encode {@code bars} straight from the store's columns — the same body
+     * {@link #encode(HistoricalDataResponse)} gives for the response built
+     * from them, without materializing a bar object or time string.
+     */
+    static byte[] encode(String symbol, String period, String interval, String timestamp,
+                         BarSeries.View bars, boolean intraday) {
+        BarSeries.Snapshot c = bars.columns();
+        int n = bars.size();
+        long[] time = new long[n];
+        for (int i = 0; i < n; i++) {
+            long key = c.time()[bars.from() + i];
+            time[i] = intraday ? HistoricalDataService.wireSeconds(key) : Math.floorDiv(key, SECONDS_PER_DAY);
+        }
+        ByteArrayOutputStream out = header(symbol, period, interval, timestamp, null, !intraday, n);
+        writeColumns(out, time, c.open(), c.high(), c.low(), c.close(), c.volume(), bars.from(), n);
+        return out.toByteArray();
+    }
+
+    private static ByteArrayOutputStream header(String symbol, String period, String interval, String timestamp,
+                                                Long lastFetched, boolean daily, int n) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 + n * 10);
+        out.write(VERSION);
+        out.write((daily ? FLAG_DAILY : 0) | (lastFetched != null ? FLAG_LAST_FETCHED : 0));
+        writeString(out, symbol);
+        writeString(out, period);
+        writeString(out, interval);
+        writeString(out, timestamp);
+        if (lastFetched != null) writeZigzag(out, lastFetched);
+        return out;
+    }
+
+    /** {@code n} bars: times as given, the price and volume columns from {@code from}. */
+    private static void writeColumns(ByteArrayOutputStream out, long[] time, double[] open, double[] high,
+                                     double[] low, double[] close, long[] volume, int from, int n) {
+        int d = decimalsFor(open, high, low, close, from, n);
+        double scale = Math.pow(10, d);
+        out.write(d);
+        writeVarint(out, n);
+
+        long prev = 0;
+        for (int i = 0; i < n; i++) {
+            writeZigzag(out, time[i] - prev);
+            prev = time[i];
+        }
+        long[] c = new long[n];
+        for (int i = 0; i < n; i++) c[i] = Math.round(close[from + i] * scale);
+        for (int i = 0; i < n; i++) writeZigzag(out, c[i] - (i == 0 ? 0 : c[i - 1]));
+        for (int i = 0; i < n; i++) writeZigzag(out, Math.round(open[from + i] * scale) - (i == 0 ? 0 : c[i - 1]));
+        for (int i = 0; i < n; i++) writeZigzag(out, Math.round(high[from + i] * scale) - (i == 0 ? 0 : c[i - 1]));
+        for (int i = 0; i < n; i++) writeZigzag(out, Math.round(low[from + i] * scale) - (i == 0 ? 0 : c[i - 1]));
+        for (int i = 0; i < n; i++) {
+            long v = volume[from + i];
+            writeVarint(out, v == BarSeries.NO_VOLUME ? 0 : v + 1);
+        }
+    }
+
+    public static HistoricalDataResponse decode(byte[] bytes) {
+        Reader in = new Reader(bytes);
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported bar encoding version " + version);
+        }
+        int flags = in.readByte();
+        boolean daily = (flags & FLAG_DAILY) != 0;
+        String symbol = in.readString();
+        String period = in.readString();
+        String interval = in.readString();
+        String timestamp = in.readString();
+        Long lastFetched = (flags & FLAG_LAST_FETCHED) != 0 ? in.readZigzag() : null;
+        double scale = Math.pow(10, in.readByte());
+        long count = in.readVarint();
+        // Every bar takes at least one byte per column; a larger count is corrupt.
+        if (count < 0 || count > bytes.length / 6) {
+            throw new IllegalArgumentException("Bar count " + count + " exceeds the payload");
+        }
+        int n = (int) count;
+
+        long[] time = new long[n];
+        long t = 0;
+        for (int i = 0; i < n; i++) time[i] = t += in.readZigzag();
+        long[] close = new long[n];
+        long c = 0;
+        for (int i = 0; i < n; i++) close[i] = c += in.readZigzag();
+        long[][] ohl = new long[3][n];
+        for (long[] column : ohl) {
+            for (int i = 0; i < n; i++) column[i] = in.readZigzag() + (i == 0 ? 0 : close[i - 1]);
+        }
+
+        List<OhlcData> bars = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            long v = in.readVarint();
+            bars.add(new OhlcData(
+                    daily ? LocalDate.ofEpochDay(time[i]).toString() : String.valueOf(time[i]),
+                    ohl[0][i] / scale, ohl[1][i] / scale, ohl[2][i] / scale, close[i] / scale,
+                    v == 0 ? null : v - 1));
+        }
+        HistoricalDataResponse response = new HistoricalDataResponse(symbol, period, interval, timestamp, bars);
+        response.setLastFetched(lastFetched);
+        return response;
+    }
+
+    /** Smallest decimal count that reproduces every price exactly, capped at {@link #MAX_DECIMALS}. */
+    private static int decimalsFor(double[] open, double[] high, double[] low, double[] close, int from, int n) {
+        int d = 0;
+        for (int i = from; i < from + n; i++) {
+            d = decimalsFor(open[i], d);
+            d = decimalsFor(high[i], d);
+            d = decimalsFor(low[i], d);
+            d = decimalsFor(close[i], d);
+            if (d == MAX_DECIMALS) break;
+        }
+        return d;
+    }
+
+    private static int decimalsFor(double price, int atLeast) {
+        for (int d = atLeast; d < MAX_DECIMALS; d++) {
+            double scale = Math.pow(10, d);
+            if (Math.round(price * scale) / scale == price) return d;
+        }
+        return MAX_DECIMALS;
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] utf8 = s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, utf8.length);
+        out.writeBytes(utf8);
+    }
+
+    private static void writeZigzag(ByteArrayOutputStream out, long v) {
+        writeVarint(out, (v << 1) ^ (v >> 63));
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        int readByte() {
+            if (pos >= buf.length) throw new IllegalArgumentException("Truncated bar encoding");
+            return buf[pos++] & 0xFF;
+        }
+
+        long readVarint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                v |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("Malformed varint in bar encoding");
+        }
+
+        long readZigzag() {
+            long v = readVarint();
+            return (v >>> 1) ^ -(v & 1);
+        }
+
+        String readString() {
+            int len = (int) readVarint();
+            if (len > buf.length - pos) throw new IllegalArgumentException("Truncated bar encoding");
+            String s = new String(buf, pos, len, StandardCharsets.UTF_8);
+            pos += len;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per (symbol, interval), the start of the last bar ingestion saw
+ * finalized — every bar but the newest, which is still developing. The
+ * next run asks Yahoo for {@code period1 = watermark - overlap} up to now
+ * instead of the whole {@code range=1d}/{@code 5d} window. On the plain
+ * path that is a handful of bars however late in the session; derived
+ * ingestion widens the window to the start of the watermark's hour so the
+ * developing 5m and 1h buckets are rebuilt from all their minutes, which
+ * refetches up to an hour of 1m bars every run.
+ *
+ * The overlap re-covers the watermark bar and the one before it (Yahoo
+ * revises the last finalized minutes now and then), and everything after
+ * the watermark — the developing bar included — is always inside the
+ * window. A key with no watermark, or one older than the interval's range,
+ * gets the full range fetch instead, as after a restart or a weekend.
+ *
+ * The closes of the bars just before the window are kept too, so the
+ * phantom-tick sanitizer starts a window with the history a full fetch
+ * would have given it there (see {@link #closesBefore}).
+ */
+final class FetchWatermarks {
+
+    /** Finalized bars re-fetched behind the watermark. */
+    static final int OVERLAP_BARS = 2;
+
+    private final Map<String, Long> marks = new ConcurrentHashMap<>();
+    /** Sanitized closes by bar time, from a few bars before the last window on. */
+    private final Map<String, NavigableMap<Long, Double>> closes = new ConcurrentHashMap<>();
+
+    /**
+     * The first bar time to write for the key, or null when the run should
+     * fetch the full range. {@code maxAgeSeconds} is how far back the range
+     * reaches; a watermark older than that is not trusted to bridge the gap.
+     */
+    Long writeFrom(String symbol, String interval, long widthSeconds, long maxAgeSeconds, long now) {
+        Long mark = marks.get(key(symbol, interval));
+        if (mark == null || now - mark > maxAgeSeconds) return null;
+        return mark - OVERLAP_BARS * widthSeconds;
+    }
+
+    /** Advance the key to the newest finalized bar of {@code bars} (sanitized, in time order). */
+    void advance(String symbol, String interval, List<HistoricalBar> bars) {
+        if (bars.isEmpty()) return;
+        closes.compute(key(symbol, interval), (k, m) -> {
+            if (m == null) m = new TreeMap<>();
+            for (HistoricalBar b : bars) m.put(BarSeries.timeKey(b.date()), b.close());
+            return m;
+        });
+        if (bars.size() < 2) return;
+        long finalized = BarSeries.timeKey(bars.get(bars.size() - 2).date());
+        marks.merge(key(symbol, interval), finalized, Math::max);
+    }
+
+    /**
+     * The sanitizer history for a window starting at {@code writeFrom}
+     * whose first fetched bar is {@code firstBar}: the closes of up to
+     * {@code n} bars before {@code writeFrom}, oldest first, from
+     * {@code firstBar}'s trading session only — the sanitizer starts each
+     * session afresh, as a full fetch of that session does. Older closes
+     * are dropped; later windows never start earlier.
+     */
+    List<Double> closesBefore(String symbol, String interval, long writeFrom, long firstBar, int n) {
+        long sessionStart = TradingSession.of(symbol, TradingSession.dateOf(symbol, firstBar)).start();
+        List<Double> out = new ArrayList<>(n);
+        closes.computeIfPresent(key(symbol, interval), (k, m) -> {
+            Iterator<Map.Entry<Long, Double>> older = m.headMap(writeFrom, false).descendingMap().entrySet().iterator();
+            int seen = 0;
+            while (older.hasNext()) {
+                Map.Entry<Long, Double> e = older.next();
+                if (seen++ >= n) {
+                    older.remove();
+                } else if (e.getKey() >= sessionStart) {
+                    out.add(e.getValue());
+                }
+            }
+            return m;
+        });
+        Collections.reverse(out);
+        return out;
+    }
+
+    private static String key(String symbol, String interval) {
+        return symbol + "|" + interval;
+    }
+}
@@ -1,10 +1,7 @@
 package com.example.api_server.service;
 
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
-import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -36,7 +33,6 @@ public class GammaExposureComputeService {
     private static final int MAX_DAYS_OUT = 30;
     private static final double MIN_T_YEARS = 1.0 / 365.0;
     private static final double MIN_IV = 0.01;
-    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
     private static final ZoneId ET_ZONE = ZoneId.of("America/New_York");
     private static final DateTimeFormatter EXP_FMT = DateTimeFormatter.ISO_LOCAL_DATE;
 
@@ -51,10 +47,10 @@ public class GammaExposureComputeService {
         GEX_PAIRS = Collections.unmodifiableMap(m);
     }
 
-    private final WebClient webClient;
+    private final YahooGateway yahoo;
 
-    public GammaExposureComputeService(WebClient webClient) {
-        this.webClient = webClient;
+    public GammaExposureComputeService(YahooGateway yahoo) {
+        this.yahoo = yahoo;
     }
 
     public static boolean isMarketOpen() {
@@ -332,145 +328,42 @@ public class GammaExposureComputeService {
     // --- Yahoo fetch ---
 
     private double fetchLastPrice(String symbol) {
-        Map<String, Object> body = webClient.get()
-                .uri(uri -> uri
-                        .path("/v8/finance/chart/{symbol}")
-                        .queryParam("interval", "1d")
-                        .queryParam("range", "1d")
-                        .build(symbol))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .timeout(FETCH_TIMEOUT)
-                .block();
-        Map<String, Object> meta = unwrap(body, "chart", "result", "meta");
-        if (meta == null) return -1;
-        Object price = meta.get("regularMarketPrice");
-        return price instanceof Number n ? n.doubleValue() : -1;
+        double price = yahoo.chart(symbol, "1d", "1d").regularMarketPrice();
+        return Double.isNaN(price) ? -1 : price;
     }
 
-    @SuppressWarnings("unchecked")
     private OptionsChainSummary fetchExpirationsAndFirstChain(String symbol) {
-        Map<String, Object> body = webClient.get()
-                .uri(uri -> uri.path("/v7/finance/options/{symbol}").build(symbol))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .timeout(FETCH_TIMEOUT)
-                .block();
-        Map<String, Object> result = firstResult(body);
-        if (result == null) return new OptionsChainSummary(List.of(), 0, null);
-
-        List<Long> expirations = new ArrayList<>();
-        Object expArr = result.get("expirationDates");
-        if (expArr instanceof List<?> list) {
-            for (Object o : list) if (o instanceof Number n) expirations.add(n.longValue());
-        }
+        YahooOptionChain result = yahoo.options(symbol, null);
+
+        List<Long> expirations = new ArrayList<>(result.expirations().length);
+        for (long e : result.expirations()) expirations.add(e);
 
         // The same response includes the first expiration's chain — reuse it
         // instead of refetching to save one HTTP round trip per symbol.
-        OptionChain firstChain = null;
-        long firstExp = 0;
-        Object opts = result.get("options");
-        if (opts instanceof List<?> optList && !optList.isEmpty()
-                && optList.get(0) instanceof Map<?, ?> first) {
-            Object expDate = ((Map<String, Object>) first).get("expirationDate");
-            if (expDate instanceof Number n) firstExp = n.longValue();
-            firstChain = parseChain((Map<String, Object>) first);
-        }
-
-        return new OptionsChainSummary(expirations, firstExp, firstChain);
+        return new OptionsChainSummary(expirations, result.expiration(), parseChain(result));
     }
 
-    @SuppressWarnings("unchecked")
     private OptionChain fetchChain(String symbol, long expirationEpoch) {
-        Map<String, Object> body = webClient.get()
-                .uri(uri -> uri
-                        .path("/v7/finance/options/{symbol}")
-                        .queryParam("date", expirationEpoch)
-                        .build(symbol))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .timeout(FETCH_TIMEOUT)
-                .block();
-        Map<String, Object> result = firstResult(body);
-        if (result == null) return new OptionChain(List.of(), List.of());
-        Object opts = result.get("options");
-        if (!(opts instanceof List<?> list) || list.isEmpty()
-                || !(list.get(0) instanceof Map<?, ?> first)) {
-            return new OptionChain(List.of(), List.of());
-        }
-        return parseChain((Map<String, Object>) first);
+        return parseChain(yahoo.options(symbol, expirationEpoch));
     }
 
-    @SuppressWarnings("unchecked")
-    private static OptionChain parseChain(Map<String, Object> options) {
-        List<OptionContract> calls = parseContracts((List<Map<String, Object>>) options.get("calls"));
-        List<OptionContract> puts = parseContracts((List<Map<String, Object>>) options.get("puts"));
-        return new OptionChain(calls, puts);
+    private static OptionChain parseChain(YahooOptionChain options) {
+        return new OptionChain(parseContracts(options.calls()), parseContracts(options.puts()));
     }
 
-    private static List<OptionContract> parseContracts(List<Map<String, Object>> raw) {
-        if (raw == null) return List.of();
+    private static List<OptionContract> parseContracts(YahooOptionChain.Contracts raw) {
         List<OptionContract> out = new ArrayList<>(raw.size());
-        for (Map<String, Object> r : raw) {
-            double strike = doubleOf(r.get("strike"), 0);
-            double iv = doubleOf(r.get("impliedVolatility"), 0);
-            long oi = longOf(r.get("openInterest"), 0);
-            long vol = longOf(r.get("volume"), 0);
-            if (strike <= 0) continue;
-            out.add(new OptionContract(strike, iv, oi, vol));
+        for (int i = 0; i < raw.size(); i++) {
+            double strike = raw.strike()[i];
+            double iv = raw.impliedVolatility()[i];
+            if (!(strike > 0)) continue;
+            out.add(new OptionContract(strike, Double.isNaN(iv) ? 0 : iv, raw.openInterest()[i], raw.volume()[i]));
         }
         return out;
     }
 
     // --- helpers ---
 
-    @SuppressWarnings("unchecked")
-    private static Map<String, Object> firstResult(Map<String, Object> body) {
-        if (body == null) return null;
-        Object chain = body.get("optionChain");
-        if (!(chain instanceof Map<?, ?> chainMap)) return null;
-        Object result = ((Map<String, Object>) chainMap).get("result");
-        if (!(result instanceof List<?> list) || list.isEmpty()) return null;
-        Object first = list.get(0);
-        return first instanceof Map<?, ?> m ? (Map<String, Object>) m : null;
-    }
-
-    @SuppressWarnings("unchecked")
-    private static Map<String, Object> unwrap(Map<String, Object> body, String... path) {
-        Object cur = body;
-        for (String key : path) {
-            if (cur instanceof Map<?, ?> m) {
-                cur = ((Map<String, Object>) m).get(key);
-            } else if (cur instanceof List<?> list && !list.isEmpty()) {
-                cur = list.get(0);
-                if (cur instanceof Map<?, ?> m) {
-                    cur = ((Map<String, Object>) m).get(key);
-                } else {
-                    return null;
-                }
-            } else {
-                return null;
-            }
-        }
-        return cur instanceof Map<?, ?> m ? (Map<String, Object>) m : null;
-    }
-
-    private static double doubleOf(Object o, double fallback) {
-        if (o instanceof Number n) {
-            double v = n.doubleValue();
-            return Double.isNaN(v) || Double.isInfinite(v) ? fallback : v;
-        }
-        return fallback;
-    }
-
-    private static long longOf(Object o, long fallback) {
-        if (o instanceof Number n) {
-            double v = n.doubleValue();
-            return Double.isNaN(v) || Double.isInfinite(v) ? fallback : (long) v;
-        }
-        return fallback;
-    }
-
     private static double mean(List<Double> xs) {
         double sum = 0;
         for (double x : xs) sum += x;
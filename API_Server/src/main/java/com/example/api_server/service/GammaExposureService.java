@@ -27,7 +27,7 @@ public class GammaExposureService {
         this.repository = repository;
     }
 
-    @Cacheable(value = "gammaExposure", key = "#symbol")
+    @Cacheable(value = "gammaExposure", key = "#symbol", sync = true)
     @Retry(name = "gammaExposure")
     @CircuitBreaker(name = "gammaExposure", fallbackMethod = "getGammaExposureFallback")
     public GammaExposureResponse getGammaExposure(String symbol) {
@@ -0,0 +1,120 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalQuery;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads many (symbol, period, interval) series for one request — what
+ * {@code TrendLogicTable} and the dashboard used to fetch with one
+ * {@code /api/historical} call each.
+ *
+ * Every series goes through {@link HistoricalDataService#getHistoricalDataBody},
+ * so cache hits cost nothing and a miss is the same single-flight store
+ * load a GET would do. Misses run concurrently through the
+ * {@link BoundedLoadExecutor}, which caps how many hit Supabase at once.
+ *
+ * The response is a JSON array in request order, spliced together from the
+ * cached JSON bodies without re-serializing them. A series that failed is
+ * replaced by {@code {"symbol","period","interval","error"}}.
+ */
+@Service
+public class HistoricalBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(HistoricalBatchService.class);
+
+    public static final int MAX_QUERIES = 50;
+
+    private final HistoricalDataService historicalDataService;
+    private final JsonMapper jsonMapper;
+    private final BoundedLoadExecutor loads;
+
+    public HistoricalBatchService(HistoricalDataService historicalDataService,
+                                  JsonMapper jsonMapper,
+                                  BoundedLoadExecutor loads) {
+        this.historicalDataService = historicalDataService;
+        this.jsonMapper = jsonMapper;
+        this.loads = loads;
+    }
+
+    public byte[] load(List<HistoricalQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one query");
+        }
+        if (queries.size() > MAX_QUERIES) {
+            throw new IllegalArgumentException("Batch is limited to " + MAX_QUERIES + " queries");
+        }
+
+        // Reject a bad batch before any of its loads start.
+        for (HistoricalQuery q : queries) {
+            if (q.getSymbol() == null || q.getSymbol().isBlank()) {
+                throw new IllegalArgumentException("Every query needs a symbol");
+            }
+            HistoricalQuery.checkMaxPoints(q.getMaxPoints());
+        }
+
+        // Identical tuples in one batch share a load.
+        Map<String, Future<byte[]>> byKey = new LinkedHashMap<>();
+        List<Future<byte[]>> ordered = new ArrayList<>(queries.size());
+        for (HistoricalQuery q : queries) {
+            String key = q.getSymbol().toUpperCase() + "-" + q.getPeriod() + "-" + q.getInterval() + "-" + q.getMaxPoints();
+            ordered.add(byKey.computeIfAbsent(key, k -> loads.submit(() -> historicalDataService
+                    .getHistoricalDataBody(q.getSymbol().toUpperCase(), q.getPeriod(), q.getInterval(),
+                            q.getMaxPoints())
+                    .bytes().json())));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('[');
+        for (int i = 0; i < ordered.size(); i++) {
+            if (i > 0) out.write(',');
+            out.writeBytes(await(ordered.get(i), queries.get(i)));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    /**
+     * The load's body, or an error entry. A load that times out is
+     * cancelled rather than left holding an executor slot. The entry names
+     * only the kind of failure; the cause, which may carry SQL or driver
+     * text, goes to the log.
+     */
+    private byte[] await(Future<byte[]> load, HistoricalQuery q) {
+        try {
+            return load.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            load.cancel(true);
+            Thread.currentThread().interrupt();
+            return error(q, "interrupted");
+        } catch (TimeoutException e) {
+            load.cancel(true);
+            logger.warn("Batch load of {} {} {} timed out", q.getSymbol(), q.getPeriod(), q.getInterval());
+            return error(q, "timeout");
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Batch load of {} {} {} failed", q.getSymbol(), q.getPeriod(), q.getInterval(), cause);
+            return error(q, "load failed");
+        }
+    }
+
+    private byte[] error(HistoricalQuery q, String message) {
+        Map<String, String> body = new LinkedHashMap<>();
+        body.put("symbol", q.getSymbol().toUpperCase());
+        body.put("period", q.getPeriod());
+        body.put("interval", q.getInterval());
+        body.put("error", message);
+        return jsonMapper.writeValueAsBytes(body);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.api_server.service;
+
+/**
+ * An {@code /api/historical} body and what its validators are built from:
+ * the time key of the first bar in the slice behind it (its window, which a
+ * relative period moves even when nothing is written), and whether it is
+ * the empty stand-in a failed load falls back to, which must never be
+ * validated at all.
+ */
+public record HistoricalBody(ResponseBytes bytes, long firstTime, boolean fallback) {
+
+    /** {@link #firstTime} of a body with no bars. */
+    public static final long NO_BARS = Long.MIN_VALUE;
+}
@@ -1,6 +1,6 @@
 package com.example.api_server.service;
 
-import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.config.CacheConfig;
 import com.example.api_server.dto.HistoricalDataResponse;
 import com.example.api_server.dto.OhlcData;
 import com.example.api_server.repository.supabase.SupabaseHistoricalDataRepository;
@@ -9,131 +9,232 @@ import io.github.resilience4j.retry.annotation.Retry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
+import tools.jackson.databind.json.JsonMapper;
 
-import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class HistoricalDataService {
 
     private static final Logger logger = LoggerFactory.getLogger(HistoricalDataService.class);
 
+    /** Cached views served within this window get re-encoded when their series changes. */
+    private static final Duration REFRESH_AHEAD_WINDOW = Duration.ofMinutes(10);
+
     private final SupabaseHistoricalDataRepository localRepository;
+    private final BarStore barStore;
+    private final JsonMapper jsonMapper;
+    private final Cache encodedCache;
+    private final Cache latestFetchedCache;
+    private final SingleFlight flights;
 
     /**
-     * Proxy reference to self so internal calls go through Spring's AOP and
-     * @Cacheable actually fires. Without this, the dispatcher's call to
-     * {@code getHistoricalData*Cached} bypasses the proxy and skips caching.
+     * Proxy reference to self so the internal {@link #latestFetchedAt} call
+     * goes through Spring's AOP and @Cacheable actually fires.
      */
     @Autowired
     @Lazy
     private HistoricalDataService self;
 
-    public HistoricalDataService(SupabaseHistoricalDataRepository localRepository) {
+    public HistoricalDataService(SupabaseHistoricalDataRepository localRepository,
+                                 BarStore barStore,
+                                 JsonMapper jsonMapper,
+                                 CacheManager cacheManager,
+                                 SingleFlight flights) {
         this.localRepository = localRepository;
+        this.barStore = barStore;
+        this.jsonMapper = jsonMapper;
+        this.encodedCache = cacheManager.getCache("historicalEncoded");
+        this.latestFetchedCache = cacheManager.getCache("latestFetchedAt");
+        this.flights = flights;
     }
 
-    /** Intervals whose last bar is immutable within a session → cache aggressively. */
-    private static final Set<String> LONG_CACHE_INTERVALS = Set.of("1d", "1wk");
-
     /**
-     * Dispatcher: routes to a cache bucket based on (interval, period).
-     * <ul>
-     *   <li>1d/1wk → long bucket (1h TTL).</li>
-     *   <li>1m on the same-day live view → short bucket (90s TTL) so a period
-     *       switch back to "today" picks up the developing bar quickly.</li>
-     *   <li>Everything else intraday → medium bucket (5 min TTL). Ingestion
-     *       runs every 5 min, so a longer TTL doesn't reduce real freshness —
-     *       it just amortizes the big full-fetch payloads across cache hits.
-     *       /since handles fine-grained polling regardless.</li>
-     * </ul>
+     * Bars for any period/interval pair, sliced out of the one cached raw
+     * series per (symbol, stored interval) that {@link BarStore} keeps. A
+     * period is a binary search on the resident columns and a derived
+     * interval is an incrementally maintained rollup, so no combination
+     * costs its own Supabase read.
+     *
+     * A non-null {@code maxPoints} caps the number of bars returned (see
+     * {@link #downsample}) and lets the period reach back past the usual
+     * lookback cap, since the payload no longer grows with it.
      */
-    public HistoricalDataResponse getHistoricalData(String symbol, String period, String interval) {
-        if (LONG_CACHE_INTERVALS.contains(interval)) {
-            return self.getHistoricalDataLongCached(symbol, period, interval);
-        }
-        if ("1m".equals(interval) && "1d".equals(period)) {
-            return self.getHistoricalDataShortCached(symbol, period, interval);
-        }
-        return self.getHistoricalDataMediumCached(symbol, period, interval);
-    }
-
-    @Cacheable(value = "historicalData", key = "#symbol + '-' + #period + '-' + #interval")
     @Retry(name = "historicalData")
     @CircuitBreaker(name = "historicalData", fallbackMethod = "getHistoricalDataFallback")
-    public HistoricalDataResponse getHistoricalDataShortCached(String symbol, String period, String interval) {
-        return loadHistoricalData(symbol, period, interval);
+    public HistoricalDataResponse getHistoricalData(String symbol, String period, String interval,
+                                                    Integer maxPoints) {
+        BarSeries.View data = slice(symbol, period, interval, maxPoints != null);
+        return buildResponseFromBars(symbol, period, interval, downsample(data, maxPoints));
     }
 
-    @Cacheable(value = "historicalDataMedium", key = "#symbol + '-' + #period + '-' + #interval")
+    /**
+     * Same response as {@link #getHistoricalData}, already serialized as
+     * JSON, gzipped JSON and {@link ColumnarBarsCodec} columns. The bytes
+     * are cached per (symbol, period, interval) together with the slice they
+     * were built from; as long as the store hands back the same slice (no
+     * bar in it has changed) a request is served without building or
+     * serializing a single {@link OhlcData}.
+     */
     @Retry(name = "historicalData")
-    @CircuitBreaker(name = "historicalData", fallbackMethod = "getHistoricalDataFallback")
-    public HistoricalDataResponse getHistoricalDataMediumCached(String symbol, String period, String interval) {
-        return loadHistoricalData(symbol, period, interval);
+    @CircuitBreaker(name = "historicalData", fallbackMethod = "getHistoricalDataBodyFallback")
+    public HistoricalBody getHistoricalDataBody(String symbol, String period, String interval,
+                                                Integer maxPoints) {
+        EncodedSlice encoded = encodedSlice(symbol.toUpperCase(), period, interval, maxPoints);
+        encoded.lastServedMillis = System.currentTimeMillis();
+        BarSeries.View slice = encoded.slice;
+        return new HistoricalBody(encoded.bytes,
+                slice.isEmpty() ? HistoricalBody.NO_BARS : slice.columns().time()[slice.from()], false);
     }
 
-    @Cacheable(value = "historicalDataLong", key = "#symbol + '-' + #period + '-' + #interval")
-    @Retry(name = "historicalData")
-    @CircuitBreaker(name = "historicalData", fallbackMethod = "getHistoricalDataFallback")
-    public HistoricalDataResponse getHistoricalDataLongCached(String symbol, String period, String interval) {
-        return loadHistoricalData(symbol, period, interval);
+    private EncodedSlice encodedSlice(String symbol, String period, String interval, Integer maxPoints) {
+        BarSeries.View data = slice(symbol, period, interval, maxPoints != null);
+        String key = symbol + "-" + period + "-" + interval + (maxPoints == null ? "" : "-" + maxPoints + "pt");
+        EncodedSlice cached = encodedCache.get(key, EncodedSlice.class);
+        if (cached != null && cached.slice.equals(data)) {
+            return cached;
+        }
+        // Every poller sees the same new slice at once after an ingestion
+        // write; encode it once and hand the bytes to all of them. A waiter
+        // whose slice isn't the one the leader encoded (another write landed
+        // in between) encodes its own rather than serve someone else's rows.
+        long lastServed = cached == null ? 0L : cached.lastServedMillis;
+        EncodedSlice shared = flights.run("historicalEncoded", key, () -> {
+            EncodedSlice current = encodedCache.get(key, EncodedSlice.class);
+            if (current != null && current.slice.equals(data)) return current;
+            return encode(key, symbol, period, interval, maxPoints, data, lastServed);
+        });
+        return shared.slice.equals(data)
+                ? shared
+                : encode(key, symbol, period, interval, maxPoints, data, lastServed);
     }
 
-    private HistoricalDataResponse loadHistoricalData(String symbol, String period, String interval) {
-        logger.info("Fetching historical data for {} with period={}, interval={} from Supabase", symbol, period, interval);
+    private EncodedSlice encode(String key, String symbol, String period, String interval, Integer maxPoints,
+                                BarSeries.View data, long lastServed) {
+        BarSeries.View bars = downsample(data, maxPoints);
+        HistoricalDataResponse response = buildResponseFromBars(symbol, period, interval, bars);
+        ResponseBytes bytes = ResponseBytes.of(jsonMapper.writeValueAsBytes(response),
+                ColumnarBarsCodec.encode(symbol, period, interval, response.getTimestamp(), bars,
+                        isIntraday(interval)));
+        EncodedSlice encoded = new EncodedSlice(symbol, period, interval, maxPoints, data, bytes, lastServed);
+        encodedCache.put(key, encoded);
+        return encoded;
+    }
 
-        // Pick the smallest stored interval that still satisfies the request, so we
-        // transfer as few rows as possible from Supabase (egress-sensitive).
-        String queryInterval = storedIntervalFor(interval);
+    /**
+     * Encoded body plus the slice it was built from (before downsampling).
+     * Snapshots are never mutated below their size, so a slice compares
+     * equal (same column arrays, same bounds) exactly when its rows are
+     * unchanged — that's the cache validator for the bytes.
+     */
+    private static final class EncodedSlice {
+        final String symbol;
+        final String period;
+        final String interval;
+        final Integer maxPoints;
+        final BarSeries.View slice;
+        final ResponseBytes bytes;
+        /** Last time a client was served these bytes; drives refresh-ahead. */
+        volatile long lastServedMillis;
+
+        EncodedSlice(String symbol, String period, String interval, Integer maxPoints,
+                     BarSeries.View slice, ResponseBytes bytes, long lastServedMillis) {
+            this.symbol = symbol;
+            this.period = period;
+            this.interval = interval;
+            this.maxPoints = maxPoints;
+            this.slice = slice;
+            this.bytes = bytes;
+            this.lastServedMillis = lastServedMillis;
+        }
+    }
 
-        // Bound the DB query by date. Use a generous buffer so weekends/holidays
-        // don't leave the period empty; precise trimming happens in filterByPeriod
-        // anchored on the most recent bar.
-        LocalDateTime dbCutoff = dbCutoffFor(period);
+    /**
+     * Bars were just written for {@code event.symbol()}/{@code event.interval()}
+     * (the bar store has already patched them in — it listens first). Advance
+     * the cached fetched_at probe in place, and re-encode the views of that
+     * series clients fetched recently, so neither the /since short-circuit
+     * nor the next /api/historical request waits on a TTL or pays the encode.
+     * Runs on the publishing thread (ingestion or the store's refresher),
+     * never on a request.
+     */
+    @EventListener
+    @Order(1)
+    public void onBarsWritten(BarsWrittenEvent event) {
+        String probeKey = event.symbol() + "-" + event.interval();
+        LocalDateTime current = latestFetchedCache.get(probeKey, LocalDateTime.class);
+        if (current == null || event.fetchedAt().isAfter(current)) {
+            latestFetchedCache.put(probeKey, event.fetchedAt());
+        }
 
-        // Hard floor on lookback per stored interval. Protects against
-        // period=max (or an unknown period) pulling years of 1m bars in a
-        // single response. Also clamps absurdly long periods on small
-        // intervals (e.g. period=10y at interval=1m). Numbers chosen for a
-        // ~600 KB-per-fetch ceiling after projection.
-        LocalDateTime minCutoff = maxLookbackFor(queryInterval);
-        if (minCutoff != null && (dbCutoff == null || dbCutoff.isBefore(minCutoff))) {
-            if (dbCutoff != null) {
-                logger.info("Clamped lookback for {} {} (requested cutoff {} → {})",
-                        symbol, interval, dbCutoff, minCutoff);
+        long servedSince = System.currentTimeMillis() - REFRESH_AHEAD_WINDOW.toMillis();
+        int refreshed = 0;
+        for (Object value : CacheConfig.values(encodedCache)) {
+            if (!(value instanceof EncodedSlice cached)
+                    || !cached.symbol.equals(event.symbol())
+                    || !storedIntervalFor(cached.interval).equals(event.interval())
+                    || cached.lastServedMillis < servedSince) {
+                continue;
+            }
+            try {
+                encodedSlice(cached.symbol, cached.period, cached.interval, cached.maxPoints);
+                refreshed++;
+            } catch (RuntimeException ex) {
+                logger.debug("Refresh-ahead of {} {} {} failed: {}",
+                        cached.symbol, cached.period, cached.interval, ex.getMessage());
             }
-            dbCutoff = minCutoff;
         }
+        if (refreshed > 0) {
+            logger.debug("Re-encoded {} cached views of {} {}", refreshed, event.symbol(), event.interval());
+        }
+    }
+
+    /**
+     * The bars a {@code /api/historical} request for the same arguments
+     * would return, as a view over the store's columns.
+     */
+    public BarSeries.View bars(String symbol, String period, String interval) {
+        return slice(symbol.toUpperCase(), period, interval, false);
+    }
 
-        List<HistoricalBar> data = dbCutoff == null
-                ? localRepository.findBarsBySymbolAndInterval(symbol.toUpperCase(), queryInterval)
-                : localRepository.findBarsBySymbolAndIntervalSince(
-                        symbol.toUpperCase(), queryInterval, dbCutoff);
+    private BarSeries.View slice(String symbol, String period, String interval, boolean downsampled) {
+        logger.debug("Loading historical data for {} with period={}, interval={}", symbol, period, interval);
+
+        // Pick the smallest stored interval that still satisfies the request, so
+        // one resident series serves every interval derived from it.
+        String queryInterval = storedIntervalFor(interval);
+
+        // Use a generous buffer so weekends/holidays don't leave the period
+        // empty; precise trimming happens in filterByPeriod anchored on the
+        // most recent bar. The store clamps this to its per-interval
+        // lookback cap.
+        LocalDateTime dbCutoff = dbCutoffFor(period);
+
+        BarSeries.View data = readBars(symbol.toUpperCase(), queryInterval, interval, dbCutoff, downsampled);
 
         if (data.isEmpty()) {
             logger.warn("No historical data found for {} with interval {} (query={}, cutoff={})",
                     symbol, interval, queryInterval, dbCutoff);
         } else {
-            logger.info("Found {} {} records for {} (requested interval={}, cutoff={})",
-                    data.size(), queryInterval, symbol, interval, dbCutoff);
+            logger.debug("Found {} {} bars for {} (stored interval={}, cutoff={})",
+                    data.size(), interval, symbol, queryInterval, dbCutoff);
         }
 
-        data = aggregate(data, queryInterval, interval);
-        data = filterByPeriod(data, period);
-        return buildResponseFromBars(symbol, period, interval, data);
+        return filterByPeriod(data, period);
     }
 
     /**
@@ -174,20 +275,40 @@ public class HistoricalDataService {
             return emptyDeltaResponse(symbol, interval, maxFetchedEpoch);
         }
 
-        List<HistoricalBar> data = localRepository
-                .findBarsBySymbolAndIntervalSince(symbol.toUpperCase(), queryInterval, since);
+        BarSeries.View data = readBars(symbol.toUpperCase(), queryInterval, interval, since, false);
 
         logger.debug("Incremental fetch {} {} since {} → {} {} rows",
                 symbol, interval, since, data.size(), queryInterval);
 
-        data = aggregate(data, queryInterval, interval);
         HistoricalDataResponse response = buildResponseFromBars(symbol, "since", interval, data);
         response.setLastFetched(maxFetchedEpoch);
         return response;
     }
 
+    /**
+     * Bars at {@code interval} from {@code cutoff} on (null = as far back as
+     * the stored interval allows), served from the {@link BarStore} entry.
+     */
+    private BarSeries.View readBars(String symbol, String queryInterval, String interval,
+                                    LocalDateTime cutoff, boolean downsampled) {
+        LocalDateTime maxFetched = self.latestFetchedAt(symbol, queryInterval);
+        return barStore.read(symbol, queryInterval, interval, cutoff, maxFetched, downsampled);
+    }
+
+    /**
+     * At most {@code maxPoints} bars for display, folded with
+     * {@link BarAggregator#downsample} so highs and lows survive. Null, or a
+     * slice that already fits, passes through untouched.
+     */
+    private static BarSeries.View downsample(BarSeries.View data, Integer maxPoints) {
+        if (maxPoints == null || data.size() <= maxPoints) {
+            return data;
+        }
+        return BarAggregator.downsample(data.columns(), data.from(), data.to(), maxPoints).view(0);
+    }
+
     private HistoricalDataResponse emptyDeltaResponse(String symbol, String interval, Long lastFetched) {
-        HistoricalDataResponse response = buildResponseFromBars(symbol, "since", interval, List.of());
+        HistoricalDataResponse response = buildResponseFromBars(symbol, "since", interval, BarSeries.View.EMPTY);
         response.setLastFetched(lastFetched);
         return response;
     }
@@ -196,13 +317,29 @@ public class HistoricalDataService {
      * Cached MAX(fetched_at) probe. Advances whenever ingestion writes a row
      * (including in-place updates of the developing bar), so it's a reliable
      * "anything new since you last polled?" signal that costs one timestamp
-     * per cache TTL across all clients.
+     * per cache TTL across all clients. {@code sync} routes misses through
+     * {@link SingleFlight} so an expiry under load still runs one probe.
      */
-    @Cacheable(value = "latestFetchedAt", key = "#symbol + '-' + #intervalType")
+    @Cacheable(value = "latestFetchedAt", key = "#symbol + '-' + #intervalType", sync = true)
     public LocalDateTime latestFetchedAt(String symbol, String intervalType) {
         return localRepository.findMaxFetchedAtBySymbolAndIntervalType(symbol, intervalType);
     }
 
+    /**
+     * MAX(fetched_at) behind {@code interval}'s stored series — the version
+     * of every period/interval view built from it. Returns null when the
+     * pair has no rows or the probe fails; callers then skip conditional
+     * handling and build the response as usual.
+     */
+    public LocalDateTime lastModified(String symbol, String interval) {
+        try {
+            return self.latestFetchedAt(symbol.toUpperCase(), storedIntervalFor(interval));
+        } catch (RuntimeException e) {
+            logger.debug("fetched_at probe failed for {} {}: {}", symbol, interval, e.getMessage());
+            return null;
+        }
+    }
+
     public HistoricalDataResponse getHistoricalSinceFallback(String symbol, String interval,
                                                               long sinceEpochSeconds,
                                                               Long lastFetchedEpoch, Exception ex) {
@@ -214,7 +351,7 @@ public class HistoricalDataService {
     }
 
     /** Pick the coarsest stored interval that still produces the requested bars. */
-    private String storedIntervalFor(String requested) {
+    static String storedIntervalFor(String requested) {
         return switch (requested) {
             case "1m" -> "1m";
             case "5m" -> "5m";
@@ -228,19 +365,6 @@ public class HistoricalDataService {
         };
     }
 
-    /** Aggregate stored bars up to the requested interval. */
-    private List<HistoricalBar> aggregate(List<HistoricalBar> data,
-                                          String stored, String requested) {
-        if (stored.equals(requested)) return data;
-        return switch (requested) {
-            case "15m" -> aggregateToNMinutes(data, 15);
-            case "30m" -> aggregateToNMinutes(data, 30);
-            case "4h" -> aggregateToNMinutes(data, 240);
-            case "1wk" -> aggregateToWeekly(data);
-            default -> data;
-        };
-    }
-
     /**
      * Loose cutoff for the DB query: period plus a buffer for weekends/holidays.
      * Return null to disable DB-level filtering (period=max or unknown).
@@ -263,30 +387,14 @@ public class HistoricalDataService {
         };
     }
 
-    /**
-     * Hard floor on how far back the DB query may reach, per stored interval.
-     * Keeps any single response under ~600 KB after projection even on
-     * worst-case inputs (period=max, or absurd period/interval pairings).
-     * <ul>
-     *   <li>1m stored → 30 days (~11k rows)</li>
-     *   <li>5m stored → 6 months (~14k rows)</li>
-     *   <li>1h stored → 5 years (~12k rows)</li>
-     *   <li>1d stored → no cap (rows are cheap)</li>
-     * </ul>
-     */
-    private LocalDateTime maxLookbackFor(String storedInterval) {
-        LocalDateTime now = LocalDateTime.now();
-        return switch (storedInterval) {
-            case "1m" -> now.minusDays(30);
-            case "5m" -> now.minusMonths(6);
-            case "1h" -> now.minusYears(5);
-            default -> null;
-        };
-    }
-
     private static final Set<String> INTRADAY_INTERVALS = Set.of("1m", "2m", "5m", "15m", "30m", "60m", "90m", "1h", "4h");
 
-    private List<HistoricalBar> filterByPeriod(List<HistoricalBar> data, String period) {
+    /**
+     * Narrow {@code data} to the requested period with a binary search on the
+     * time column. Returns a view over the same columns, so every period
+     * served from one series shares its arrays.
+     */
+    private BarSeries.View filterByPeriod(BarSeries.View data, String period) {
         if (period.equals("max") || data.isEmpty()) {
             return data;
         }
@@ -294,15 +402,13 @@ public class HistoricalDataService {
         // Anchor the cutoff off the most recent bar rather than wall-clock now().
         // Intraday data is only ingested during market hours, so using now() would
         // filter out everything over weekends/overnight for short periods like 1d.
-        LocalDateTime anchor = data.get(data.size() - 1).date();
+        LocalDateTime anchor = BarSeries.dateOf(data.lastTime());
         LocalDateTime cutoff = periodToCutoff(period, anchor);
         if (cutoff == null) {
             return data;
         }
 
-        return data.stream()
-                .filter(e -> !e.date().isBefore(cutoff))
-                .collect(Collectors.toList());
+        return data.atOrAfter(BarSeries.timeKey(cutoff));
     }
 
     private LocalDateTime periodToCutoff(String period, LocalDateTime anchor) {
@@ -322,77 +428,36 @@ public class HistoricalDataService {
         };
     }
 
-    private List<HistoricalBar> aggregateToNMinutes(List<HistoricalBar> minuteData, int n) {
-        List<HistoricalBar> result = new ArrayList<>();
-        if (minuteData.isEmpty()) return result;
-
-        // Group 1m bars into time-aligned buckets
-        LinkedHashMap<LocalDateTime, List<HistoricalBar>> grouped = new LinkedHashMap<>();
-        for (HistoricalBar e : minuteData) {
-            LocalDateTime dt = e.date();
-            int totalMinutes = dt.getHour() * 60 + dt.getMinute();
-            int bucketMinutes = (totalMinutes / n) * n;
-            LocalDateTime bucketKey = dt.toLocalDate().atStartOfDay().plusMinutes(bucketMinutes);
-            grouped.computeIfAbsent(bucketKey, k -> new ArrayList<>()).add(e);
-        }
-
-        for (Map.Entry<LocalDateTime, List<HistoricalBar>> entry : grouped.entrySet()) {
-            List<HistoricalBar> bars = entry.getValue();
-            HistoricalBar first = bars.get(0);
-            double high = bars.stream().mapToDouble(HistoricalBar::high).max().orElse(0);
-            double low = bars.stream().mapToDouble(HistoricalBar::low).min().orElse(0);
-            long volume = bars.stream().mapToLong(b -> b.volume() == null ? 0L : b.volume()).sum();
-            result.add(new HistoricalBar(
-                    entry.getKey(),
-                    first.open(), high, low,
-                    bars.get(bars.size() - 1).close(),
-                    volume));
-        }
-        return result;
+    static boolean isIntraday(String interval) {
+        return INTRADAY_INTERVALS.contains(interval);
     }
 
-    private List<HistoricalBar> aggregateToWeekly(List<HistoricalBar> dailyData) {
-        List<HistoricalBar> result = new ArrayList<>();
-        if (dailyData.isEmpty()) return result;
-
-        LinkedHashMap<LocalDate, List<HistoricalBar>> grouped = new LinkedHashMap<>();
-        for (HistoricalBar e : dailyData) {
-            // Group by Monday of the week
-            LocalDate weekStart = e.date().toLocalDate().with(DayOfWeek.MONDAY);
-            grouped.computeIfAbsent(weekStart, k -> new ArrayList<>()).add(e);
-        }
+    /** Wire form of a bar time: epoch seconds for intraday bars, ISO date otherwise. */
+    static String timeLabel(long timeKey, boolean intraday) {
+        return intraday
+                ? String.valueOf(wireSeconds(timeKey))
+                : BarSeries.dateOf(timeKey).toLocalDate().toString();
+    }
 
-        for (Map.Entry<LocalDate, List<HistoricalBar>> entry : grouped.entrySet()) {
-            List<HistoricalBar> bars = entry.getValue();
-            HistoricalBar first = bars.get(0);
-            double high = bars.stream().mapToDouble(HistoricalBar::high).max().orElse(0);
-            double low = bars.stream().mapToDouble(HistoricalBar::low).min().orElse(0);
-            long volume = bars.stream().mapToLong(b -> b.volume() == null ? 0L : b.volume()).sum();
-            result.add(new HistoricalBar(
-                    entry.getKey().atStartOfDay(),
-                    first.open(), high, low,
-                    bars.get(bars.size() - 1).close(),
-                    volume));
-        }
-        return result;
+    /** Epoch seconds an intraday bar time goes out as: its stored wall time read in the server zone. */
+    static long wireSeconds(long timeKey) {
+        return BarSeries.dateOf(timeKey).atZone(ZoneId.systemDefault()).toEpochSecond();
     }
 
     private HistoricalDataResponse buildResponseFromBars(String symbol, String period, String interval,
-                                                         List<HistoricalBar> bars) {
-        boolean intraday = INTRADAY_INTERVALS.contains(interval);
-        List<OhlcData> data = bars.stream()
-                .filter(b -> b.open() != null && b.high() != null && b.low() != null && b.close() != null)
-                .map(b -> new OhlcData(
-                        intraday
-                                ? String.valueOf(b.date().atZone(ZoneId.systemDefault()).toEpochSecond())
-                                : b.date().toLocalDate().toString(),
-                        b.open(),
-                        b.high(),
-                        b.low(),
-                        b.close(),
-                        b.volume()
-                ))
-                .collect(Collectors.toList());
+                                                         BarSeries.View bars) {
+        boolean intraday = isIntraday(interval);
+        BarSeries.Snapshot c = bars.columns();
+        List<OhlcData> data = new ArrayList<>(bars.size());
+        for (int i = bars.from(); i < bars.to(); i++) {
+            data.add(new OhlcData(
+                    timeLabel(c.time()[i], intraday),
+                    c.open()[i],
+                    c.high()[i],
+                    c.low()[i],
+                    c.close()[i],
+                    c.volume()[i] == BarSeries.NO_VOLUME ? null : c.volume()[i]));
+        }
 
         return new HistoricalDataResponse(
                 symbol.toUpperCase(),
@@ -403,7 +468,16 @@ public class HistoricalDataService {
         );
     }
 
-    public HistoricalDataResponse getHistoricalDataFallback(String symbol, String period, String interval, Exception ex) {
+    public HistoricalBody getHistoricalDataBodyFallback(String symbol, String period, String interval,
+                                                        Integer maxPoints, Exception ex) {
+        HistoricalDataResponse response = getHistoricalDataFallback(symbol, period, interval, maxPoints, ex);
+        return new HistoricalBody(
+                ResponseBytes.of(jsonMapper.writeValueAsBytes(response), ColumnarBarsCodec.encode(response)),
+                HistoricalBody.NO_BARS, true);
+    }
+
+    public HistoricalDataResponse getHistoricalDataFallback(String symbol, String period, String interval,
+                                                            Integer maxPoints, Exception ex) {
         logger.warn("Circuit breaker fallback for historical data {}. Reason: {}", symbol, ex.getMessage());
 
         // Return empty response
@@ -0,0 +1,240 @@
+package com.example.api_server.service;
+
+/**
+ * One indicator as a fold over bars: {@link #push} takes the next bar and
+ * writes that bar's outputs, in O(1) whatever the period. State is a handful
+ * of running sums, so {@link #copy} is cheap enough to checkpoint before
+ * every bar near the tail — which is how {@link IndicatorSeries} rewinds
+ * over a revised developing bar instead of starting again.
+ *
+ * Semantics follow {@code frontend/components/indicators.js}, except that
+ * outputs are NaN until the indicator has seen enough bars (the chart
+ * omits those points instead) and that intraday VWAP resets at each
+ * session open — see {@link Vwap} — where the chart's runs over the whole
+ * loaded range.
+ */
+interface IndicatorCalc {
+
+    /**
+     * Fold row {@code i} of {@code in} into the state and write its outputs.
+     * Rows are pushed in order; a calc may read earlier rows of {@code in}
+     * (the SMA drops {@code close[i - length]} that way).
+     */
+    void push(BarSeries.Snapshot in, int i, double[] out);
+
+    IndicatorCalc copy();
+
+    /** Simple moving average of close via a running sum. */
+    final class Sma implements IndicatorCalc {
+        private final int length;
+        private double sum;
+        private int count;
+
+        Sma(int length) {
+            this.length = length;
+        }
+
+        @Override
+        public void push(BarSeries.Snapshot in, int i, double[] out) {
+            sum += in.close()[i];
+            if (++count > length) {
+                sum -= in.close()[i - length];
+            }
+            out[0] = count >= length ? sum / length : Double.NaN;
+        }
+
+        @Override
+        public IndicatorCalc copy() {
+            Sma c = new Sma(length);
+            c.sum = sum;
+            c.count = count;
+            return c;
+        }
+    }
+
+    /** EMA of close, seeded with the SMA of the first {@code length} bars. */
+    final class Ema implements IndicatorCalc {
+        private final int length;
+        private final double multiplier;
+        private double seedSum;
+        private double ema;
+        private int count;
+
+        Ema(int length) {
+            this.length = length;
+            this.multiplier = 2.0 / (length + 1);
+        }
+
+        @Override
+        public void push(BarSeries.Snapshot in, int i, double[] out) {
+            double close = in.close()[i];
+            count++;
+            if (count < length) {
+                seedSum += close;
+                out[0] = Double.NaN;
+                return;
+            }
+            if (count == length) {
+                ema = (seedSum + close) / length;
+            } else {
+                ema = (close - ema) * multiplier + ema;
+            }
+            out[0] = ema;
+        }
+
+        @Override
+        public IndicatorCalc copy() {
+            Ema c = new Ema(length);
+            c.seedSum = seedSum;
+            c.ema = ema;
+            c.count = count;
+            return c;
+        }
+    }
+
+    /**
+     * Bollinger bands (population standard deviation) from running sums of
+     * close and close². Sums are taken around the first close seen so the
+     * variance isn't lost to cancellation at index-level prices.
+     */
+    final class Bollinger implements IndicatorCalc {
+        private final int length;
+        private final double width;
+        private double shift = Double.NaN;
+        private double sum;
+        private double sumSq;
+        private int count;
+
+        Bollinger(int length, double width) {
+            this.length = length;
+            this.width = width;
+        }
+
+        @Override
+        public void push(BarSeries.Snapshot in, int i, double[] out) {
+            if (Double.isNaN(shift)) shift = in.close()[i];
+            double x = in.close()[i] - shift;
+            sum += x;
+            sumSq += x * x;
+            if (++count > length) {
+                double old = in.close()[i - length] - shift;
+                sum -= old;
+                sumSq -= old * old;
+            }
+            if (count < length) {
+                out[0] = out[1] = out[2] = Double.NaN;
+                return;
+            }
+            double mean = sum / length;
+            double std = Math.sqrt(Math.max(0, sumSq / length - mean * mean));
+            out[0] = shift + mean + width * std;
+            out[1] = shift + mean;
+            out[2] = shift + mean - width * std;
+        }
+
+        @Override
+        public IndicatorCalc copy() {
+            Bollinger c = new Bollinger(length, width);
+            c.shift = shift;
+            c.sum = sum;
+            c.sumSq = sumSq;
+            c.count = count;
+            return c;
+        }
+    }
+
+    /**
+     * Volume-weighted typical price. Intraday series restart at each
+     * {@link TradingSession} open — 18:00 ET for futures, 09:30 ET
+     * otherwise, so pre-market bars still count toward the prior session;
+     * daily and weekly series accumulate over the whole series.
+     */
+    final class Vwap implements IndicatorCalc {
+        private final String sessionSymbol;
+        // [sessionOpen, nextOpen) is the session the running sums cover, so
+        // the ET conversion only runs once a bar crosses out of it.
+        private long sessionOpen = Long.MIN_VALUE;
+        private long nextOpen = Long.MIN_VALUE;
+        private double volume;
+        private double weighted;
+
+        /** {@code sessionSymbol} picks the session to reset at; null never resets. */
+        Vwap(String sessionSymbol) {
+            this.sessionSymbol = sessionSymbol;
+        }
+
+        @Override
+        public void push(BarSeries.Snapshot in, int i, double[] out) {
+            long t = in.time()[i];
+            if (sessionSymbol != null && (t >= nextOpen || t < sessionOpen)) {
+                long open = TradingSession.openAtOrBefore(sessionSymbol, t);
+                nextOpen = TradingSession.openAfter(sessionSymbol, t);
+                if (open != sessionOpen) {
+                    sessionOpen = open;
+                    volume = 0;
+                    weighted = 0;
+                }
+            }
+            long v = in.volume()[i] < 0 ? 0 : in.volume()[i];
+            double typical = (in.high()[i] + in.low()[i] + in.close()[i]) / 3;
+            volume += v;
+            weighted += typical * v;
+            out[0] = volume > 0 ? weighted / volume : Double.NaN;
+        }
+
+        @Override
+        public IndicatorCalc copy() {
+            Vwap c = new Vwap(sessionSymbol);
+            c.sessionOpen = sessionOpen;
+            c.nextOpen = nextOpen;
+            c.volume = volume;
+            c.weighted = weighted;
+            return c;
+        }
+    }
+
+    /**
+     * The 21/200 "trend friend" logic: bullish when fast &gt; slow and close
+     * &gt; fast, bearish when fast &lt; slow and close &lt; fast, neutral
+     * otherwise. Outputs fast, slow and the state as 1 / -1 / 0.
+     */
+    final class Trend implements IndicatorCalc {
+        private final Ema fast;
+        private final Ema slow;
+        private final double[] scratch = new double[1];
+
+        Trend(int fastLength, int slowLength) {
+            this(new Ema(fastLength), new Ema(slowLength));
+        }
+
+        private Trend(Ema fast, Ema slow) {
+            this.fast = fast;
+            this.slow = slow;
+        }
+
+        @Override
+        public void push(BarSeries.Snapshot in, int i, double[] out) {
+            fast.push(in, i, scratch);
+            double f = scratch[0];
+            slow.push(in, i, scratch);
+            double s = scratch[0];
+            double close = in.close()[i];
+            out[0] = f;
+            out[1] = s;
+            if (Double.isNaN(f) || Double.isNaN(s)) {
+                out[2] = Double.NaN;
+            } else if (f > s && close > f) {
+                out[2] = 1;
+            } else if (f < s && close < f) {
+                out[2] = -1;
+            } else {
+                out[2] = 0;
+            }
+        }
+
+        @Override
+        public IndicatorCalc copy() {
+            return new Trend((Ema) fast.copy(), (Ema) slow.copy());
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.api_server.service;
+
+import java.util.Arrays;
+
+/**
+ * One indicator's output over a resident bar series, advanced as the series
+ * grows instead of being recomputed.
+ *
+ * The outputs are anchored at the series' first bar. {@link #advance}
+ * compares the new series with the last {@link #REWIND} bars it folded —
+ * ingestion rewrites the developing bar and sometimes the one or two before
+ * it — rewinds to the checkpoint before the first bar that differs, and
+ * pushes from there: O(1) per new or revised bar. Anything it can't prove
+ * is confined to that tail (a new first bar, a change at the edge of the
+ * window, or a {@link #invalidateFrom} older than it) rebuilds from scratch.
+ *
+ * Not thread-safe; {@link IndicatorService} holds the instance's monitor.
+ */
+final class IndicatorSeries {
+
+    static final int REWIND = 16;
+
+    private final String symbol;
+    private final String interval;
+    private final IndicatorSpec spec;
+    private final boolean intraday;
+    private final int outputs;
+
+    private IndicatorCalc calc;
+    private long firstTime = Long.MIN_VALUE;
+    private int size;
+    private long[] time = new long[0];
+    private double[][] values;
+    private long dirtyFrom = BarSeries.NO_CHANGE;
+
+    /** Last time a request read these lines; drives eager advancing. */
+    volatile long lastReadMillis;
+
+    // Ring over the last REWIND rows: the input each was folded from and
+    // the calc state just before it.
+    private final IndicatorCalc[] before = new IndicatorCalc[REWIND];
+    private final double[][] tail = new double[REWIND][4];
+    private final long[] tailTime = new long[REWIND];
+    private final long[] tailVolume = new long[REWIND];
+    private final double[] scratch;
+
+    IndicatorSeries(String symbol, String interval, IndicatorSpec spec, boolean intraday) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.spec = spec;
+        this.intraday = intraday;
+        this.outputs = spec.outputs().size();
+        this.values = new double[outputs][0];
+        this.scratch = new double[outputs];
+    }
+
+    String symbol() { return symbol; }
+
+    String interval() { return interval; }
+
+    IndicatorSpec spec() { return spec; }
+
+    int size() { return size; }
+
+    long time(int row) { return time[row]; }
+
+    double value(int output, int row) { return values[output][row]; }
+
+    /** First row at or after {@code timeKey}. */
+    int indexAtOrAfter(long timeKey) {
+        int i = Arrays.binarySearch(time, 0, size, timeKey);
+        return i >= 0 ? i : -i - 1;
+    }
+
+    /** Bars at or after {@code timeKey} changed in a way the tail check might not see. */
+    void invalidateFrom(long timeKey) {
+        dirtyFrom = Math.min(dirtyFrom, timeKey);
+    }
+
+    /** Bring the outputs up to date with {@code series} (a view from the series' first bar). */
+    void advance(BarSeries.View series) {
+        BarSeries.Snapshot in = series.columns();
+        int base = series.from();
+        int n = series.size();
+        if (n == 0) {
+            reset(Long.MIN_VALUE);
+            return;
+        }
+
+        int from = firstUnchanged(in, base, n);
+        if (from < 0) {
+            reset(in.time()[base]);
+            from = 0;
+        } else if (from < size) {
+            calc = before[from % REWIND].copy();
+        }
+        dirtyFrom = BarSeries.NO_CHANGE;
+
+        ensureCapacity(n);
+        // Only the last REWIND rows end up in the ring, so a cold fold of
+        // years of bars checkpoints just those.
+        int ringFrom = n - REWIND;
+        for (int r = from; r < n; r++) {
+            int i = base + r;
+            if (r >= ringFrom) {
+                int slot = r % REWIND;
+                before[slot] = calc.copy();
+                tail[slot][0] = in.open()[i];
+                tail[slot][1] = in.high()[i];
+                tail[slot][2] = in.low()[i];
+                tail[slot][3] = in.close()[i];
+                tailTime[slot] = in.time()[i];
+                tailVolume[slot] = in.volume()[i];
+            }
+            calc.push(in, i, scratch);
+            time[r] = in.time()[i];
+            for (int k = 0; k < outputs; k++) values[k][r] = scratch[k];
+        }
+        size = n;
+    }
+
+    /**
+     * The row to resume folding at: {@link #size} when only bars were
+     * appended, an earlier tail row when one was revised, or -1 when the
+     * outputs have to be rebuilt.
+     */
+    private int firstUnchanged(BarSeries.Snapshot in, int base, int n) {
+        if (size == 0 || in.time()[base] != firstTime) return -1;
+        int ringStart = Math.max(0, size - REWIND);
+        int resume = size;
+        if (dirtyFrom != BarSeries.NO_CHANGE) {
+            if (dirtyFrom < tailTime[ringStart % REWIND]) return -1;
+            resume = indexAtOrAfter(dirtyFrom);
+        }
+        for (int r = ringStart; r < size; r++) {
+            if (r >= n || !sameRow(in, base + r, r % REWIND)) {
+                // A change at the very edge of the ring may extend past it.
+                if (r == ringStart && r > 0) return -1;
+                return Math.min(resume, r);
+            }
+        }
+        return resume;
+    }
+
+    private boolean sameRow(BarSeries.Snapshot in, int i, int slot) {
+        double[] t = tail[slot];
+        return in.time()[i] == tailTime[slot]
+                && in.open()[i] == t[0]
+                && in.high()[i] == t[1]
+                && in.low()[i] == t[2]
+                && in.close()[i] == t[3]
+                && in.volume()[i] == tailVolume[slot];
+    }
+
+    private void reset(long first) {
+        calc = spec.newCalc(symbol, intraday);
+        firstTime = first;
+        size = 0;
+    }
+
+    private void ensureCapacity(int n) {
+        if (time.length >= n) return;
+        int capacity = Math.max(n, time.length + (time.length >> 1));
+        time = Arrays.copyOf(time, capacity);
+        for (int k = 0; k < outputs; k++) values[k] = Arrays.copyOf(values[k], capacity);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.api_server.service;
+
+import com.example.api_server.config.CacheConfig;
+import com.example.api_server.dto.IndicatorResponse;
+import com.example.api_server.dto.TrendState;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SMA, EMA, Bollinger, VWAP and the 21/200 trend logic computed server-side,
+ * so a chart that only wants a 200-period line doesn't have to download the
+ * history behind it.
+ *
+ * Each (symbol, interval, indicator, params) keeps an {@link IndicatorSeries}
+ * over the whole resident {@link BarStore} series. Requests advance it by
+ * the bars that arrived since the last one — a new or revised developing
+ * bar costs O(1), not a pass over the history — and return the rows inside
+ * the requested period. Anchoring at the resident series rather than at the
+ * period's first bar keeps EMA seeds stable as the period window slides;
+ * after a few multiples of the length the lines match the chart's own
+ * calculation over the period.
+ */
+@Service
+public class IndicatorService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndicatorService.class);
+
+    public static final String CACHE_NAME = "indicatorSeries";
+
+    /** Lines read within this window are advanced eagerly when their bars change. */
+    private static final Duration KEEP_WARM_WINDOW = Duration.ofMinutes(10);
+
+    private final HistoricalDataService historicalDataService;
+    private final BarStore barStore;
+    private final Cache series;
+
+    public IndicatorService(HistoricalDataService historicalDataService, BarStore barStore,
+                            CacheManager cacheManager) {
+        this.historicalDataService = historicalDataService;
+        this.barStore = barStore;
+        this.series = cacheManager.getCache(CACHE_NAME);
+    }
+
+    @Retry(name = "historicalData")
+    @CircuitBreaker(name = "historicalData")
+    public IndicatorResponse getIndicator(String symbol, String period, String interval, IndicatorSpec spec) {
+        String upper = symbol.toUpperCase();
+        // The chart's view for these arguments; reading it also extends the
+        // store when the period reaches past what's resident.
+        BarSeries.View view = historicalDataService.bars(upper, period, interval);
+        BarSeries.View resident = resident(upper, interval);
+
+        IndicatorSeries s = seriesFor(upper, interval, spec);
+        synchronized (s) {
+            s.advance(resident);
+            int from = view.isEmpty() ? s.size() : s.indexAtOrAfter(view.columns().time()[view.from()]);
+            return toResponse(s, upper, period, interval, from, HistoricalDataService.isIntraday(interval));
+        }
+    }
+
+    /**
+     * The trend state on the last bar of (symbol, interval), with the
+     * {@code period} only making sure enough history is resident for the
+     * slow EMA to warm up. Served from the same cached {@link IndicatorSeries}
+     * as {@code /api/indicators?type=trend}, so a scan repeated as bars
+     * arrive folds just the new bars.
+     */
+    @Retry(name = "historicalData")
+    @CircuitBreaker(name = "historicalData")
+    public TrendState latestTrend(String symbol, String timeframe, String period, String interval,
+                                  IndicatorSpec spec) {
+        String upper = symbol.toUpperCase();
+        historicalDataService.bars(upper, period, interval);
+        BarSeries.View resident = resident(upper, interval);
+
+        TrendState out = new TrendState(upper, timeframe, interval);
+        IndicatorSeries s = seriesFor(upper, interval, spec);
+        synchronized (s) {
+            s.advance(resident);
+            int last = s.size() - 1;
+            if (last < 0) return out;
+            out.setTime(HistoricalDataService.timeLabel(s.time(last), HistoricalDataService.isIntraday(interval)));
+            out.setClose(resident.columns().close()[resident.to() - 1]);
+            out.setState(stateName(s.value(2, last)));
+            out.setFast(valueOrNull(s.value(0, last)));
+            out.setSlow(valueOrNull(s.value(1, last)));
+            if (last > 0) {
+                out.setFastSlope(valueOrNull(s.value(0, last) - s.value(0, last - 1)));
+                out.setSlowSlope(valueOrNull(s.value(1, last) - s.value(1, last - 1)));
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Point the cached lines of the written (symbol, stored interval) at the
+     * first bar the write touched, so the next fold rewinds exactly there
+     * even when the change reaches further back than the tail check covers.
+     * Lines someone read in the last {@link #KEEP_WARM_WINDOW} are folded
+     * right away, so the next chart or trend scan finds them current. Runs
+     * after {@link BarStore} has patched its series.
+     */
+    @EventListener
+    @Order(2)
+    public void onBarsWritten(BarsWrittenEvent event) {
+        if (event.from() == null) return;
+        long from = BarSeries.timeKey(event.from());
+        long readSince = System.currentTimeMillis() - KEEP_WARM_WINDOW.toMillis();
+        for (Object value : CacheConfig.values(series)) {
+            if (!(value instanceof IndicatorSeries s)
+                    || !s.symbol().equals(event.symbol())
+                    || !HistoricalDataService.storedIntervalFor(s.interval()).equals(event.interval())) {
+                continue;
+            }
+            BarBucketing bucketing = event.interval().equals(s.interval())
+                    ? null : BarBucketing.forInterval(s.interval());
+            synchronized (s) {
+                s.invalidateFrom(bucketing == null ? from : bucketing.bucketStart(from));
+            }
+            if (s.lastReadMillis < readSince) continue;
+            try {
+                BarSeries.View resident = resident(s.symbol(), s.interval());
+                synchronized (s) {
+                    s.advance(resident);
+                }
+            } catch (RuntimeException ex) {
+                logger.debug("Keeping {} {} {} warm failed: {}", s.symbol(), s.interval(), s.spec().key(),
+                        ex.getMessage());
+            }
+        }
+    }
+
+    private BarSeries.View resident(String symbol, String interval) {
+        return barStore.readResident(symbol, HistoricalDataService.storedIntervalFor(interval), interval,
+                historicalDataService.lastModified(symbol, interval));
+    }
+
+    private IndicatorSeries seriesFor(String symbol, String interval, IndicatorSpec spec) {
+        IndicatorSeries s = series.get(symbol + "-" + interval + "-" + spec.key(),
+                () -> new IndicatorSeries(symbol, interval, spec, HistoricalDataService.isIntraday(interval)));
+        s.lastReadMillis = System.currentTimeMillis();
+        return s;
+    }
+
+    private static Double valueOrNull(double v) {
+        return Double.isNaN(v) ? null : v;
+    }
+
+    private static IndicatorResponse toResponse(IndicatorSeries s, String symbol, String period,
+                                                String interval, int from, boolean intraday) {
+        IndicatorSpec spec = s.spec();
+        int n = s.size() - from;
+        List<String> time = new ArrayList<>(n);
+        for (int r = from; r < s.size(); r++) time.add(HistoricalDataService.timeLabel(s.time(r), intraday));
+
+        List<String> names = spec.outputs();
+        Map<String, List<Double>> values = new LinkedHashMap<>();
+        List<String> states = null;
+        for (int k = 0; k < names.size(); k++) {
+            if (names.get(k).equals("state")) {
+                states = new ArrayList<>(n);
+                for (int r = from; r < s.size(); r++) states.add(stateName(s.value(k, r)));
+                continue;
+            }
+            List<Double> line = new ArrayList<>(n);
+            for (int r = from; r < s.size(); r++) {
+                double v = s.value(k, r);
+                line.add(valueOrNull(v));
+            }
+            values.put(names.get(k), line);
+        }
+        return new IndicatorResponse(symbol, period, interval, spec.type(), spec.params(), time, values, states);
+    }
+
+    private static String stateName(double code) {
+        if (Double.isNaN(code)) return null;
+        return code > 0 ? "bullish" : code < 0 ? "bearish" : "neutral";
+    }
+}
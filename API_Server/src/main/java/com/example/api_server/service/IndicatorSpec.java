@@ -0,0 +1,96 @@
+package com.example.api_server.service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An indicator type plus its parameters, as requested on
+ * {@code /api/indicators}. Defaults and bounds match the chart's
+ * {@code AVAILABLE_INDICATORS} / {@code EDITABLE_FIELDS_BY_TYPE}.
+ */
+public record IndicatorSpec(String type, int length, double stdDev, int fast, int slow) {
+
+    private static final int MAX_LENGTH = 1000;
+
+    /**
+     * Validated spec for {@code type}; parameters that don't apply to it
+     * are ignored, missing ones take the chart's defaults.
+     *
+     * @throws IllegalArgumentException for an unknown type or out-of-range parameter
+     */
+    public static IndicatorSpec of(String type, Integer length, Double stdDev, Integer fast, Integer slow) {
+        String t = type == null ? "" : type.toLowerCase();
+        return switch (t) {
+            case "sma" -> new IndicatorSpec(t, checkLength("length", length, 20), 0, 0, 0);
+            case "ema" -> new IndicatorSpec(t, checkLength("length", length, 21), 0, 0, 0);
+            case "bb" -> {
+                double width = stdDev == null ? 2.0 : stdDev;
+                if (width < 0.1 || width > 10) {
+                    throw new IllegalArgumentException("stdDev must be between 0.1 and 10");
+                }
+                yield new IndicatorSpec(t, checkLength("length", length, 20), width, 0, 0);
+            }
+            case "vwap" -> new IndicatorSpec(t, 0, 0, 0, 0);
+            case "trend" -> new IndicatorSpec(t, 0, 0,
+                    checkLength("fast", fast, 21), checkLength("slow", slow, 200));
+            default -> throw new IllegalArgumentException(
+                    "Unknown indicator '" + type + "' (expected sma, ema, bb, vwap or trend)");
+        };
+    }
+
+    private static int checkLength(String name, Integer value, int fallback) {
+        int v = value == null ? fallback : value;
+        if (v < 1 || v > MAX_LENGTH) {
+            throw new IllegalArgumentException(name + " must be between 1 and " + MAX_LENGTH);
+        }
+        return v;
+    }
+
+    /** Cache key fragment: type and the parameters that apply to it. */
+    public String key() {
+        return switch (type) {
+            case "sma", "ema" -> type + "(" + length + ")";
+            case "bb" -> type + "(" + length + "," + stdDev + ")";
+            case "trend" -> type + "(" + fast + "," + slow + ")";
+            default -> type;
+        };
+    }
+
+    public Map<String, Object> params() {
+        Map<String, Object> p = new LinkedHashMap<>();
+        switch (type) {
+            case "sma", "ema" -> p.put("length", length);
+            case "bb" -> {
+                p.put("length", length);
+                p.put("stdDev", stdDev);
+            }
+            case "trend" -> {
+                p.put("fast", fast);
+                p.put("slow", slow);
+            }
+            default -> { }
+        }
+        return p;
+    }
+
+    /** Names of the output lines, in the order {@link IndicatorCalc#push} writes them. */
+    public List<String> outputs() {
+        return switch (type) {
+            case "bb" -> List.of("upper", "middle", "lower");
+            case "trend" -> List.of("fast", "slow", "state");
+            default -> List.of(type);
+        };
+    }
+
+    IndicatorCalc newCalc(String symbol, boolean intraday) {
+        return switch (type) {
+            case "sma" -> new IndicatorCalc.Sma(length);
+            case "ema" -> new IndicatorCalc.Ema(length);
+            case "bb" -> new IndicatorCalc.Bollinger(length, stdDev);
+            case "vwap" -> new IndicatorCalc.Vwap(intraday ? symbol : null);
+            case "trend" -> new IndicatorCalc.Trend(fast, slow);
+            default -> throw new IllegalStateException("No calc for " + type);
+        };
+    }
+}
@@ -5,12 +5,10 @@ import com.example.api_server.dto.TickerData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
-import java.time.Duration;
 import java.time.Instant;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -24,10 +22,10 @@ public class LiveMarketDataService {
 
     private static final Logger logger = LoggerFactory.getLogger(LiveMarketDataService.class);
 
-    private final WebClient webClient;
+    private final YahooGateway yahoo;
 
-    public LiveMarketDataService(WebClient webClient) {
-        this.webClient = webClient;
+    public LiveMarketDataService(YahooGateway yahoo) {
+        this.yahoo = yahoo;
     }
 
     /**
@@ -41,68 +39,65 @@ public class LiveMarketDataService {
         String normalized = symbol.toUpperCase();
         logger.debug("Live price cache miss for {} — calling Yahoo Finance", normalized);
 
-        Map<String, Object> body;
+        YahooChart chart;
         try {
-            body = webClient.get()
-                    .uri(uri -> uri
-                            .path("/v8/finance/chart/{symbol}")
-                            .queryParam("interval", "1d")
-                            .queryParam("range", "1d")
-                            .build(normalized))
-                    .retrieve()
-                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                    .timeout(Duration.ofSeconds(6))
-                    .block();
+            chart = yahoo.chart(normalized, "1d", "1d");
         } catch (Exception ex) {
             logger.warn("Live price fetch for {} failed: {}", normalized, ex.getMessage());
             return buildResponse(normalized, null, null, null);
         }
 
-        Map<String, Object> meta = extractMeta(body);
-        Double price = readDouble(meta, "regularMarketPrice");
-        Long volume = readLong(meta, "regularMarketVolume");
-        // Stocks expose previousClose; futures expose chartPreviousClose.
-        Double previousClose = readDouble(meta, "previousClose");
-        if (previousClose == null) {
-            previousClose = readDouble(meta, "chartPreviousClose");
-        }
-
-        return buildResponse(normalized, price, volume, previousClose);
+        return response(tickerData(normalized, chart));
     }
 
-    @SuppressWarnings("unchecked")
-    private static Map<String, Object> extractMeta(Map<String, Object> body) {
-        if (body == null) return null;
-        Object chart = body.get("chart");
-        if (!(chart instanceof Map<?, ?> chartMap)) return null;
-        Object result = chartMap.get("result");
-        if (!(result instanceof List<?> results) || results.isEmpty()) return null;
-        Object first = results.get(0);
-        if (!(first instanceof Map<?, ?> firstMap)) return null;
-        Object meta = firstMap.get("meta");
-        if (!(meta instanceof Map<?, ?> metaMap)) return null;
-        return (Map<String, Object>) metaMap;
+    /**
+     * Latest tick for each of {@code symbols} from one batch quote call,
+     * keyed by upper-cased symbol. Symbols the batch has no answer for are
+     * absent; a failed batch yields an empty map. Not cached here — the
+     * gateway keeps the batch response for a few seconds.
+     */
+    public Map<String, TickerData> getLivePrices(List<String> symbols) {
+        Map<String, YahooChart> quotes;
+        try {
+            quotes = yahoo.quotes(symbols);
+        } catch (Exception ex) {
+            logger.warn("Batch live price fetch for {} failed: {}", symbols, ex.getMessage());
+            return Map.of();
+        }
+        Map<String, TickerData> out = new LinkedHashMap<>();
+        quotes.forEach((symbol, chart) -> out.put(symbol, tickerData(symbol, chart)));
+        return out;
     }
 
-    private static Double readDouble(Map<String, Object> map, String key) {
-        if (map == null) return null;
-        Object v = map.get(key);
-        return v instanceof Number n ? n.doubleValue() : null;
+    private static TickerData tickerData(String symbol, YahooChart chart) {
+        long volume = chart.regularMarketVolume();
+        // Stocks expose previousClose; futures expose chartPreviousClose.
+        Double previousClose = valueOrNull(chart.previousClose());
+        if (previousClose == null) {
+            previousClose = valueOrNull(chart.chartPreviousClose());
+        }
+        return ticker(symbol, valueOrNull(chart.regularMarketPrice()),
+                volume == BarSeries.NO_VOLUME ? null : volume, previousClose);
     }
 
-    private static Long readLong(Map<String, Object> map, String key) {
-        if (map == null) return null;
-        Object v = map.get(key);
-        return v instanceof Number n ? n.longValue() : null;
+    private static Double valueOrNull(double v) {
+        return Double.isNaN(v) ? null : v;
     }
 
     private MarketDataResponse buildResponse(String symbol, Double price, Long volume, Double previousClose) {
+        return response(ticker(symbol, price, volume, previousClose));
+    }
+
+    private static TickerData ticker(String symbol, Double price, Long volume, Double previousClose) {
         TickerData ticker = new TickerData();
         ticker.setSymbol(symbol);
         ticker.setPrice(price);
         ticker.setVolume(volume);
         ticker.setPreviousClose(previousClose);
+        return ticker;
+    }
 
+    private static MarketDataResponse response(TickerData ticker) {
         MarketDataResponse response = new MarketDataResponse();
         response.setTimestamp(String.valueOf(Instant.now().getEpochSecond()));
         response.setTickers(List.of(ticker));
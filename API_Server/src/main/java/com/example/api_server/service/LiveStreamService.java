@@ -0,0 +1,340 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.MarketDataResponse;
+import com.example.api_server.dto.OhlcData;
+import com.example.api_server.dto.TickerData;
+import com.example.api_server.exception.MarketDataException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pushes live ticks and the newest bar to Server-Sent Event subscribers,
+ * so the ticker page can stop polling {@code /api/market/live},
+ * {@code /api/historical/recent} and {@code /api/historical/since} on
+ * timers.
+ *
+ * Ticks come from one poll loop over every subscribed (symbol, interval):
+ * it asks {@link LiveMarketDataService} through its cache, so SSE viewers
+ * and any remaining pollers share the same upstream Yahoo calls. Bars are
+ * pushed when they are written: each {@link BarsWrittenEvent} re-reads the
+ * newest bar of the matching topics from the {@link BarStore} series the
+ * event just patched. Between writes the client extends the developing bar
+ * from the ticks. Either way only what changed is published, and each
+ * payload is serialized once per topic, not once per subscriber.
+ *
+ * Delivery is conflating: a subscriber holds at most one pending value per
+ * event name, and a newer value replaces an unsent one. A slow browser
+ * therefore only ever falls behind to "the latest tick and bar", never a
+ * growing backlog, and its blocking writes run on its own virtual thread so
+ * they can't hold up anyone else.
+ *
+ * Topics and connections are capped ({@code app.stream.max-topics},
+ * {@code app.stream.max-subscribers}): every topic is a Yahoo poll every
+ * couple of seconds and every subscriber a held-open response, so a
+ * subscribe past either cap is refused rather than queued.
+ */
+@Service
+public class LiveStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveStreamService.class);
+
+    public static final String TICK = "tick";
+    public static final String BAR = "bar";
+    private static final String HEARTBEAT = "heartbeat";
+    private static final List<String> SEND_ORDER = List.of(TICK, BAR, HEARTBEAT);
+
+    private static final long HEARTBEAT_INTERVAL_MS = 15_000;
+
+    private final LiveMarketDataService liveMarketDataService;
+    private final BarStore barStore;
+    private final HistoricalDataService historicalDataService;
+    private final JsonMapper jsonMapper;
+    private final long timeoutMs;
+    private final int maxTopics;
+    private final int maxSubscribers;
+
+    private final ConcurrentMap<String, Topic> topics = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder conflated = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private volatile long lastHeartbeat = System.currentTimeMillis();
+
+    public LiveStreamService(LiveMarketDataService liveMarketDataService,
+                             BarStore barStore,
+                             HistoricalDataService historicalDataService,
+                             JsonMapper jsonMapper,
+                             @Value("${app.stream.timeout-ms:1800000}") long timeoutMs,
+                             @Value("${app.stream.max-topics:200}") int maxTopics,
+                             @Value("${app.stream.max-subscribers:1000}") int maxSubscribers) {
+        this.liveMarketDataService = liveMarketDataService;
+        this.barStore = barStore;
+        this.historicalDataService = historicalDataService;
+        this.jsonMapper = jsonMapper;
+        this.timeoutMs = timeoutMs;
+        this.maxTopics = maxTopics;
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    /**
+     * Open a stream for {@code symbol} at {@code interval}. {@code tick}
+     * events carry a {@link TickerData}; {@code bar} events carry the
+     * newest stored {@link OhlcData} bucket (epoch-second time, like
+     * {@code /recent}). Only 1m, 5m, 15m and 30m are streamed — longer
+     * buckets don't line up with Yahoo's UTC minute stamps. The last known
+     * values are sent immediately so a new subscriber doesn't wait for the
+     * next change; a new topic loads its first bar in the background, which
+     * also makes its series resident so {@link BarStore#refreshResident}
+     * keeps it current.
+     *
+     * @throws MarketDataException 400 for any other interval, 503 when the
+     *         topic or subscriber cap is reached
+     */
+    public SseEmitter subscribe(String symbol, String interval) {
+        if (barMinutes(interval) == 0) {
+            throw new MarketDataException("Unsupported stream interval: " + interval
+                    + " (use 1m, 5m, 15m or 30m)", HttpStatus.BAD_REQUEST.value());
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw rejected("subscriber");
+        }
+        String upper = symbol.toUpperCase();
+        String key = upper + "-" + interval;
+        Subscriber subscriber = new Subscriber(new SseEmitter(timeoutMs));
+        Topic topic;
+        try {
+            topic = topics.compute(key, (k, existing) -> {
+                if (existing == null && topics.size() >= maxTopics) throw rejected("topic");
+                Topic t = existing != null ? existing : new Topic(k, upper, interval);
+                t.subscribers.add(subscriber);
+                return t;
+            });
+        } catch (MarketDataException ex) {
+            subscriberCount.decrementAndGet();
+            throw ex;
+        }
+        Runnable remove = () -> unsubscribe(topic, subscriber);
+        subscriber.emitter.onCompletion(remove);
+        subscriber.emitter.onTimeout(remove);
+        subscriber.emitter.onError(ex -> remove.run());
+
+        topic.last.forEach(subscriber::offer);
+        if (topic.barLoaded.compareAndSet(false, true)) executor.execute(() -> refreshBar(topic));
+        logger.debug("SSE subscribe {} ({} subscribers)", key, topic.subscribers.size());
+        return subscriber.emitter;
+    }
+
+    /** Poll the last price of every subscribed topic and push the ones that changed. */
+    @Scheduled(fixedDelayString = "${app.stream.poll-interval-ms:2000}")
+    public void poll() {
+        if (topics.isEmpty()) return;
+        List<Future<?>> polls = new ArrayList<>();
+        for (Topic topic : topics.values()) {
+            polls.add(executor.submit(() -> refreshTick(topic)));
+        }
+        for (Future<?> f : polls) {
+            try {
+                f.get(10, TimeUnit.SECONDS);
+            } catch (Exception ex) {
+                // A stuck upstream call only delays its own topic; the next pass retries.
+                logger.debug("SSE poll did not finish: {}", ex.getMessage());
+            }
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastHeartbeat >= HEARTBEAT_INTERVAL_MS) {
+            // Keeps proxies from idling the connection out, and is how
+            // subscribers that vanished without a FIN get noticed.
+            lastHeartbeat = now;
+            for (Topic topic : topics.values()) {
+                for (Subscriber s : topic.subscribers) s.offer(HEARTBEAT, "");
+            }
+        }
+    }
+
+    /**
+     * Push the newest bar to the topics built on the series that was just
+     * written. Runs after {@link BarStore#onBarsWritten} has patched it in;
+     * the read and the send go to the stream's own threads.
+     */
+    @EventListener
+    @Order(2)
+    public void onBarsWritten(BarsWrittenEvent event) {
+        for (Topic topic : topics.values()) {
+            if (topic.symbol.equals(event.symbol())
+                    && HistoricalDataService.storedIntervalFor(topic.interval).equals(event.interval())) {
+                executor.execute(() -> refreshBar(topic));
+            }
+        }
+    }
+
+    /** Topics, subscribers, events written, updates dropped by conflation and subscribes refused at a cap. */
+    public Map<String, Long> stats() {
+        Map<String, Long> out = new LinkedHashMap<>();
+        out.put("topics", (long) topics.size());
+        out.put("subscribers", (long) subscriberCount.get());
+        out.put("sent", sent.sum());
+        out.put("conflated", conflated.sum());
+        out.put("rejected", rejected.sum());
+        return out;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        topics.values().forEach(t -> t.subscribers.forEach(s -> s.emitter.complete()));
+        executor.shutdownNow();
+    }
+
+    private void refreshTick(Topic topic) {
+        try {
+            MarketDataResponse live = liveMarketDataService.getLivePrice(topic.symbol);
+            if (live != null && live.getTickers() != null && !live.getTickers().isEmpty()) {
+                TickerData tick = live.getTickers().get(0);
+                if (tick.getPrice() != null) topic.publish(TICK, tick);
+            }
+        } catch (RuntimeException ex) {
+            logger.debug("SSE tick refresh for {} failed: {}", topic.key, ex.getMessage());
+        }
+    }
+
+    private void refreshBar(Topic topic) {
+        try {
+            BarSeries.View bars = barStore.readResident(topic.symbol,
+                    HistoricalDataService.storedIntervalFor(topic.interval), topic.interval,
+                    historicalDataService.lastModified(topic.symbol, topic.interval));
+            OhlcData bar = lastBar(bars);
+            if (bar != null) topic.publish(BAR, bar);
+        } catch (RuntimeException ex) {
+            logger.debug("SSE bar refresh for {} failed: {}", topic.key, ex.getMessage());
+        }
+    }
+
+    private void unsubscribe(Topic topic, Subscriber subscriber) {
+        subscriber.closed = true;
+        // Completion, timeout and error can each fire; only the first counts.
+        if (!topic.subscribers.remove(subscriber)) return;
+        subscriberCount.decrementAndGet();
+        topics.computeIfPresent(topic.key, (k, t) -> t.subscribers.isEmpty() ? null : t);
+    }
+
+    private MarketDataException rejected(String cap) {
+        rejected.increment();
+        logger.warn("SSE subscribe refused: {} cap reached", cap);
+        return new MarketDataException("Too many live streams open; try again later",
+                HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    private static int barMinutes(String interval) {
+        return switch (interval) {
+            case "1m" -> 1;
+            case "5m" -> 5;
+            case "15m" -> 15;
+            case "30m" -> 30;
+            default -> 0;
+        };
+    }
+
+    /** The newest row of {@code bars} as an SSE payload, or null when there is none. */
+    static OhlcData lastBar(BarSeries.View bars) {
+        if (bars == null || bars.isEmpty()) return null;
+        BarSeries.Snapshot c = bars.columns();
+        int i = bars.to() - 1;
+        long volume = c.volume()[i];
+        return new OhlcData(String.valueOf(HistoricalDataService.wireSeconds(c.time()[i])),
+                c.open()[i], c.high()[i], c.low()[i], c.close()[i], volume == BarSeries.NO_VOLUME ? 0L : volume);
+    }
+
+    /** Subscribers of one (symbol, interval) and the last payload published per event. */
+    private final class Topic {
+        final String key;
+        final String symbol;
+        final String interval;
+        final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        final ConcurrentMap<String, String> last = new ConcurrentHashMap<>();
+        final AtomicBoolean barLoaded = new AtomicBoolean();
+
+        Topic(String key, String symbol, String interval) {
+            this.key = key;
+            this.symbol = symbol;
+            this.interval = interval;
+        }
+
+        void publish(String event, Object payload) {
+            String json = jsonMapper.writeValueAsString(payload);
+            if (json.equals(last.put(event, json))) return;
+            for (Subscriber s : subscribers) s.offer(event, json);
+        }
+    }
+
+    /**
+     * One connection. {@link #pending} is the conflation slot: at most one
+     * value per event name, drained by a single task at a time.
+     */
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final ConcurrentMap<String, String> pending = new ConcurrentHashMap<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(String event, String json) {
+            if (closed) return;
+            if (pending.put(event, json) != null) conflated.increment();
+            if (draining.compareAndSet(false, true)) executor.execute(this::drain);
+        }
+
+        private void drain() {
+            do {
+                for (String event : SEND_ORDER) {
+                    String json = pending.remove(event);
+                    if (json == null || closed) continue;
+                    try {
+                        if (event.equals(HEARTBEAT)) {
+                            emitter.send(SseEmitter.event().comment(HEARTBEAT));
+                        } else {
+                            emitter.send(SseEmitter.event().name(event).data(json, MediaType.APPLICATION_JSON));
+                            sent.increment();
+                        }
+                    } catch (IOException | IllegalStateException ex) {
+                        // Client went away; the emitter's callbacks unsubscribe it.
+                        closed = true;
+                        emitter.completeWithError(ex);
+                    }
+                }
+                draining.set(false);
+                // Something may have landed after the last remove but before the flag cleared.
+            } while (!closed && !pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
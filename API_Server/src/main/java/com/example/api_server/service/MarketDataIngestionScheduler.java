@@ -59,6 +59,7 @@ public class MarketDataIngestionScheduler {
     public void runRth() {
         if (!enabled || tickers.isEmpty()) return;
         boolean isMarketHours = isEquitySession();
+        long started = System.nanoTime();
         logger.info("Ingestion (RTH) started — tickers={}, isMarketHours={}", tickers, isMarketHours);
         service.ingestPrices(tickers, isMarketHours);
         if (isWeekday() && shouldFetchDaily()) {
@@ -68,7 +69,7 @@ public class MarketDataIngestionScheduler {
         if (isWeekday()) {
             service.ingestIntraday(tickers, isMarketHours);
         }
-        logger.info("Ingestion (RTH) completed");
+        logger.info("Ingestion (RTH) completed in {} ms", (System.nanoTime() - started) / 1_000_000);
     }
 
     @Scheduled(cron = "0 */5 22,23 * * SUN", zone = "UTC")
@@ -76,10 +77,11 @@ public class MarketDataIngestionScheduler {
         if (!enabled || tickers.isEmpty()) return;
         // Futures-only on Sunday Globex: ingestPrices/Intraday skip non-=F
         // when isMarketHours=false.
+        long started = System.nanoTime();
         logger.info("Ingestion (Globex) started — tickers={}", tickers);
         service.ingestPrices(tickers, false);
         service.ingestIntraday(tickers, false);
-        logger.info("Ingestion (Globex) completed");
+        logger.info("Ingestion (Globex) completed in {} ms", (System.nanoTime() - started) / 1_000_000);
     }
 
     private static boolean isWeekday() {
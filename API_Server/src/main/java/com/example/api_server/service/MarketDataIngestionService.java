@@ -1,33 +1,80 @@
 package com.example.api_server.service;
 
+import com.example.api_server.dto.HistoricalBar;
 import com.example.api_server.repository.supabase.SupabaseHistoricalDataRepository;
 import com.example.api_server.repository.supabase.SupabaseMarketDataRepository;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Java port of functions/ScheduledDataIngestion/__init__.py — the half that
  * handles the "extra" tickers Azure no longer ingests (IWM, RTY=F, DIA, YM=F
  * by default).
  *
- * Fetches prices and intraday OHLC from Yahoo's chart endpoint, runs the
- * ≤5m bars through {@link PriceSanitizer}, and upserts into the same
- * {@code market_data} and {@code historical_data} tables the Python writer
- * uses. Two writers touching the same tables is safe — the unique key
- * (symbol, date, interval_type) on historical_data is the contract.
+ * Fetches prices and intraday OHLC from Yahoo's chart endpoint (decoded
+ * straight into columns by {@link YahooChart}), runs the ≤5m bars through
+ * {@link PriceSanitizer}, and upserts into the same {@code market_data} and
+ * {@code historical_data} tables the Python writer uses — only the bars
+ * that changed since the last run (see {@link BarFingerprints}), each batch
+ * in one statement. Two writers touching the same tables is safe — the
+ * unique key (symbol, date, interval_type) on historical_data is the
+ * contract.
+ *
+ * Tickers and intervals are fetched concurrently (bounded by
+ * {@code app.ingestion.parallelism}), so one slow symbol no longer holds up
+ * the rest and run time stays flat as tickers are added.
+ *
+ * With {@code app.ingestion.derive-intervals} on (the default), intraday
+ * ingestion makes one 1m call per symbol and rolls the sanitized minutes
+ * up into the 5m and 1h rows with the same {@link BarAggregator} the read
+ * path uses, so the three intervals always agree; Yahoo's 1h series is
+ * fetched once a day, for the earlier days the 1m range doesn't cover.
+ *
+ * With {@code app.ingestion.incremental-fetch} on (the default), intraday
+ * fetches after the first ask Yahoo only for the bars since each series'
+ * watermark (see {@link FetchWatermarks}) via {@code period1}/{@code period2},
+ * so a run costs the same at 15:55 as at 09:35.
+ *
+ * With {@code app.ingestion.journal.dir} set, changed bars are appended to
+ * a local {@link BarJournal} instead of being upserted inline; a flusher
+ * thread drains it to {@code historical_data} in batches, backing off
+ * while Supabase is unavailable. An ingestion run then never waits on the
+ * database, and bars fetched during an outage are written once it ends —
+ * or after a restart, from the journal on disk. A group the database keeps
+ * rejecting while it is up is dead-lettered after
+ * {@link #JOURNAL_MAX_ATTEMPTS} tries and its fingerprints forgotten.
  */
 @Service
 public class MarketDataIngestionService {
@@ -36,23 +83,93 @@ public class MarketDataIngestionService {
 
     private static final Set<String> SANITIZE_INTERVALS = Set.of("1m", "2m", "5m");
     private static final int SANITIZE_WINDOW = 5;
-    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
+    /** Well inside the 5-minute cron spacing. */
+    private static final Duration RUN_TIMEOUT = Duration.ofMinutes(3);
+    private static final int JOURNAL_SEGMENT_BYTES = 8 << 20;
+    /** Bars per drained journal batch — a full day of 1m/5m/1h for every ticker fits a few. */
+    private static final int JOURNAL_BATCH_BARS = 5_000;
+    private static final Duration JOURNAL_FLUSH_INTERVAL = Duration.ofSeconds(1);
+    private static final Duration JOURNAL_MAX_BACKOFF = Duration.ofMinutes(1);
+    /** Failures, with the database up, before a journaled group is dead-lettered — about 30 s of backoff. */
+    private static final int JOURNAL_MAX_ATTEMPTS = 5;
 
-    private final WebClient webClient;
+    private final YahooGateway yahoo;
     private final SupabaseMarketDataRepository marketRepo;
     private final SupabaseHistoricalDataRepository historicalRepo;
+    private final ApplicationEventPublisher events;
+    private final Map<String, BatchStats> batchStats = new ConcurrentHashMap<>();
+    private final Map<String, RunStats> runStats = new ConcurrentHashMap<>();
+    private final BarFingerprints fingerprints = new BarFingerprints();
+    private final BoundedLoadExecutor fetches;
+    private final boolean deriveIntervals;
+    private final boolean incrementalFetch;
+    private final FetchWatermarks watermarks = new FetchWatermarks();
+    /** Null when {@code app.ingestion.journal.dir} is blank: bars go straight to the table. */
+    private final BarJournal journal;
+    private final ScheduledExecutorService journalFlusher;
+    private final JournalStats journalStats = new JournalStats();
+    private final BarJournal.Sink journalSink = new JournalSink();
+    private volatile long flushBackoffMillis;
+    private volatile long nextFlushNanos;
+    /** Per symbol, the UTC day Yahoo's 1h bars were last fetched for the days before the 1m range. */
+    private final Map<String, LocalDate> hourlyBackfilled = new ConcurrentHashMap<>();
 
-    public MarketDataIngestionService(WebClient webClient,
+    public MarketDataIngestionService(YahooGateway yahoo,
                                       SupabaseMarketDataRepository marketRepo,
-                                      SupabaseHistoricalDataRepository historicalRepo) {
-        this.webClient = webClient;
+                                      SupabaseHistoricalDataRepository historicalRepo,
+                                      ApplicationEventPublisher events,
+                                      @Value("${app.ingestion.parallelism:8}") int parallelism,
+                                      @Value("${app.ingestion.derive-intervals:true}") boolean deriveIntervals,
+                                      @Value("${app.ingestion.incremental-fetch:true}") boolean incrementalFetch,
+                                      @Value("${app.ingestion.journal.dir:}") String journalDir) {
+        this.yahoo = yahoo;
         this.marketRepo = marketRepo;
         this.historicalRepo = historicalRepo;
+        this.events = events;
+        this.fetches = new BoundedLoadExecutor(parallelism);
+        this.deriveIntervals = deriveIntervals;
+        this.incrementalFetch = incrementalFetch;
+        if (journalDir.isBlank()) {
+            this.journal = null;
+            this.journalFlusher = null;
+        } else {
+            this.journal = BarJournal.open(Path.of(journalDir), JOURNAL_SEGMENT_BYTES, JOURNAL_MAX_ATTEMPTS);
+            this.journalFlusher = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().name("bar-journal-flusher").daemon().factory());
+        }
+    }
+
+    /**
+     * Start draining the journal — whatever the last process left first —
+     * once the context is up: each drained batch publishes a
+     * {@link BarsWrittenEvent}, and the read-side listeners must exist by then.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    void startJournalFlusher() {
+        if (journal == null) return;
+        long every = JOURNAL_FLUSH_INTERVAL.toMillis();
+        journalFlusher.scheduleWithFixedDelay(this::flushJournal, every, every, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fetches.shutdown();
+        if (journal != null) {
+            journalFlusher.shutdown();
+            try {
+                journalFlusher.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            // Anything still undrained is replayed on the next start.
+            journal.close();
+        }
     }
 
     /**
      * Fetch last price + volume per ticker and upsert into {@code market_data}.
-     * One row per symbol — the snapshot is replaced in place each tick.
+     * One row per symbol — the snapshot is replaced in place each tick. The
+     * prices come from one batch quote call for all active tickers.
      *
      * @param isMarketHours when false, equity tickers (no =F suffix) are skipped.
      *                      Matches the Python gating: futures trade nearly 24/5,
@@ -60,28 +177,45 @@ public class MarketDataIngestionService {
      */
     public void ingestPrices(List<String> tickers, boolean isMarketHours) {
         LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
-        int saved = 0;
+        List<String> active = new ArrayList<>();
         for (String symbol : tickers) {
-            if (!symbol.endsWith("=F") && !isMarketHours) continue;
-            try {
-                LastTick tick = fetchLastTick(symbol);
-                if (tick.price <= 0) {
-                    logger.warn("No valid price for {}", symbol);
-                    continue;
+            if (symbol.endsWith("=F") || isMarketHours) active.add(symbol);
+        }
+        // One spark call for the whole list; a symbol it misses gets its own chart call.
+        Map<String, YahooChart> quotes = Map.of();
+        try {
+            if (!active.isEmpty()) quotes = yahoo.quotes(active);
+        } catch (Exception ex) {
+            logger.warn("Batch quote failed, fetching per ticker: {}", ex.getMessage());
+        }
+        Map<String, YahooChart> batch = quotes;
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (String symbol : active) {
+            tasks.add(() -> {
+                try {
+                    YahooChart quote = batch.get(symbol.toUpperCase());
+                    LastTick tick = quote != null ? lastTick(quote) : fetchLastTick(symbol);
+                    if (tick.price <= 0) {
+                        logger.warn("No valid price for {}", symbol);
+                        return false;
+                    }
+                    marketRepo.upsertSnapshot(symbol, tick.price, tick.volume, now);
+                    logger.info("Saved {}: ${}", symbol, tick.price);
+                    return true;
+                } catch (Exception ex) {
+                    logger.error("Error fetching {}: {}", symbol, ex.getMessage());
+                    return false;
                 }
-                marketRepo.upsertSnapshot(symbol, tick.price, tick.volume, now);
-                saved++;
-                logger.info("Saved {}: ${}", symbol, tick.price);
-            } catch (Exception ex) {
-                logger.error("Error fetching {}: {}", symbol, ex.getMessage());
-            }
+            });
         }
+        int saved = runAll("prices", tasks);
         logger.info("Market data: {}/{} tickers saved", saved, tickers.size());
     }
 
     /**
      * Fetch 1m/5m/1h bars per ticker and upsert into {@code historical_data}.
-     * Bars ≤5m run through the phantom-tick sanitizer.
+     * Bars ≤5m run through the phantom-tick sanitizer. When deriving, 5m and
+     * 1h come from the symbol's 1m fetch instead of their own calls.
      */
     public void ingestIntraday(List<String> tickers, boolean isMarketHours) {
         // Futures always; equities only during the equity session — matches Python.
@@ -94,29 +228,25 @@ public class MarketDataIngestionService {
             return;
         }
 
-        List<String[]> intervals = List.of(
-                new String[]{"1m", "1d"},
-                new String[]{"5m", "1d"},
-                new String[]{"1h", "5d"}
-        );
-
-        for (String[] iv : intervals) {
-            String interval = iv[0];
-            String range = iv[1];
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        if (deriveIntervals) {
             for (String symbol : active) {
-                try {
-                    List<OhlcBar> bars = fetchBars(symbol, interval, range, true);
-                    if (bars.isEmpty()) {
-                        logger.warn("No {} data for {}", interval, symbol);
-                        continue;
-                    }
-                    upsertBars(symbol, interval, bars);
-                    logger.info("Saved {} rows of {} data for {}", bars.size(), interval, symbol);
-                } catch (Exception ex) {
-                    logger.error("Error fetching {} for {}: {}", interval, symbol, ex.getMessage());
+                tasks.add(() -> ingestDerived(symbol));
+            }
+        } else {
+            List<String[]> intervals = List.of(
+                    new String[]{"1m", "1d"},
+                    new String[]{"5m", "1d"},
+                    new String[]{"1h", "5d"}
+            );
+            for (String[] iv : intervals) {
+                for (String symbol : active) {
+                    tasks.add(() -> ingestBars(symbol, iv[0], iv[1], true));
                 }
             }
         }
+        int saved = runAll("intraday", tasks);
+        logger.info("Intraday: {}/{} series saved", saved, tasks.size());
     }
 
     /**
@@ -124,29 +254,252 @@ public class MarketDataIngestionService {
      * day around the RTH close so the daily candle stamps as final.
      */
     public void ingestDaily(List<String> tickers) {
+        List<Callable<Boolean>> tasks = new ArrayList<>();
         for (String symbol : tickers) {
-            try {
-                List<OhlcBar> bars = fetchBars(symbol, "1d", "5d", false);
-                if (bars.isEmpty()) {
-                    logger.warn("No daily data for {}", symbol);
-                    continue;
-                }
-                upsertBars(symbol, "1d", bars);
-                logger.info("Saved daily data for {}", symbol);
-            } catch (Exception ex) {
-                logger.error("Error fetching daily for {}: {}", symbol, ex.getMessage());
-            }
+            tasks.add(() -> ingestBars(symbol, "1d", "5d", false));
         }
+        runAll("daily", tasks);
+    }
+
+    /**
+     * Per "SYMBOL interval": batches fetched, bars fetched vs. rows actually
+     * written, runs with nothing to write, and the last and cumulative
+     * statement time. Per "run prices|intraday|daily": wall-clock time of
+     * the last and slowest run, and its task and failure counts. With the
+     * journal on, a batch's rows and time are the append to the journal,
+     * and "journal" has the drained batches and bars, failed flushes, the
+     * bytes still pending, dead-lettered groups and bars and the current
+     * retry backoff.
+     */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> out = new TreeMap<>();
+        batchStats.forEach((key, s) -> out.put(key, s.snapshot()));
+        runStats.forEach((key, s) -> out.put(key, s.snapshot()));
+        if (journal != null) {
+            Map<String, Long> j = journalStats.snapshot();
+            j.putAll(journal.stats());
+            j.put("backoffMillis", flushBackoffMillis);
+            out.put("journal", j);
+        }
+        return out;
     }
 
     // --- internals ---
 
+    /** One (symbol, interval) fetch + upsert; failures stay with their series. */
+    private boolean ingestBars(String symbol, String interval, String range, boolean intraday) {
+        try {
+            if (intraday) return ingestIntradayBars(symbol, interval, range);
+            List<OhlcBar> bars = fetchBars(symbol, interval, range, false);
+            if (bars.isEmpty()) {
+                logger.warn("No {} data for {}", interval, symbol);
+                return false;
+            }
+            upsertBars(symbol, interval, bars);
+            return true;
+        } catch (Exception ex) {
+            logger.error("Error fetching {} for {}: {}", interval, symbol, ex.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * As {@link #ingestBars}, from the series' watermark when it has one.
+     * The sanitizer picks up the window with the closes earlier runs saw
+     * before it, so each bar is sanitized as a full fetch would have.
+     */
+    private boolean ingestIntradayBars(String symbol, String interval, String range) {
+        Long writeFrom = writeFrom(symbol, interval, widthSeconds(interval), range);
+        List<OhlcBar> bars = writeFrom == null
+                ? fetchBars(symbol, interval, range, true)
+                : fetchBarsSince(symbol, interval, writeFrom);
+        if (bars.isEmpty()) {
+            logger.warn("No {} data for {}", interval, symbol);
+            return false;
+        }
+        LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+        List<HistoricalBar> sanitized = sanitize(symbol, interval, bars,
+                sanitizerHistory(symbol, interval, writeFrom, bars));
+        writeBars(symbol, interval, from(sanitized, writeFrom), fetchedAt);
+        if (incrementalFetch) watermarks.advance(symbol, interval, sanitized);
+        return true;
+    }
+
+    /**
+     * One 1m fetch for (symbol): the sanitized minutes are written as-is and
+     * rolled up into 5m (midnight-aligned, like every other N-minute
+     * interval) and 1h (on the hour for futures, on the half hour for
+     * equities — Yahoo starts their hours at the 09:30 open).
+     */
+    private boolean ingestDerived(String symbol) {
+        try {
+            BarBucketing hours = BarBucketing.minutes(60, TradingSession.isFutures(symbol) ? 0 : 30);
+            // From the watermark, widened to the start of its hour so the
+            // developing 1h (and 5m) bucket is rebuilt from all its minutes.
+            Long writeFrom = writeFrom(symbol, "1m", 60, "1d");
+            if (writeFrom != null) writeFrom = hours.bucketStart(writeFrom);
+            List<OhlcBar> bars = writeFrom == null
+                    ? fetchBars(symbol, "1m", "1d", true)
+                    : fetchBarsSince(symbol, "1m", writeFrom);
+            if (bars.isEmpty()) {
+                logger.warn("No 1m data for {}", symbol);
+                return false;
+            }
+            LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+            List<HistoricalBar> minutes = sanitize(symbol, "1m", bars,
+                    sanitizerHistory(symbol, "1m", writeFrom, bars));
+            writeBars(symbol, "1m", from(minutes, writeFrom), fetchedAt);
+
+            BarSeries.Snapshot columns = BarAggregator.columnsOf(minutes);
+            writeBars(symbol, "5m", from(rollUp(columns, BarBucketing.minutes(5)), writeFrom), fetchedAt);
+            List<HistoricalBar> derivedHours = from(rollUp(columns, hours), writeFrom);
+            // A window fetch starts after the earlier days; only a full one needs them.
+            writeBars(symbol, "1h", writeFrom == null ? withEarlierHours(symbol, derivedHours) : derivedHours,
+                    fetchedAt);
+            if (incrementalFetch) watermarks.advance(symbol, "1m", minutes);
+            return true;
+        } catch (Exception ex) {
+            logger.error("Error fetching 1m for {}: {}", symbol, ex.getMessage());
+            return false;
+        }
+    }
+
+    /** Where the key's write window starts, or null for a full {@code range} fetch. */
+    private Long writeFrom(String symbol, String interval, long widthSeconds, String range) {
+        if (!incrementalFetch) return null;
+        return watermarks.writeFrom(symbol, interval, widthSeconds, rangeSeconds(range),
+                Instant.now().getEpochSecond());
+    }
+
+    /** Bars from {@code writeFrom} on; all of them for a full fetch. */
+    private static List<HistoricalBar> from(List<HistoricalBar> bars, Long writeFrom) {
+        if (writeFrom == null) return bars;
+        List<HistoricalBar> out = new ArrayList<>(bars.size());
+        for (HistoricalBar b : bars) {
+            if (BarSeries.timeKey(b.date()) >= writeFrom) out.add(b);
+        }
+        return out;
+    }
+
+    /** Closes the sanitizer starts a window fetch with; none for a full fetch. */
+    private List<Double> sanitizerHistory(String symbol, String interval, Long writeFrom, List<OhlcBar> bars) {
+        if (writeFrom == null || !SANITIZE_INTERVALS.contains(interval)) return List.of();
+        return watermarks.closesBefore(symbol, interval, writeFrom, BarSeries.timeKey(bars.get(0).timestamp),
+                SANITIZE_WINDOW);
+    }
+
+    private static long widthSeconds(String interval) {
+        return switch (interval) {
+            case "1m" -> 60;
+            case "5m" -> 300;
+            case "1h" -> 3_600;
+            default -> throw new IllegalArgumentException("Not an intraday interval: " + interval);
+        };
+    }
+
+    /** {@code 1d}, {@code 5d}, … in seconds. */
+    private static long rangeSeconds(String range) {
+        return Long.parseLong(range.substring(0, range.length() - 1)) * BarBucketing.SECONDS_PER_DAY;
+    }
+
+    /**
+     * {@code minutes} rolled up by {@code bucketing}. A leading bucket that
+     * opened before the first minute is dropped rather than written short.
+     */
+    private static List<HistoricalBar> rollUp(BarSeries.Snapshot minutes, BarBucketing bucketing) {
+        BarSeries.Snapshot rolled = BarAggregator.aggregate(minutes, 0, bucketing);
+        int from = rolled.size() > 0 && rolled.time()[0] < minutes.time()[0] ? 1 : 0;
+        return rolled.toBars(from);
+    }
+
+    /**
+     * Prepend Yahoo's 1h bars from before the first derived hour, once per
+     * symbol and UTC day — those days are closed, so later runs only need
+     * the derived hours. Falls back to the derived hours alone if the call
+     * fails, and tries again next run.
+     */
+    private List<HistoricalBar> withEarlierHours(String symbol, List<HistoricalBar> derived) {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        if (today.equals(hourlyBackfilled.get(symbol))) return derived;
+        try {
+            LocalDateTime firstDerived = derived.isEmpty() ? LocalDateTime.MAX : derived.get(0).date();
+            List<HistoricalBar> out = new ArrayList<>();
+            for (OhlcBar bar : fetchBars(symbol, "1h", "5d", true)) {
+                if (!bar.timestamp.isBefore(firstDerived)) break;
+                out.add(new HistoricalBar(bar.timestamp, round2(bar.open), round2(bar.high),
+                        round2(bar.low), round2(bar.close), bar.volume));
+            }
+            out.addAll(derived);
+            hourlyBackfilled.put(symbol, today);
+            return out;
+        } catch (Exception ex) {
+            logger.warn("Could not fetch earlier 1h bars for {}: {}", symbol, ex.getMessage());
+            return derived;
+        }
+    }
+
+    /**
+     * Run {@code tasks} concurrently — each Yahoo call blocks its own
+     * virtual thread, at most {@code app.ingestion.parallelism} at once —
+     * and wait for all of them, bounded by {@link #RUN_TIMEOUT} so a run
+     * never spills into the next 5-minute tick.
+     *
+     * @return how many tasks succeeded
+     */
+    private int runAll(String phase, List<Callable<Boolean>> tasks) {
+        long started = System.nanoTime();
+        List<Future<Boolean>> pending = new ArrayList<>(tasks.size());
+        for (Callable<Boolean> task : tasks) pending.add(fetches.submit(task));
+
+        long deadline = started + RUN_TIMEOUT.toNanos();
+        int succeeded = 0;
+        for (Future<Boolean> f : pending) {
+            try {
+                if (f.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) succeeded++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.forEach(p -> p.cancel(true));
+                break;
+            } catch (TimeoutException e) {
+                f.cancel(true);
+            } catch (ExecutionException e) {
+                logger.error("Ingestion task failed: {}", e.getCause().getMessage());
+            }
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        runStats.computeIfAbsent("run " + phase, k -> new RunStats()).record(tasks.size(), succeeded, millis);
+        logger.info("Ingestion {}: {} tasks in {} ms ({} failed)", phase, tasks.size(), millis,
+                tasks.size() - succeeded);
+        return succeeded;
+    }
+
     private void upsertBars(String symbol, String interval, List<OhlcBar> bars) {
         LocalDateTime fetchedAt = LocalDateTime.now(ZoneOffset.UTC);
+        writeBars(symbol, interval, sanitize(symbol, interval, bars, List.of()), fetchedAt);
+    }
+
+    /**
+     * Rounded rows for {@code bars}, run through {@link PriceSanitizer} for
+     * intervals ≤5m. {@code history} is the closes before the first bar, up
+     * to {@link #SANITIZE_WINDOW} of them; the look-back restarts at each
+     * {@link TradingSession}, so a window that spans the break sanitizes
+     * like the full fetch of the new session does.
+     */
+    static List<HistoricalBar> sanitize(String symbol, String interval, List<OhlcBar> bars, List<Double> history) {
         boolean shouldSanitize = SANITIZE_INTERVALS.contains(interval);
-        List<Double> recentCloses = new ArrayList<>();
-        Double prevClose = null;
+        List<Double> recentCloses = new ArrayList<>(history);
+        List<HistoricalBar> sanitized = new ArrayList<>(bars.size());
+        Double prevClose = history.isEmpty() ? null : history.get(history.size() - 1);
+        LocalDate session = null;
         for (OhlcBar bar : bars) {
+            if (shouldSanitize) {
+                LocalDate d = TradingSession.dateOf(symbol, BarSeries.timeKey(bar.timestamp));
+                if (session != null && !d.equals(session)) {
+                    recentCloses.clear();
+                    prevClose = null;
+                }
+                session = d;
+            }
             PriceSanitizer.Bar clean = shouldSanitize
                     ? PriceSanitizer.sanitize(
                             new PriceSanitizer.Bar(bar.open, bar.high, bar.low, bar.close),
@@ -159,16 +512,13 @@ public class MarketDataIngestionService {
                         bar.open, clean.open, bar.high, clean.high, bar.low, clean.low);
             }
 
-            historicalRepo.upsertBar(
-                    symbol,
+            sanitized.add(new HistoricalBar(
                     bar.timestamp,
-                    interval,
                     round2(clean.open),
                     round2(clean.high),
                     round2(clean.low),
                     round2(clean.close),
-                    bar.volume,
-                    fetchedAt);
+                    bar.volume));
 
             prevClose = clean.close;
             recentCloses.add(clean.close);
@@ -176,126 +526,243 @@ public class MarketDataIngestionService {
                 recentCloses.remove(0);
             }
         }
+        return sanitized;
+    }
+
+    private void writeBars(String symbol, String interval, List<HistoricalBar> sanitized, LocalDateTime fetchedAt) {
+        if (sanitized.isEmpty()) return;
+        // The sanitizer needs the whole window; the table only needs what moved.
+        List<HistoricalBar> changed = fingerprints.changed(symbol, interval, sanitized,
+                from -> seedFingerprints(symbol, interval, from));
+        BatchStats stats = batchStats.computeIfAbsent(symbol + " " + interval, k -> new BatchStats());
+        if (changed.isEmpty()) {
+            stats.recordUnchanged(sanitized.size());
+            logger.info("No changed {} rows for {} ({} fetched)", interval, symbol, sanitized.size());
+            return;
+        }
+
+        long started = System.nanoTime();
+        if (journal != null) {
+            // Durable once appended; the flusher writes it and publishes the
+            // event, and forgets the fingerprints again if it dead-letters it.
+            journal.append(symbol, interval, changed, fetchedAt);
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            fingerprints.record(symbol, interval, changed, BarFingerprints.earliest(sanitized));
+            stats.record(sanitized.size(), changed.size(), millis);
+            logger.info("Journaled {}/{} {} rows for {} in {} ms, pending flush", changed.size(), sanitized.size(),
+                    interval, symbol, millis);
+            return;
+        }
+        int rows = historicalRepo.upsertBars(symbol, interval, changed, fetchedAt);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        fingerprints.record(symbol, interval, changed, BarFingerprints.earliest(sanitized));
+        stats.record(sanitized.size(), rows, millis);
+        logger.info("Upserted {}/{} {} rows for {} in {} ms", rows, sanitized.size(), interval, symbol, millis);
+
+        // Listeners (bar store, response caches) patch themselves from the
+        // rows just written instead of waiting for a TTL to expire.
+        events.publishEvent(BarsWrittenEvent.of(symbol, interval, changed, fetchedAt));
+    }
+
+    /**
+     * Drain the journal until it's empty or a write fails. After a failure
+     * the next attempt waits 1 s, doubling to {@link #JOURNAL_MAX_BACKOFF},
+     * and the batch stays in the journal until it goes through or its
+     * failing group is dead-lettered.
+     */
+    private void flushJournal() {
+        if (System.nanoTime() < nextFlushNanos) return;
+        try {
+            int drained;
+            do {
+                long started = System.nanoTime();
+                drained = journal.drain(JOURNAL_BATCH_BARS, journalSink);
+                if (drained > 0) journalStats.recordBatch(drained, (System.nanoTime() - started) / 1_000_000);
+            } while (drained > 0);
+            if (flushBackoffMillis > 0) logger.info("Journal flush recovered");
+            flushBackoffMillis = 0;
+        } catch (Exception ex) {
+            flushBackoffMillis = flushBackoffMillis == 0 ? 1_000
+                    : Math.min(flushBackoffMillis * 2, JOURNAL_MAX_BACKOFF.toMillis());
+            nextFlushNanos = System.nanoTime() + flushBackoffMillis * 1_000_000;
+            journalStats.failed.increment();
+            logger.warn("Journal flush failed, retrying in {} ms: {}", flushBackoffMillis, ex.getMessage());
+        }
+    }
+
+    /** What the table already holds for the batch window; empty (write everything) if it can't be read. */
+    private List<HistoricalBar> seedFingerprints(String symbol, String interval, LocalDateTime from) {
+        try {
+            return historicalRepo.findBarsBySymbolAndIntervalSince(symbol, interval, from);
+        } catch (Exception ex) {
+            logger.warn("Could not seed {} {} fingerprints: {}", symbol, interval, ex.getMessage());
+            return List.of();
+        }
     }
 
     // --- Yahoo fetch ---
 
     private LastTick fetchLastTick(String symbol) {
-        Map<String, Object> body = chartCall(symbol, "1d", "1d");
-        Map<String, Object> meta = unwrap(body, "chart", "result", "meta");
-        if (meta == null) return new LastTick(-1, null);
-        Object price = meta.get("regularMarketPrice");
-        Object volume = meta.get("regularMarketVolume");
-        return new LastTick(
-                price instanceof Number n ? n.doubleValue() : -1,
-                volume instanceof Number v ? v.longValue() : null);
+        return lastTick(yahoo.chart(symbol, "1d", "1d"));
+    }
+
+    private static LastTick lastTick(YahooChart chart) {
+        double price = chart.regularMarketPrice();
+        long volume = chart.regularMarketVolume();
+        return new LastTick(Double.isNaN(price) ? -1 : price, volume == BarSeries.NO_VOLUME ? null : volume);
     }
 
     private List<OhlcBar> fetchBars(String symbol, String interval, String range, boolean intraday) {
-        Map<String, Object> body = chartCall(symbol, interval, range);
-        return parseBars(body, intraday);
-    }
-
-    private Map<String, Object> chartCall(String symbol, String interval, String range) {
-        return webClient.get()
-                .uri(uri -> uri
-                        .path("/v8/finance/chart/{symbol}")
-                        .queryParam("interval", interval)
-                        .queryParam("range", range)
-                        .build(symbol))
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .timeout(FETCH_TIMEOUT)
-                .block();
-    }
-
-    private static List<OhlcBar> parseBars(Map<String, Object> body, boolean intraday) {
-        List<OhlcBar> bars = new ArrayList<>();
-        if (body == null) return bars;
-        Object chart = body.get("chart");
-        if (!(chart instanceof Map<?, ?> cm)) return bars;
-        Object resultList = cm.get("result");
-        if (!(resultList instanceof List<?> results) || results.isEmpty()) return bars;
-        Object first = results.get(0);
-        if (!(first instanceof Map<?, ?> firstMap)) return bars;
-
-        Object tsRaw = firstMap.get("timestamp");
-        if (!(tsRaw instanceof List<?> timestamps)) return bars;
-
-        Object indicators = firstMap.get("indicators");
-        if (!(indicators instanceof Map<?, ?> indMap)) return bars;
-        Object quoteList = indMap.get("quote");
-        if (!(quoteList instanceof List<?> qList) || qList.isEmpty()) return bars;
-        Object quoteFirst = qList.get(0);
-        if (!(quoteFirst instanceof Map<?, ?> quote)) return bars;
-
-        List<?> opens = asList(quote.get("open"));
-        List<?> highs = asList(quote.get("high"));
-        List<?> lows = asList(quote.get("low"));
-        List<?> closes = asList(quote.get("close"));
-        List<?> volumes = asList(quote.get("volume"));
-
-        // Yahoo can return nulls for empty buckets (e.g. pre-market gaps in
-        // intraday bars where no trades printed). Skip those — the Python
-        // code does the same via pd.DataFrame iteration which already drops
-        // NaN rows for numeric coercion in our pipeline.
-        Set<Long> seen = new LinkedHashSet<>();
-        for (int i = 0; i < timestamps.size(); i++) {
-            Long ts = readLong(timestamps.get(i));
-            if (ts == null) continue;
-            Double open = readDouble(get(opens, i));
-            Double high = readDouble(get(highs, i));
-            Double low = readDouble(get(lows, i));
-            Double close = readDouble(get(closes, i));
-            Long volume = readLong(get(volumes, i));
-            if (open == null || high == null || low == null || close == null) continue;
+        return parseBars(yahoo.chart(symbol, interval, range), intraday);
+    }
+
+    /** Intraday bars from {@code period1} (epoch seconds) to now. */
+    private List<OhlcBar> fetchBarsSince(String symbol, String interval, long period1) {
+        return parseBars(yahoo.chart(symbol, interval, period1, Instant.now().getEpochSecond()), true);
+    }
+
+    /**
+     * Complete rows of {@code chart} in Yahoo's order, first occurrence of a
+     * timestamp winning. Yahoo can return nulls for empty buckets (e.g.
+     * pre-market gaps in intraday bars where no trades printed); those are
+     * skipped, as the Python writer's NaN coercion drops them.
+     */
+    static List<OhlcBar> parseBars(YahooChart chart, boolean intraday) {
+        List<OhlcBar> bars = new ArrayList<>(chart.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < chart.size(); i++) {
+            if (!chart.complete(i)) continue;
+            long ts = chart.time(i);
             if (!seen.add(ts)) continue;
 
             LocalDateTime barTime = intraday
                     ? LocalDateTime.ofInstant(Instant.ofEpochSecond(ts), ZoneOffset.UTC)
                     : LocalDateTime.ofInstant(Instant.ofEpochSecond(ts), ZoneOffset.UTC)
                             .toLocalDate().atStartOfDay();
-            bars.add(new OhlcBar(barTime, open, high, low, close, volume == null ? 0 : volume));
+            bars.add(new OhlcBar(barTime, chart.open(i), chart.high(i), chart.low(i), chart.close(i),
+                    Math.max(0L, chart.volume(i))));
         }
         return bars;
     }
 
-    private static Map<String, Object> unwrap(Map<String, Object> body, String... path) {
-        Object cur = body;
-        for (String key : path) {
-            if (cur instanceof Map<?, ?> m) {
-                cur = ((Map<?, ?>) m).get(key);
-            } else if (cur instanceof List<?> list && !list.isEmpty()) {
-                cur = list.get(0);
-                if (cur instanceof Map<?, ?> m) cur = ((Map<?, ?>) m).get(key);
-                else return null;
-            } else {
-                return null;
-            }
+    private static double round2(double v) { return Math.round(v * 100.0) / 100.0; }
+
+    record OhlcBar(LocalDateTime timestamp, double open, double high,
+                   double low, double close, long volume) {}
+    private record LastTick(double price, Long volume) {}
+
+    private static final class JournalStats {
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder bars = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private volatile long lastMillis;
+
+        void recordBatch(int drained, long millis) {
+            batches.increment();
+            bars.add(drained);
+            lastMillis = millis;
         }
-        if (cur instanceof Map<?, ?> m) {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> out = (Map<String, Object>) m;
-            return out;
+
+        Map<String, Long> snapshot() {
+            Map<String, Long> m = new LinkedHashMap<>();
+            m.put("batches", batches.sum());
+            m.put("bars", bars.sum());
+            m.put("failed", failed.sum());
+            m.put("lastMillis", lastMillis);
+            return m;
         }
-        return null;
     }
 
-    private static List<?> asList(Object o) { return o instanceof List<?> l ? l : List.of(); }
-    private static Object get(List<?> l, int i) { return i < l.size() ? l.get(i) : null; }
-    private static Double readDouble(Object v) {
-        if (!(v instanceof Number n)) return null;
-        double d = n.doubleValue();
-        return Double.isNaN(d) || Double.isInfinite(d) ? null : d;
+    /** Upserts drained groups; only database-side failures are retried indefinitely. */
+    private final class JournalSink implements BarJournal.Sink {
+        @Override
+        public void write(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime fetchedAt) {
+            long started = System.nanoTime();
+            int rows = historicalRepo.upsertBars(symbol, interval, bars, fetchedAt);
+            logger.info("Upserted {} journaled {} rows for {} in {} ms", rows, interval, symbol,
+                    (System.nanoTime() - started) / 1_000_000);
+            // Listeners (bar store, response caches) patch themselves from the
+            // rows just written instead of waiting for a TTL to expire.
+            events.publishEvent(BarsWrittenEvent.of(symbol, interval, bars, fetchedAt));
+        }
+
+        /** The database being unreachable or busy says nothing about the rows. */
+        @Override
+        public boolean retryable(RuntimeException ex) {
+            return ex instanceof TransientDataAccessException
+                    || ex instanceof RecoverableDataAccessException
+                    || ex instanceof DataAccessResourceFailureException;
+        }
+
+        /** The rows never reached the table: let the next fetch journal them again. */
+        @Override
+        public void deadLettered(String symbol, String interval, List<HistoricalBar> bars) {
+            fingerprints.forget(symbol, interval, bars);
+        }
     }
-    private static Long readLong(Object v) {
-        if (!(v instanceof Number n)) return null;
-        double d = n.doubleValue();
-        return Double.isNaN(d) || Double.isInfinite(d) ? null : (long) d;
+
+    private static final class RunStats {
+        private final LongAdder runs = new LongAdder();
+        private volatile long lastTasks;
+        private volatile long lastFailed;
+        private volatile long lastMillis;
+        private volatile long maxMillis;
+
+        synchronized void record(int tasks, int succeeded, long millis) {
+            runs.increment();
+            lastTasks = tasks;
+            lastFailed = tasks - succeeded;
+            lastMillis = millis;
+            maxMillis = Math.max(maxMillis, millis);
+        }
+
+        Map<String, Long> snapshot() {
+            Map<String, Long> m = new LinkedHashMap<>();
+            m.put("runs", runs.sum());
+            m.put("lastTasks", lastTasks);
+            m.put("lastFailed", lastFailed);
+            m.put("lastMillis", lastMillis);
+            m.put("maxMillis", maxMillis);
+            return m;
+        }
     }
-    private static double round2(double v) { return Math.round(v * 100.0) / 100.0; }
 
-    private record OhlcBar(LocalDateTime timestamp, double open, double high,
-                           double low, double close, long volume) {}
-    private record LastTick(double price, Long volume) {}
+    private static final class BatchStats {
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder unchanged = new LongAdder();
+        private final LongAdder fetched = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private volatile long lastRows;
+        private volatile long lastMillis;
+
+        void record(int fetchedRows, int written, long millis) {
+            batches.increment();
+            fetched.add(fetchedRows);
+            rows.add(written);
+            totalMillis.add(millis);
+            lastRows = written;
+            lastMillis = millis;
+        }
+
+        void recordUnchanged(int fetchedRows) {
+            batches.increment();
+            unchanged.increment();
+            fetched.add(fetchedRows);
+            lastRows = 0;
+            lastMillis = 0;
+        }
+
+        Map<String, Long> snapshot() {
+            Map<String, Long> m = new LinkedHashMap<>();
+            m.put("batches", batches.sum());
+            m.put("unchanged", unchanged.sum());
+            m.put("fetched", fetched.sum());
+            m.put("rows", rows.sum());
+            m.put("lastRows", lastRows);
+            m.put("lastMillis", lastMillis);
+            m.put("totalMillis", totalMillis.sum());
+            return m;
+        }
+    }
 }
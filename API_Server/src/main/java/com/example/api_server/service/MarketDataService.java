@@ -16,6 +16,7 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class MarketDataService {
@@ -40,6 +41,8 @@ public class MarketDataService {
         response.setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
 
         List<TickerData> tickerDataList = new ArrayList<>();
+        // One batch quote call for the whole list rather than a live call per ticker.
+        Map<String, TickerData> live = liveMarketDataService.getLivePrices(tickers);
 
         for (String symbol : tickers) {
             TickerData tickerData = new TickerData();
@@ -52,7 +55,7 @@ public class MarketDataService {
                 logger.warn("DB lookup failed for {}: {} — falling back to live tick", symbol, e.getMessage());
             }
 
-            TickerData liveTick = fetchLiveTick(symbol);
+            TickerData liveTick = live.get(symbol.toUpperCase());
             Double livePrice = liveTick == null ? null : liveTick.getPrice();
             if (livePrice != null) {
                 tickerData.setPrice(livePrice);
@@ -76,19 +79,6 @@ public class MarketDataService {
         return response;
     }
 
-    private TickerData fetchLiveTick(String symbol) {
-        try {
-            MarketDataResponse live = liveMarketDataService.getLivePrice(symbol);
-            if (live == null || live.getTickers() == null || live.getTickers().isEmpty()) {
-                return null;
-            }
-            return live.getTickers().get(0);
-        } catch (Exception ex) {
-            logger.warn("Live fallback failed for {}: {}", symbol, ex.getMessage());
-            return null;
-        }
-    }
-
     public MarketDataResponse getMarketDataFallback(List<String> tickers, Exception ex) {
         logger.warn("Circuit breaker fallback triggered for tickers: {}. Reason: {}", tickers, ex.getMessage());
 
@@ -0,0 +1,32 @@
+package com.example.api_server.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A response body serialized once, kept alongside its gzip and columnar
+ * ({@link ColumnarBarsCodec}) encodings. Serving a cached body is a byte
+ * copy instead of Jackson plus per-request deflate work — the controller
+ * picks whichever encoding the client accepts.
+ */
+public record ResponseBytes(byte[] json, byte[] gzip, byte[] columns) {
+
+    public static ResponseBytes of(byte[] json, byte[] columns) {
+        // Compressed once per cache fill, so spend a little more CPU than
+        // the per-request default for a smaller body on every hit.
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, json.length / 5));
+        try (GZIPOutputStream gz = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gz.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ResponseBytes(json, out.toByteArray(), columns);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.api_server.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Per-key request coalescing. While a load for a key is running, every
+ * other caller asking for the same key waits for that load's result instead
+ * of starting its own — so a popular symbol going cold costs one Supabase
+ * query, not one per concurrent viewer fighting over a 5-connection pool.
+ *
+ * Counts are kept per group: {@code loads} is how many loads actually ran,
+ * {@code coalesced} how many callers were served by someone else's load.
+ */
+@Component
+public class SingleFlight {
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counters> counters = new ConcurrentHashMap<>();
+
+    private static final class Counters {
+        final LongAdder loads = new LongAdder();
+        final LongAdder coalesced = new LongAdder();
+    }
+
+    /**
+     * Run {@code loader} for {@code key}, or wait for the run already in
+     * progress. The leader's exception, if any, is rethrown to every waiter.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T run(String group, Object key, Supplier<T> loader) {
+        String flightKey = group + "|" + key;
+        Counters c = counters.computeIfAbsent(group, g -> new Counters());
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(flightKey, mine);
+        if (leader != null) {
+            c.coalesced.increment();
+            return (T) await(leader);
+        }
+
+        c.loads.increment();
+        try {
+            T value = loader.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(flightKey, mine);
+        }
+    }
+
+    /** Group → {loads, coalesced}, sorted by group. */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> out = new TreeMap<>();
+        counters.forEach((group, c) -> {
+            Map<String, Long> m = new LinkedHashMap<>();
+            m.put("loads", c.loads.sum());
+            m.put("coalesced", c.coalesced.sum());
+            out.put(group, m);
+        });
+        return out;
+    }
+
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) throw re;
+            if (cause instanceof Error err) throw err;
+            throw e;
+        }
+    }
+}
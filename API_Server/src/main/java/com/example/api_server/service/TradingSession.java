@@ -0,0 +1,91 @@
+package com.example.api_server.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * One trading day's intraday window as {@link BarSeries} time keys
+ * ({@code [start, end)}). Intraday rows are stored as naive UTC, so the ET
+ * session hours are converted per date and follow daylight saving.
+ *
+ * Futures ({@code =F}) use the CME Globex day: 18:00 ET the evening before
+ * to 17:00 ET. Everything else uses the 09:30–16:00 ET regular session.
+ */
+record TradingSession(LocalDate date, long start, long end) {
+
+    private static final ZoneId ET = ZoneId.of("America/New_York");
+    private static final LocalTime GLOBEX_OPEN = LocalTime.of(18, 0);
+    private static final LocalTime GLOBEX_CLOSE = LocalTime.of(17, 0);
+    private static final LocalTime EQUITY_OPEN = LocalTime.of(9, 30);
+    private static final LocalTime EQUITY_CLOSE = LocalTime.of(16, 0);
+
+    static boolean isFutures(String symbol) {
+        return symbol.endsWith("=F");
+    }
+
+    static TradingSession of(String symbol, LocalDate date) {
+        if (isFutures(symbol)) {
+            return new TradingSession(date, key(date.minusDays(1).atTime(GLOBEX_OPEN)), key(date.atTime(GLOBEX_CLOSE)));
+        }
+        return new TradingSession(date, key(date.atTime(EQUITY_OPEN)), key(date.atTime(EQUITY_CLOSE)));
+    }
+
+    /** The trading date a bar at {@code timeKey} belongs to (it may fall outside that session's hours). */
+    static LocalDate dateOf(String symbol, long timeKey) {
+        LocalDateTime et = BarSeries.dateOf(timeKey).atZone(ZoneOffset.UTC).withZoneSameInstant(ET).toLocalDateTime();
+        if (isFutures(symbol) && !et.toLocalTime().isBefore(GLOBEX_OPEN)) {
+            return et.toLocalDate().plusDays(1);
+        }
+        return et.toLocalDate();
+    }
+
+    /**
+     * Time key of the latest session open at or before {@code timeKey}:
+     * 18:00 ET for futures, 09:30 ET otherwise. Every calendar day counts,
+     * so a weekend bar belongs to the previous weekday's (or a Saturday's)
+     * open.
+     */
+    static long openAtOrBefore(String symbol, long timeKey) {
+        return key(openDate(symbol, timeKey).atTime(openTime(symbol)));
+    }
+
+    /** Time key of the first session open after {@code timeKey}. */
+    static long openAfter(String symbol, long timeKey) {
+        return key(openDate(symbol, timeKey).plusDays(1).atTime(openTime(symbol)));
+    }
+
+    /**
+     * Whether {@code symbol}'s market is trading at {@code timeKey}, or
+     * closed less than {@code graceSeconds} ago. Weekends are closed;
+     * holidays are not known.
+     */
+    static boolean isLive(String symbol, long timeKey, long graceSeconds) {
+        LocalDate date = dateOf(symbol, timeKey);
+        if (date.getDayOfWeek().getValue() >= 6) return false;
+        TradingSession session = of(symbol, date);
+        return timeKey >= session.start && timeKey < session.end + graceSeconds;
+    }
+
+    /** Rows of {@code series} inside the session. */
+    BarSeries.View slice(BarSeries.View series) {
+        BarSeries.View from = series.atOrAfter(start);
+        int to = from.columns().indexAtOrAfter(end);
+        return new BarSeries.View(from.columns(), from.from(), Math.max(from.from(), Math.min(to, from.to())));
+    }
+
+    private static LocalDate openDate(String symbol, long timeKey) {
+        LocalDateTime et = BarSeries.dateOf(timeKey).atZone(ZoneOffset.UTC).withZoneSameInstant(ET).toLocalDateTime();
+        return et.toLocalTime().isBefore(openTime(symbol)) ? et.toLocalDate().minusDays(1) : et.toLocalDate();
+    }
+
+    private static LocalTime openTime(String symbol) {
+        return isFutures(symbol) ? GLOBEX_OPEN : EQUITY_OPEN;
+    }
+
+    private static long key(LocalDateTime et) {
+        return BarSeries.timeKey(et.atZone(ET).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.TrendState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The trend state for symbols × timeframes in one call — the grid
+ * {@code TrendLogicTable} shows. Each cell is
+ * {@link IndicatorService#latestTrend} over the timeframe's interval, run
+ * concurrently through the {@link BoundedLoadExecutor}; warm cells only fold
+ * the bars that arrived since the last scan. A cell that failed keeps its
+ * coordinates and carries {@code error} instead of a state.
+ */
+@Service
+public class TrendScanService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrendScanService.class);
+
+    public static final int MAX_SYMBOLS = 20;
+
+    /** label → {interval, period}; periods give the slow EMA 200+ bars to warm up on. */
+    public static final Map<String, String[]> TIMEFRAMES = Map.of(
+            "M15", new String[]{"15m", "3mo"},
+            "M30", new String[]{"30m", "3mo"},
+            "H1", new String[]{"1h", "1y"},
+            "H4", new String[]{"4h", "1y"},
+            "D", new String[]{"1d", "2y"},
+            "W", new String[]{"1wk", "max"});
+
+    private static final List<String> DEFAULT_ORDER = List.of("M15", "M30", "H1", "H4", "D", "W");
+
+    private final IndicatorService indicatorService;
+    private final BoundedLoadExecutor loads;
+
+    public TrendScanService(IndicatorService indicatorService, BoundedLoadExecutor loads) {
+        this.indicatorService = indicatorService;
+        this.loads = loads;
+    }
+
+    /**
+     * One entry per (symbol, timeframe), symbols outermost, both in request
+     * order. An empty {@code timeframes} means all of them.
+     *
+     * @throws IllegalArgumentException for no symbols, too many, or an unknown timeframe
+     */
+    public List<TrendState> scan(List<String> symbols, List<String> timeframes, IndicatorSpec spec) {
+        Set<String> syms = new LinkedHashSet<>();
+        for (String s : symbols) {
+            if (s != null && !s.isBlank()) syms.add(s.trim().toUpperCase());
+        }
+        if (syms.isEmpty()) {
+            throw new IllegalArgumentException("At least one symbol is required");
+        }
+        if (syms.size() > MAX_SYMBOLS) {
+            throw new IllegalArgumentException("Scan is limited to " + MAX_SYMBOLS + " symbols");
+        }
+        Set<String> labels = new LinkedHashSet<>();
+        for (String tf : timeframes.isEmpty() ? DEFAULT_ORDER : timeframes) {
+            String label = tf.trim().toUpperCase();
+            if (!TIMEFRAMES.containsKey(label)) {
+                throw new IllegalArgumentException(
+                        "Unknown timeframe '" + tf + "' (expected one of " + String.join(", ", DEFAULT_ORDER) + ")");
+            }
+            labels.add(label);
+        }
+
+        List<TrendState> cells = new ArrayList<>(syms.size() * labels.size());
+        List<Future<TrendState>> pending = new ArrayList<>(syms.size() * labels.size());
+        for (String symbol : syms) {
+            for (String label : labels) {
+                String[] tf = TIMEFRAMES.get(label);
+                cells.add(new TrendState(symbol, label, tf[0]));
+                pending.add(loads.submit(() -> indicatorService.latestTrend(symbol, label, tf[1], tf[0], spec)));
+            }
+        }
+        List<TrendState> out = new ArrayList<>(cells.size());
+        for (int i = 0; i < cells.size(); i++) {
+            out.add(await(pending.get(i), cells.get(i)));
+        }
+        return out;
+    }
+
+    /** Same failure handling as {@link HistoricalBatchService}: cancel on timeout, log the cause, send its kind. */
+    private static TrendState await(Future<TrendState> scan, TrendState cell) {
+        try {
+            return scan.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            scan.cancel(true);
+            Thread.currentThread().interrupt();
+            cell.setError("interrupted");
+        } catch (TimeoutException e) {
+            scan.cancel(true);
+            logger.warn("Trend scan of {} {} timed out", cell.getSymbol(), cell.getTimeframe());
+            cell.setError("timeout");
+        } catch (Exception e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            logger.warn("Trend scan of {} {} failed", cell.getSymbol(), cell.getTimeframe(), cause);
+            cell.setError("scan failed");
+        }
+        return cell;
+    }
+}
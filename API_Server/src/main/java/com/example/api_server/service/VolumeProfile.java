@@ -0,0 +1,352 @@
+package com.example.api_server.service;
+
+import java.util.Arrays;
+
+/**
+ * Port of {@code functions/shared/volume_profile.py}: each 1m bar's volume
+ * is spread over the tick grid with the dynamic body/wick weighting, bars
+ * wider than {@code extremeThreshold} × Wilder ATR fall back to a uniform
+ * spread, and the result is Gaussian-smoothed on request.
+ *
+ * The raw profile is a {@code double[]} histogram indexed by tick number
+ * ({@code round(price / tickSize)}), grown at either end as the session's
+ * range widens, and the ATR is one running value — so a session is folded
+ * in one pass and a new bar costs O(its range in ticks). Every step follows
+ * the Python's operation order (including pandas' {@code ewm} update), so
+ * the output matches it to rounding.
+ *
+ * Like {@link IndicatorSeries}, {@link #advance} keeps the last
+ * {@link #REWIND} bars with the histogram cells they overwrote and rewinds
+ * over revised developing bars instead of refolding the session.
+ *
+ * Not thread-safe; {@link VolumeProfileService} holds the instance's monitor.
+ */
+final class VolumeProfile {
+
+    static final int REWIND = 16;
+
+    static final double DEFAULT_BODY_WEIGHT = 0.7;
+    static final double DEFAULT_EXTREME_THRESHOLD = 3.0;
+    static final int DEFAULT_ATR_PERIOD = 14;
+    static final double DEFAULT_SIGMA = 1.5;
+
+    private final double tickSize;
+    private final double bodyWeightBase;
+    private final double extremeThreshold;
+    private final double alpha;
+    private final double sigma;
+
+    // Histogram: cell i holds the tick index base + i; [lo, hi] is the
+    // touched range (lo > hi while empty).
+    private double[] raw = new double[0];
+    private long base;
+    private long lo = Long.MAX_VALUE;
+    private long hi = Long.MIN_VALUE;
+
+    // Wilder ATR over every bar folded, as pandas' ewm(adjust=False).
+    private double atr = Double.NaN;
+    private double prevClose = Double.NaN;
+
+    private int size;
+    private long firstTime = Long.MIN_VALUE;
+    private long dirtyFrom = BarSeries.NO_CHANGE;
+
+    // Ring over the last REWIND rows: the row itself, and the state and
+    // histogram cells it replaced.
+    private final Undo[] ring = new Undo[REWIND];
+
+    VolumeProfile(double tickSize) {
+        this(tickSize, DEFAULT_BODY_WEIGHT, DEFAULT_EXTREME_THRESHOLD, DEFAULT_ATR_PERIOD, DEFAULT_SIGMA);
+    }
+
+    VolumeProfile(double tickSize, double bodyWeightBase, double extremeThreshold, int atrPeriod, double sigma) {
+        if (!(tickSize > 0)) throw new IllegalArgumentException("tickSize must be positive");
+        if (bodyWeightBase < 0.5 || bodyWeightBase > 0.8) {
+            throw new IllegalArgumentException("bodyWeightBase must be in [0.5, 0.8]");
+        }
+        if (atrPeriod < 1) throw new IllegalArgumentException("atrPeriod must be >= 1");
+        this.tickSize = tickSize;
+        this.bodyWeightBase = bodyWeightBase;
+        this.extremeThreshold = extremeThreshold;
+        this.alpha = 1.0 / atrPeriod;
+        this.sigma = sigma;
+    }
+
+    double tickSize() { return tickSize; }
+
+    /** Bars folded so far. */
+    int size() { return size; }
+
+    boolean isEmpty() { return lo > hi; }
+
+    /** Tick index of the lowest price with volume. */
+    long lowTick() { return lo; }
+
+    /** Tick index of the highest price with volume. */
+    long highTick() { return hi; }
+
+    /** Grid price of tick index {@code tick}, rounded like the Python keys. */
+    double price(long tick) {
+        return round8(tick * tickSize);
+    }
+
+    /** Raw profile over {@code [lowTick, highTick]}; zero where no volume landed. */
+    double[] raw() {
+        if (isEmpty()) return new double[0];
+        return Arrays.copyOfRange(raw, (int) (lo - base), (int) (hi - base) + 1);
+    }
+
+    /**
+     * The raw profile convolved with a normalized Gaussian of {@code sigma}
+     * ticks (±3σ), edge-padded so mass at the extremes isn't attenuated.
+     */
+    double[] smoothed() {
+        double[] grid = raw();
+        int n = grid.length;
+        if (n <= 1 || sigma <= 0) return grid;
+
+        int half = Math.max(1, (int) Math.ceil(3.0 * sigma));
+        double[] kernel = new double[2 * half + 1];
+        double sum = 0;
+        for (int j = 0; j < kernel.length; j++) {
+            double x = (j - half) / sigma;
+            kernel[j] = Math.exp(-0.5 * x * x);
+            sum += kernel[j];
+        }
+        for (int j = 0; j < kernel.length; j++) kernel[j] /= sum;
+
+        double[] out = new double[n];
+        for (int i = 0; i < n; i++) {
+            double acc = 0;
+            for (int j = 0; j < kernel.length; j++) {
+                int src = Math.min(n - 1, Math.max(0, i + j - half));
+                acc += grid[src] * kernel[j];
+            }
+            out[i] = acc;
+        }
+        return out;
+    }
+
+    /** Bars at or after {@code timeKey} changed in a way the tail check might not see. */
+    void invalidateFrom(long timeKey) {
+        dirtyFrom = Math.min(dirtyFrom, timeKey);
+    }
+
+    /** Bring the profile up to date with {@code bars} (the session's rows so far). */
+    void advance(BarSeries.View bars) {
+        BarSeries.Snapshot in = bars.columns();
+        int from = bars.from();
+        int n = bars.size();
+        int resume = n == 0 ? -1 : firstUnchanged(in, from, n);
+        if (resume < 0) {
+            reset(n == 0 ? Long.MIN_VALUE : in.time()[from]);
+            resume = 0;
+        } else {
+            for (int r = size - 1; r >= resume; r--) ring[r % REWIND].restore(this);
+            size = resume;
+        }
+        dirtyFrom = BarSeries.NO_CHANGE;
+
+        for (int r = resume; r < n; r++) {
+            int i = from + r;
+            push(r, in.time()[i], in.open()[i], in.high()[i], in.low()[i], in.close()[i], in.volume()[i]);
+        }
+    }
+
+    private int firstUnchanged(BarSeries.Snapshot in, int from, int n) {
+        if (size == 0 || in.time()[from] != firstTime) return -1;
+        int ringStart = Math.max(0, size - REWIND);
+        int resume = size;
+        if (dirtyFrom != BarSeries.NO_CHANGE) {
+            if (dirtyFrom < ring[ringStart % REWIND].time) return -1;
+            for (resume = ringStart; resume < size && ring[resume % REWIND].time < dirtyFrom; resume++) { }
+        }
+        for (int r = ringStart; r < size; r++) {
+            if (r >= n || !ring[r % REWIND].sameRow(in, from + r)) {
+                if (r == ringStart && r > 0) return -1;
+                return Math.min(resume, r);
+            }
+        }
+        return resume;
+    }
+
+    private void reset(long first) {
+        Arrays.fill(raw, 0);
+        lo = Long.MAX_VALUE;
+        hi = Long.MIN_VALUE;
+        atr = Double.NaN;
+        prevClose = Double.NaN;
+        size = 0;
+        firstTime = first;
+    }
+
+    /** Fold one bar: ATR first, then its volume (skipped when missing or zero). */
+    private void push(int row, long time, double o, double h, double l, double c, long volume) {
+        long oT = tick(o), hT = tick(h), lT = tick(l), cT = tick(c);
+        long touchLo = Math.min(Math.min(oT, hT), Math.min(lT, cT));
+        long touchHi = Math.max(Math.max(oT, hT), Math.max(lT, cT));
+        if (volume > 0) ensureRange(touchLo, touchHi);
+
+        Undo undo = ring[row % REWIND];
+        if (undo == null) undo = ring[row % REWIND] = new Undo();
+        undo.save(this, time, o, h, l, c, volume, touchLo, touchHi);
+
+        updateAtr(h, l, c);
+        if (volume > 0) distribute(o, h, l, c, volume);
+        size = row + 1;
+    }
+
+    private void updateAtr(double h, double l, double c) {
+        double tr;
+        if (Double.isNaN(prevClose)) {
+            tr = h - l;
+        } else {
+            tr = Math.max(h - l, Math.max(Math.abs(h - prevClose), Math.abs(l - prevClose)));
+        }
+        if (Double.isNaN(atr)) {
+            atr = tr;
+        } else if (atr != tr) {
+            double oldWeight = 1.0 - alpha;
+            atr = (oldWeight * atr + alpha * tr) / (oldWeight + alpha);
+        }
+        prevClose = c;
+    }
+
+    private void distribute(double o, double h, double l, double c, double volume) {
+        o = snap(o);
+        h = snap(h);
+        l = snap(l);
+        c = snap(c);
+        double halfTick = tickSize / 2;
+
+        double barRange = h - l;
+        if (barRange < halfTick) {
+            add(tick((h + l) / 2.0), volume);
+            return;
+        }
+        if (atr > 0 && barRange > extremeThreshold * atr) {
+            addUniform(l, h, volume);
+            return;
+        }
+
+        double bodyLow = Math.min(o, c);
+        double bodyHigh = Math.max(o, c);
+        double bodySize = bodyHigh - bodyLow;
+
+        double wickRatio = (barRange - bodySize) / barRange;
+        double bodyWeight = Math.min(0.8, Math.max(0.5, bodyWeightBase + (0.5 - wickRatio) * 0.3));
+        double wickWeight = 1.0 - bodyWeight;
+        double bodyVol = volume * bodyWeight;
+        double wickVol = volume * wickWeight;
+
+        if (bodySize < halfTick) add(tick(bodyLow), bodyVol);
+        else addUniform(bodyLow, bodyHigh, bodyVol);
+
+        double upperWick = h - bodyHigh;
+        double lowerWick = bodyLow - l;
+        double totalWick = upperWick + lowerWick;
+        if (totalWick < halfTick) {
+            if (bodySize < halfTick) add(tick(bodyLow), wickVol);
+            else addUniform(bodyLow, bodyHigh, wickVol);
+            return;
+        }
+        if (upperWick >= halfTick) addUniform(bodyHigh + tickSize, h, wickVol * (upperWick / totalWick));
+        if (lowerWick >= halfTick) addUniform(l, bodyLow - tickSize, wickVol * (lowerWick / totalWick));
+    }
+
+    private void addUniform(double low, double high, double volume) {
+        if (volume <= 0) return;
+        long from = tick(low);
+        long to = tick(high);
+        if (to < from) return;
+        double share = volume / (to - from + 1);
+        for (long t = from; t <= to; t++) add(t, share);
+    }
+
+    private void add(long tick, double volume) {
+        raw[(int) (tick - base)] += volume;
+        if (tick < lo) lo = tick;
+        if (tick > hi) hi = tick;
+    }
+
+    /** Make room for ticks {@code [from, to]}, with headroom on the side that grew. */
+    private void ensureRange(long from, long to) {
+        if (raw.length > 0 && from >= base && to < base + raw.length) return;
+        long newBase = raw.length == 0 ? from : Math.min(base, from);
+        long newEnd = raw.length == 0 ? to + 1 : Math.max(base + raw.length, to + 1);
+        long slack = Math.max(64, (newEnd - newBase) / 2);
+        if (raw.length > 0 && from < base) newBase -= slack;
+        if (raw.length == 0 || to >= base + raw.length) newEnd += slack;
+        if (newEnd - newBase > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Price range too wide for tick size " + tickSize);
+        }
+        double[] grown = new double[(int) (newEnd - newBase)];
+        if (raw.length > 0) System.arraycopy(raw, 0, grown, (int) (base - newBase), raw.length);
+        raw = grown;
+        base = newBase;
+    }
+
+    /** {@code round(price / tickSize)}, half-to-even like Python's round. */
+    private long tick(double price) {
+        return (long) Math.rint(price / tickSize);
+    }
+
+    private double snap(double price) {
+        return round8(Math.rint(price / tickSize) * tickSize);
+    }
+
+    private static double round8(double x) {
+        return Math.rint(x * 1e8) / 1e8;
+    }
+
+    /** A folded row plus everything needed to take it back out. */
+    private static final class Undo {
+        long time;
+        double open, high, low, close;
+        long volume;
+        double atr, prevClose;
+        long lo, hi;
+        long cellsFrom;
+        double[] cells = new double[0];
+        int cellCount;
+
+        void save(VolumeProfile p, long time, double o, double h, double l, double c, long v,
+                  long touchLo, long touchHi) {
+            this.time = time;
+            this.open = o;
+            this.high = h;
+            this.low = l;
+            this.close = c;
+            this.volume = v;
+            this.atr = p.atr;
+            this.prevClose = p.prevClose;
+            this.lo = p.lo;
+            this.hi = p.hi;
+            if (v <= 0) {
+                cellCount = 0;
+                return;
+            }
+            cellsFrom = touchLo;
+            cellCount = (int) (touchHi - touchLo + 1);
+            if (cells.length < cellCount) cells = new double[cellCount];
+            System.arraycopy(p.raw, (int) (touchLo - p.base), cells, 0, cellCount);
+        }
+
+        void restore(VolumeProfile p) {
+            if (cellCount > 0) System.arraycopy(cells, 0, p.raw, (int) (cellsFrom - p.base), cellCount);
+            p.atr = atr;
+            p.prevClose = prevClose;
+            p.lo = lo;
+            p.hi = hi;
+        }
+
+        boolean sameRow(BarSeries.Snapshot in, int i) {
+            return in.time()[i] == time
+                    && in.open()[i] == open
+                    && in.high()[i] == high
+                    && in.low()[i] == low
+                    && in.close()[i] == close
+                    && in.volume()[i] == volume;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.api_server.service;
+
+import com.example.api_server.config.CacheConfig;
+import com.example.api_server.dto.VolumeProfileResponse;
+import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
+import io.github.resilience4j.retry.annotation.Retry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Session volume profiles served from the resident 1m series. Each
+ * (symbol, session, tick size) keeps a {@link VolumeProfile} that is
+ * advanced by the bars that arrived since the last request, so polling the
+ * developing session costs the new bars' ranges, not a refold.
+ */
+@Service
+public class VolumeProfileService {
+
+    public static final String CACHE_NAME = "volumeProfiles";
+
+    private static final String INTERVAL = "1m";
+    private static final double FUTURES_TICK = 0.25;
+    private static final double EQUITY_TICK = 0.01;
+    private static final double MIN_TICK = 0.0001;
+    private static final double MAX_TICK = 1000;
+    /** Matches the 1m lookback {@link BarStore} keeps resident. */
+    private static final int MAX_SESSION_AGE_DAYS = 29;
+
+    private final HistoricalDataService historicalDataService;
+    private final BarStore barStore;
+    private final Cache profiles;
+
+    public VolumeProfileService(HistoricalDataService historicalDataService, BarStore barStore,
+                                CacheManager cacheManager) {
+        this.historicalDataService = historicalDataService;
+        this.barStore = barStore;
+        this.profiles = cacheManager.getCache(CACHE_NAME);
+    }
+
+    /**
+     * Profile of the {@code date} session (the latest one with bars when
+     * null) on a {@code tickSize} grid; see {@link #tickSizeFor} and
+     * {@link #checkSession} for the arguments' validation.
+     */
+    @Retry(name = "historicalData")
+    @CircuitBreaker(name = "historicalData")
+    public VolumeProfileResponse getProfile(String symbol, LocalDate date, double tick) {
+        String upper = symbol.toUpperCase();
+        long age = date == null ? 0 : ChronoUnit.DAYS.between(date, LocalDate.now(ZoneOffset.UTC));
+
+        // Make sure the session's rows are resident, then work off the whole
+        // resident series so the slice is stable as bars are appended.
+        historicalDataService.bars(upper, age <= 5 ? "1d" : "1mo", INTERVAL);
+        BarSeries.View resident = barStore.readResident(upper, INTERVAL, INTERVAL,
+                historicalDataService.lastModified(upper, INTERVAL));
+        LocalDate sessionDate = date != null ? date
+                : resident.isEmpty() ? LocalDate.now(ZoneOffset.UTC) : TradingSession.dateOf(upper, resident.lastTime());
+        TradingSession session = TradingSession.of(upper, sessionDate);
+
+        SessionProfile p = profiles.get(upper + "-" + sessionDate + "-" + tick,
+                () -> new SessionProfile(upper, session, new VolumeProfile(tick)));
+        synchronized (p) {
+            p.profile.advance(session.slice(resident));
+            return toResponse(upper, session, p.profile);
+        }
+    }
+
+    /**
+     * {@code requested}, or 0.25 for futures and 0.01 otherwise.
+     *
+     * @throws IllegalArgumentException outside [{@value #MIN_TICK}, {@value #MAX_TICK}]
+     */
+    public static double tickSizeFor(String symbol, Double requested) {
+        if (requested == null) return TradingSession.isFutures(symbol.toUpperCase()) ? FUTURES_TICK : EQUITY_TICK;
+        if (!(requested >= MIN_TICK && requested <= MAX_TICK)) {
+            throw new IllegalArgumentException("tickSize must be between " + MIN_TICK + " and " + MAX_TICK);
+        }
+        return requested;
+    }
+
+    /** @throws IllegalArgumentException for a session older than the 1m history kept */
+    public static void checkSession(LocalDate date) {
+        if (date != null && ChronoUnit.DAYS.between(date, LocalDate.now(ZoneOffset.UTC)) > MAX_SESSION_AGE_DAYS) {
+            throw new IllegalArgumentException("Only the last " + MAX_SESSION_AGE_DAYS + " days of 1m bars are kept");
+        }
+    }
+
+    /**
+     * Point cached profiles of the written symbol at the first 1m bar the
+     * write touched; the next request rewinds there. Runs after
+     * {@link BarStore} has patched its series.
+     */
+    @EventListener
+    @Order(2)
+    public void onBarsWritten(BarsWrittenEvent event) {
+        if (event.from() == null || !INTERVAL.equals(event.interval())) return;
+        long from = BarSeries.timeKey(event.from());
+        for (Object value : CacheConfig.values(profiles)) {
+            if (value instanceof SessionProfile p && p.symbol.equals(event.symbol()) && from < p.session.end()) {
+                synchronized (p) {
+                    p.profile.invalidateFrom(from);
+                }
+            }
+        }
+    }
+
+    private static VolumeProfileResponse toResponse(String symbol, TradingSession session, VolumeProfile p) {
+        double[] raw = p.raw();
+        double[] smoothed = p.smoothed();
+        List<Double> price = new ArrayList<>(raw.length);
+        List<Double> rawList = new ArrayList<>(raw.length);
+        List<Double> smoothedList = new ArrayList<>(raw.length);
+        for (int i = 0; i < raw.length; i++) {
+            price.add(p.price(p.lowTick() + i));
+            rawList.add(raw[i]);
+            smoothedList.add(smoothed[i]);
+        }
+        return new VolumeProfileResponse(symbol, session.date().toString(),
+                HistoricalDataService.timeLabel(session.start(), true),
+                HistoricalDataService.timeLabel(session.end(), true),
+                p.tickSize(), p.size(), price, rawList, smoothedList);
+    }
+
+    private record SessionProfile(String symbol, TradingSession session, VolumeProfile profile) {
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.api_server.service;
+
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+import tools.jackson.core.json.JsonFactory;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A {@code /v8/finance/chart} response decoded straight off the token
+ * stream into primitive columns — no {@code Map<String, Object>} tree, no
+ * boxed {@code Double} per price. Only {@code chart.result[0]} is read;
+ * everything the callers don't use is skipped without being materialized.
+ *
+ * Rows stay aligned with Yahoo's {@code timestamp} array: a null price is
+ * NaN, a null volume {@link BarSeries#NO_VOLUME}, a null timestamp
+ * {@link #NO_TIME}, and columns shorter than {@code timestamp} are padded
+ * that way. Callers skip rows with {@link #complete} the way the old
+ * {@code instanceof} walks skipped nulls.
+ */
+public final class YahooChart {
+
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    static final JsonFactory JSON = new JsonFactory();
+
+    private static final YahooChart EMPTY = new YahooChart();
+
+    private int size;
+    private long[] time = new long[0];
+    private double[] open = new double[0];
+    private double[] high = new double[0];
+    private double[] low = new double[0];
+    private double[] close = new double[0];
+    private long[] volume = new long[0];
+
+    private double regularMarketPrice = Double.NaN;
+    private long regularMarketVolume = BarSeries.NO_VOLUME;
+    private double previousClose = Double.NaN;
+    private double chartPreviousClose = Double.NaN;
+
+    private YahooChart() {}
+
+    /** Decode {@code json}; an empty chart when it's null or carries no result. */
+    public static YahooChart decode(byte[] json) {
+        if (json == null || json.length == 0) return EMPTY;
+        YahooChart out = new YahooChart();
+        try (JsonParser p = JSON.createParser(ObjectReadContext.empty(), json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return EMPTY;
+            while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                if (name.equals("chart") && p.currentToken() == JsonToken.START_OBJECT) {
+                    out.readChart(p);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        out.align();
+        return out;
+    }
+
+    /**
+     * Decode a {@code /v7/finance/spark} body — one chart-shaped response
+     * per symbol, meta plus closes — keyed by symbol in response order.
+     * Symbols Yahoo doesn't know are simply absent.
+     */
+    public static Map<String, YahooChart> decodeSpark(byte[] json) {
+        Map<String, YahooChart> out = new LinkedHashMap<>();
+        if (json == null || json.length == 0) return out;
+        try (JsonParser p = JSON.createParser(ObjectReadContext.empty(), json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return out;
+            while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                if (name.equals("spark") && p.currentToken() == JsonToken.START_OBJECT) {
+                    readSpark(p, out);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return out;
+    }
+
+    public int size() { return size; }
+
+    public long time(int i) { return time[i]; }
+
+    public double open(int i) { return open[i]; }
+
+    public double high(int i) { return high[i]; }
+
+    public double low(int i) { return low[i]; }
+
+    public double close(int i) { return close[i]; }
+
+    public long volume(int i) { return volume[i]; }
+
+    /** Row {@code i} has a timestamp and all four prices. */
+    public boolean complete(int i) {
+        return time[i] != NO_TIME && !Double.isNaN(open[i]) && !Double.isNaN(high[i])
+                && !Double.isNaN(low[i]) && !Double.isNaN(close[i]);
+    }
+
+    /** {@code meta.regularMarketPrice}, NaN when absent. */
+    public double regularMarketPrice() { return regularMarketPrice; }
+
+    /** {@code meta.regularMarketVolume}, {@link BarSeries#NO_VOLUME} when absent. */
+    public long regularMarketVolume() { return regularMarketVolume; }
+
+    /** {@code meta.previousClose} (equities), NaN when absent. */
+    public double previousClose() { return previousClose; }
+
+    /** {@code meta.chartPreviousClose} (futures), NaN when absent. */
+    public double chartPreviousClose() { return chartPreviousClose; }
+
+    private void readChart(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (name.equals("result") && p.currentToken() == JsonToken.START_ARRAY) {
+                if (p.nextToken() == JsonToken.START_OBJECT) readResult(p);
+                skipRest(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static void readSpark(JsonParser p, Map<String, YahooChart> out) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (!name.equals("result") || p.currentToken() != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            while (p.nextToken() != JsonToken.END_ARRAY) {
+                if (p.currentToken() == JsonToken.START_OBJECT) readSparkEntry(p, out);
+                else p.skipChildren();
+            }
+        }
+    }
+
+    private static void readSparkEntry(JsonParser p, Map<String, YahooChart> out) {
+        String symbol = null;
+        YahooChart chart = null;
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            if (name.equals("symbol") && t == JsonToken.VALUE_STRING) {
+                symbol = p.getString();
+            } else if (name.equals("response") && t == JsonToken.START_ARRAY) {
+                if (p.nextToken() == JsonToken.START_OBJECT) {
+                    chart = new YahooChart();
+                    chart.readResult(p);
+                    chart.align();
+                }
+                skipRest(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+        if (symbol != null && chart != null) out.put(symbol, chart);
+    }
+
+    private void readResult(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "meta" -> {
+                    if (t == JsonToken.START_OBJECT) readMeta(p);
+                    else p.skipChildren();
+                }
+                case "timestamp" -> {
+                    if (t == JsonToken.START_ARRAY) readTimes(p);
+                    else p.skipChildren();
+                }
+                case "indicators" -> {
+                    if (t == JsonToken.START_OBJECT) readIndicators(p);
+                    else p.skipChildren();
+                }
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readMeta(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            switch (name) {
+                case "regularMarketPrice" -> regularMarketPrice = number(p);
+                case "regularMarketVolume" -> regularMarketVolume = whole(p, BarSeries.NO_VOLUME);
+                case "previousClose" -> previousClose = number(p);
+                case "chartPreviousClose" -> chartPreviousClose = number(p);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private void readTimes(JsonParser p) {
+        long[] out = new long[256];
+        int n = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (n == out.length) out = Arrays.copyOf(out, n * 2);
+            out[n++] = whole(p, NO_TIME);
+            p.skipChildren();
+        }
+        time = out;
+        size = n;
+    }
+
+    private void readIndicators(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (name.equals("quote") && p.currentToken() == JsonToken.START_ARRAY) {
+                if (p.nextToken() == JsonToken.START_OBJECT) readQuote(p);
+                skipRest(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private void readQuote(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            if (t != JsonToken.START_ARRAY) {
+                p.skipChildren();
+                continue;
+            }
+            switch (name) {
+                // Yahoo sends the timestamps first, so the columns can be sized exactly.
+                case "open" -> open = readNumbers(p, size);
+                case "high" -> high = readNumbers(p, size);
+                case "low" -> low = readNumbers(p, size);
+                case "close" -> close = readNumbers(p, size);
+                case "volume" -> volume = readWholeNumbers(p, size);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    /** Pad columns shorter than the timestamps; longer ones are read only up to {@link #size}. */
+    private void align() {
+        time = fit(time, size, NO_TIME);
+        open = fit(open, size);
+        high = fit(high, size);
+        low = fit(low, size);
+        close = fit(close, size);
+        volume = fit(volume, size, BarSeries.NO_VOLUME);
+    }
+
+    // --- token helpers, shared with YahooOptionChain ---
+
+    /**
+     * Read the array the parser is on (at START_ARRAY), expecting about
+     * {@code expected} elements; nulls and non-numbers become NaN.
+     */
+    static double[] readNumbers(JsonParser p, int expected) {
+        double[] out = new double[Math.max(16, expected)];
+        int n = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (n == out.length) out = Arrays.copyOf(out, n * 2);
+            out[n++] = number(p);
+            p.skipChildren();
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /** As {@link #readNumbers}, truncated to longs; nulls become {@link BarSeries#NO_VOLUME}. */
+    static long[] readWholeNumbers(JsonParser p, int expected) {
+        long[] out = new long[Math.max(16, expected)];
+        int n = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (n == out.length) out = Arrays.copyOf(out, n * 2);
+            out[n++] = whole(p, BarSeries.NO_VOLUME);
+            p.skipChildren();
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /** The current token as a finite double, else NaN. */
+    static double number(JsonParser p) {
+        JsonToken t = p.currentToken();
+        if (t != JsonToken.VALUE_NUMBER_INT && t != JsonToken.VALUE_NUMBER_FLOAT) return Double.NaN;
+        double v = p.getDoubleValue();
+        return Double.isInfinite(v) ? Double.NaN : v;
+    }
+
+    /** The current token truncated to a long (as {@code Number.longValue()} on a double), else {@code missing}. */
+    static long whole(JsonParser p, long missing) {
+        JsonToken t = p.currentToken();
+        if (t == JsonToken.VALUE_NUMBER_INT) return p.getLongValue();
+        double v = number(p);
+        return Double.isNaN(v) ? missing : (long) v;
+    }
+
+    /** Skip what's left of the array the parser is inside. */
+    static void skipRest(JsonParser p) {
+        while (p.currentToken() != JsonToken.END_ARRAY) {
+            p.skipChildren();
+            if (p.nextToken() == null) return;
+        }
+    }
+
+    private static double[] fit(double[] col, int n) {
+        if (col.length >= n) return col;
+        int filled = col.length;
+        double[] out = Arrays.copyOf(col, n);
+        Arrays.fill(out, filled, n, Double.NaN);
+        return out;
+    }
+
+    private static long[] fit(long[] col, int n, long missing) {
+        if (col.length >= n) return col;
+        int filled = col.length;
+        long[] out = Arrays.copyOf(col, n);
+        Arrays.fill(out, filled, n, missing);
+        return out;
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.api_server.service;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The one way this server talks to Yahoo. The live price and 1m services,
+ * ingestion and the GEX calculator all ask for the same few URLs — the
+ * 1d/1d chart for a last price above all — often within the same second.
+ * Each distinct request is made once: concurrent identical requests wait
+ * for the call in flight, and the decoded body is kept for a few seconds
+ * (the {@code yahooResponses} cache, single-flight) for whoever asks next.
+ * Failures aren't cached; every waiter gets the leader's exception.
+ * Windowed chart fetches end at "now", so they skip the response cache
+ * and are only coalesced (see {@link #chart(String, String, long, long)}).
+ *
+ * Counts are kept per endpoint (path plus interval/range): requests made
+ * by callers vs. calls that actually went upstream, failures and call time.
+ */
+@Component
+public class YahooGateway {
+
+    public static final String CACHE_NAME = "yahooResponses";
+
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(10);
+    /** Spark answers at most this many symbols per request. */
+    private static final int SPARK_BATCH = 20;
+
+    private final WebClient webClient;
+    private final Cache responses;
+    private final SingleFlight flights;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    public YahooGateway(WebClient webClient, CacheManager cacheManager, SingleFlight flights) {
+        this.webClient = webClient;
+        this.responses = cacheManager.getCache(CACHE_NAME);
+        this.flights = flights;
+    }
+
+    /** {@code /v8/finance/chart/{symbol}?interval=&range=}. */
+    public YahooChart chart(String symbol, String interval, String range) {
+        return call("chart " + interval + "/" + range, "chart|" + symbol + "|" + interval + "|" + range,
+                () -> YahooChart.decode(webClient.get()
+                        .uri(uri -> uri
+                                .path("/v8/finance/chart/{symbol}")
+                                .queryParam("interval", interval)
+                                .queryParam("range", range)
+                                .build(symbol))
+                        .retrieve()
+                        .bodyToMono(byte[].class)
+                        .timeout(FETCH_TIMEOUT)
+                        .block()));
+    }
+
+    /**
+     * {@code /v8/finance/chart/{symbol}?interval=&period1=&period2=} — the
+     * bars between two epoch seconds instead of a whole range.
+     *
+     * Not response-cached: {@code period2} is the current second on every
+     * call, so no entry would ever be asked for twice. Concurrent calls for
+     * the same window start still share one upstream call, whatever their
+     * {@code period2}.
+     */
+    public YahooChart chart(String symbol, String interval, long period1, long period2) {
+        return coalesce("chart " + interval + "/period", "chart|" + symbol + "|" + interval + "|" + period1,
+                () -> YahooChart.decode(webClient.get()
+                        .uri(uri -> uri
+                                .path("/v8/finance/chart/{symbol}")
+                                .queryParam("interval", interval)
+                                .queryParam("period1", period1)
+                                .queryParam("period2", period2)
+                                .build(symbol))
+                        .retrieve()
+                        .bodyToMono(byte[].class)
+                        .timeout(FETCH_TIMEOUT)
+                        .block()));
+    }
+
+    /** {@code /v7/finance/options/{symbol}}, for the nearest expiration when {@code expiration} is null. */
+    public YahooOptionChain options(String symbol, Long expiration) {
+        return call("options", "options|" + symbol + "|" + expiration,
+                () -> YahooOptionChain.decode(webClient.get()
+                        .uri(uri -> {
+                            uri.path("/v7/finance/options/{symbol}");
+                            if (expiration != null) uri.queryParam("date", expiration);
+                            return uri.build(symbol);
+                        })
+                        .retrieve()
+                        .bodyToMono(byte[].class)
+                        .timeout(FETCH_TIMEOUT)
+                        .block()));
+    }
+
+    /**
+     * Last price, volume and previous close for every symbol in
+     * {@code symbols}, from one {@code /v7/finance/spark} call per 20
+     * symbols instead of one chart call each. Each value carries the
+     * chart {@code meta} fields; symbols Yahoo doesn't answer for are
+     * absent from the map.
+     */
+    public Map<String, YahooChart> quotes(Collection<String> symbols) {
+        List<String> sorted = symbols.stream().map(String::toUpperCase).distinct().sorted().toList();
+        Map<String, YahooChart> out = new LinkedHashMap<>();
+        for (int i = 0; i < sorted.size(); i += SPARK_BATCH) {
+            String batch = String.join(",", sorted.subList(i, Math.min(sorted.size(), i + SPARK_BATCH)));
+            out.putAll(call("spark 1d/1d", "spark|" + batch,
+                    () -> YahooChart.decodeSpark(webClient.get()
+                            .uri(uri -> uri
+                                    .path("/v7/finance/spark")
+                                    .queryParam("symbols", "{symbols}")
+                                    .queryParam("range", "1d")
+                                    .queryParam("interval", "1d")
+                                    .build(batch))
+                            .retrieve()
+                            .bodyToMono(byte[].class)
+                            .timeout(FETCH_TIMEOUT)
+                            .block())));
+        }
+        return out;
+    }
+
+    /** Per endpoint: requests, upstream calls, requests served by another's call, failures, call time. */
+    public Map<String, Map<String, Long>> stats() {
+        Map<String, Map<String, Long>> out = new TreeMap<>();
+        stats.forEach((endpoint, s) -> out.put(endpoint, s.snapshot()));
+        return out;
+    }
+
+    private <T> T call(String endpoint, String key, Supplier<T> fetch) {
+        EndpointStats s = request(endpoint);
+        try {
+            return responses.get(key, () -> timed(s, fetch));
+        } catch (Cache.ValueRetrievalException ex) {
+            // Callers handle Yahoo failures by their own type and message.
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+
+    /** Like {@link #call} for requests the response cache can't help: only concurrent callers share. */
+    private <T> T coalesce(String endpoint, String key, Supplier<T> fetch) {
+        EndpointStats s = request(endpoint);
+        return flights.run(CACHE_NAME, key, () -> timed(s, fetch));
+    }
+
+    private EndpointStats request(String endpoint) {
+        EndpointStats s = stats.computeIfAbsent(endpoint, k -> new EndpointStats());
+        s.requests.increment();
+        return s;
+    }
+
+    private static <T> T timed(EndpointStats s, Supplier<T> fetch) {
+        long started = System.nanoTime();
+        try {
+            T value = fetch.get();
+            s.record((System.nanoTime() - started) / 1_000_000, false);
+            return value;
+        } catch (RuntimeException ex) {
+            s.record((System.nanoTime() - started) / 1_000_000, true);
+            throw ex;
+        }
+    }
+
+    private static final class EndpointStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder upstream = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private volatile long lastMillis;
+
+        void record(long millis, boolean failure) {
+            upstream.increment();
+            if (failure) failed.increment();
+            totalMillis.add(millis);
+            lastMillis = millis;
+        }
+
+        Map<String, Long> snapshot() {
+            Map<String, Long> m = new LinkedHashMap<>();
+            long calls = upstream.sum();
+            m.put("requests", requests.sum());
+            m.put("upstream", calls);
+            m.put("shared", Math.max(0, requests.sum() - calls));
+            m.put("failed", failed.sum());
+            m.put("lastMillis", lastMillis);
+            m.put("avgMillis", calls == 0 ? 0 : totalMillis.sum() / calls);
+            return m;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.api_server.service;
+
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.ObjectReadContext;
+
+import java.util.Arrays;
+
+/**
+ * A {@code /v7/finance/options} response decoded off the token stream like
+ * {@link YahooChart}: the expiration list and {@code options[0]}'s calls
+ * and puts as primitive contract columns. Of each contract only strike,
+ * implied volatility, open interest and volume are kept — the dozen string
+ * fields per contract (symbols, currency, trade dates) are skipped, never
+ * decoded into strings.
+ */
+public final class YahooOptionChain {
+
+    private static final YahooOptionChain EMPTY = new YahooOptionChain();
+
+    private long[] expirations = new long[0];
+    private long expiration;
+    private Contracts calls = Contracts.NONE;
+    private Contracts puts = Contracts.NONE;
+
+    private YahooOptionChain() {}
+
+    /** Decode {@code json}; an empty chain when it's null or carries no result. */
+    public static YahooOptionChain decode(byte[] json) {
+        if (json == null || json.length == 0) return EMPTY;
+        YahooOptionChain out = new YahooOptionChain();
+        try (JsonParser p = YahooChart.JSON.createParser(ObjectReadContext.empty(), json)) {
+            if (p.nextToken() != JsonToken.START_OBJECT) return EMPTY;
+            while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                if (name.equals("optionChain") && p.currentToken() == JsonToken.START_OBJECT) {
+                    out.readChain(p);
+                } else {
+                    p.skipChildren();
+                }
+            }
+        }
+        return out;
+    }
+
+    /** {@code expirationDates}, epoch seconds. */
+    public long[] expirations() { return expirations; }
+
+    /** {@code options[0].expirationDate}, 0 when absent. */
+    public long expiration() { return expiration; }
+
+    public Contracts calls() { return calls; }
+
+    public Contracts puts() { return puts; }
+
+    /**
+     * One side of the chain. A missing strike or IV is NaN, a missing open
+     * interest or volume 0 — the defaults the GEX math always applied.
+     */
+    public record Contracts(int size, double[] strike, double[] impliedVolatility,
+                            long[] openInterest, long[] volume) {
+
+        static final Contracts NONE = new Contracts(0, new double[0], new double[0], new long[0], new long[0]);
+    }
+
+    private void readChain(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            p.nextToken();
+            if (name.equals("result") && p.currentToken() == JsonToken.START_ARRAY) {
+                if (p.nextToken() == JsonToken.START_OBJECT) readResult(p);
+                YahooChart.skipRest(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private void readResult(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            if (name.equals("expirationDates") && t == JsonToken.START_ARRAY) {
+                double[] all = YahooChart.readNumbers(p, 32);
+                long[] out = new long[all.length];
+                int n = 0;
+                for (double e : all) if (!Double.isNaN(e)) out[n++] = (long) e;
+                expirations = Arrays.copyOf(out, n);
+            } else if (name.equals("options") && t == JsonToken.START_ARRAY) {
+                if (p.nextToken() == JsonToken.START_OBJECT) readOptions(p);
+                YahooChart.skipRest(p);
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private void readOptions(JsonParser p) {
+        while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+            String name = p.currentName();
+            JsonToken t = p.nextToken();
+            switch (name) {
+                case "expirationDate" -> expiration = YahooChart.whole(p, 0);
+                case "calls" -> calls = t == JsonToken.START_ARRAY ? readContracts(p) : skip(p);
+                case "puts" -> puts = t == JsonToken.START_ARRAY ? readContracts(p) : skip(p);
+                default -> p.skipChildren();
+            }
+        }
+    }
+
+    private static Contracts readContracts(JsonParser p) {
+        int capacity = 64;
+        double[] strike = new double[capacity];
+        double[] iv = new double[capacity];
+        long[] oi = new long[capacity];
+        long[] vol = new long[capacity];
+        int n = 0;
+        while (p.nextToken() != JsonToken.END_ARRAY) {
+            if (p.currentToken() != JsonToken.START_OBJECT) {
+                p.skipChildren();
+                continue;
+            }
+            if (n == capacity) {
+                capacity *= 2;
+                strike = Arrays.copyOf(strike, capacity);
+                iv = Arrays.copyOf(iv, capacity);
+                oi = Arrays.copyOf(oi, capacity);
+                vol = Arrays.copyOf(vol, capacity);
+            }
+            strike[n] = Double.NaN;
+            iv[n] = Double.NaN;
+            while (p.nextToken() == JsonToken.PROPERTY_NAME) {
+                String name = p.currentName();
+                p.nextToken();
+                switch (name) {
+                    case "strike" -> strike[n] = YahooChart.number(p);
+                    case "impliedVolatility" -> iv[n] = YahooChart.number(p);
+                    case "openInterest" -> oi[n] = YahooChart.whole(p, 0);
+                    case "volume" -> vol[n] = YahooChart.whole(p, 0);
+                    default -> p.skipChildren();
+                }
+            }
+            n++;
+        }
+        return new Contracts(n, strike, iv, oi, vol);
+    }
+
+    private static Contracts skip(JsonParser p) {
+        p.skipChildren();
+        return Contracts.NONE;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.api_server.bench;
+
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.service.BarAggregator;
+import com.example.api_server.service.BarBucketing;
+import com.example.api_server.service.BarSeries;
+import com.example.api_server.service.LegacyAggregation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 1m → 15m aggregation: the old list/stream implementation versus
+ * {@link BarAggregator} writing into preallocated columns.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/bench.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/bench.cp) \
+ *      org.openjdk.jmh.Main AggregationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+    @Param({"11000", "100000"})
+    public int bars;
+
+    private List<HistoricalBar> list;
+    private BarSeries.Snapshot columns;
+    private BarSeries.Snapshot out;
+    private final BarBucketing fifteen = BarBucketing.minutes(15);
+
+    @Setup
+    public void setUp() {
+        list = LegacyAggregation.randomBars(LocalDateTime.of(2024, 1, 2, 9, 30), bars, 1, 42);
+        columns = BarAggregator.columnsOf(list);
+        out = BarAggregator.allocate(columns.size());
+    }
+
+    @Benchmark
+    public List<HistoricalBar> legacyAggregateToNMinutes() {
+        return LegacyAggregation.aggregateToNMinutes(list, 15);
+    }
+
+    @Benchmark
+    public int kernelIntoPreallocated() {
+        return BarAggregator.aggregate(columns, 0, columns.size(), fifteen, out);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.api_server.bench;
+
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.dto.HistoricalDataResponse;
+import com.example.api_server.dto.OhlcData;
+import com.example.api_server.service.ColumnarBarsCodec;
+import com.example.api_server.service.LegacyAggregation;
+import com.example.api_server.service.ResponseBytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of answering a 5d/1m /api/historical request (~290 KB of JSON):
+ * serializing the cached {@link HistoricalDataResponse} and gzipping it per
+ * request, versus copying the pre-encoded {@link ResponseBytes} out. Sample
+ * mode so the report carries p99 alongside the mean.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/bench.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/bench.cp) \
+ *      org.openjdk.jmh.Main ResponseEncodingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseEncodingBenchmark {
+
+    /** Sized so the JSON body lands near the ~290 KB of a real 5d/1m response. */
+    private static final int BARS = 2_100;
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private HistoricalDataResponse response;
+    private ResponseBytes encoded;
+
+    @Setup
+    public void setUp() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(LocalDateTime.of(2024, 1, 2, 9, 30), BARS, 1, 7);
+        ZoneId zone = ZoneId.systemDefault();
+        List<OhlcData> data = new ArrayList<>(bars.size());
+        for (HistoricalBar b : bars) {
+            data.add(new OhlcData(String.valueOf(b.date().atZone(zone).toEpochSecond()),
+                    b.open(), b.high(), b.low(), b.close(), b.volume()));
+        }
+        response = new HistoricalDataResponse("ES=F", "5d", "1m", "2024-01-08 16:00:00", data);
+        encoded = ResponseBytes.of(mapper.writeValueAsBytes(response), ColumnarBarsCodec.encode(response));
+        System.out.printf("%npayload: %d bytes json, %d bytes gzip%n", encoded.json().length, encoded.gzip().length);
+    }
+
+    @Benchmark
+    public byte[] serializePerRequest() {
+        return mapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeAndGzipPerRequest() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            mapper.writeValue(gz, response);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] cachedJson() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.json().length);
+        out.writeBytes(encoded.json());
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] cachedGzip() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(encoded.gzip().length);
+        out.writeBytes(encoded.gzip());
+        return out.toByteArray();
+    }
+}
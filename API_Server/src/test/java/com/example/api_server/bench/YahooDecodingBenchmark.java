@@ -0,0 +1,110 @@
+package com.example.api_server.bench;
+
+import com.example.api_server.service.LegacyYahooParsing;
+import com.example.api_server.service.YahooChart;
+import com.example.api_server.service.YahooOptionChain;
+import com.example.api_server.service.YahooPayloads;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding a Yahoo body into what the services consume: the old
+ * {@code Map<String, Object>} tree plus {@code instanceof} walk versus
+ * {@link YahooChart} / {@link YahooOptionChain} reading the token stream
+ * into primitive columns. Both sides end in the same row records, so the
+ * difference is the tree and the boxing. The chart body is a futures
+ * 1m/1d (~1,380 rows, ~110 KB); the options body one expiration with 160
+ * strikes a side. Run with {@code -prof gc} for {@code gc.alloc.rate.norm}.
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/bench.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/bench.cp) \
+ *      org.openjdk.jmh.Main YahooDecodingBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class YahooDecodingBenchmark {
+
+    private final JsonMapper mapper = JsonMapper.builder().build();
+    private byte[] chart;
+    private byte[] options;
+
+    @Setup
+    public void setUp() {
+        chart = YahooPayloads.chart("NQ=F", 1_380, 7);
+        options = YahooPayloads.options("SPY", 160, 7);
+        System.out.printf("%npayload: chart %d bytes, options %d bytes%n", chart.length, options.length);
+    }
+
+    @Benchmark
+    public List<LegacyYahooParsing.Bar> mapTreeParseBars() {
+        return LegacyYahooParsing.parseBars(tree(chart), true);
+    }
+
+    @Benchmark
+    public List<LegacyYahooParsing.Bar> streamedParseBars() {
+        YahooChart c = YahooChart.decode(chart);
+        List<LegacyYahooParsing.Bar> out = new ArrayList<>(c.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < c.size(); i++) {
+            if (!c.complete(i) || !seen.add(c.time(i))) continue;
+            out.add(new LegacyYahooParsing.Bar(
+                    LocalDateTime.ofInstant(Instant.ofEpochSecond(c.time(i)), ZoneOffset.UTC),
+                    c.open(i), c.high(i), c.low(i), c.close(i), Math.max(0L, c.volume(i))));
+        }
+        return out;
+    }
+
+    @Benchmark
+    public int mapTreeParseContracts() {
+        Map<String, Object> body = tree(options);
+        return LegacyYahooParsing.parseContracts(LegacyYahooParsing.side(body, "calls")).size()
+                + LegacyYahooParsing.parseContracts(LegacyYahooParsing.side(body, "puts")).size();
+    }
+
+    @Benchmark
+    public int streamedParseContracts() {
+        YahooOptionChain chain = YahooOptionChain.decode(options);
+        return contracts(chain.calls()).size() + contracts(chain.puts()).size();
+    }
+
+    private static List<LegacyYahooParsing.Contract> contracts(YahooOptionChain.Contracts side) {
+        List<LegacyYahooParsing.Contract> out = new ArrayList<>(side.size());
+        for (int i = 0; i < side.size(); i++) {
+            if (!(side.strike()[i] > 0)) continue;
+            double iv = side.impliedVolatility()[i];
+            out.add(new LegacyYahooParsing.Contract(side.strike()[i], Double.isNaN(iv) ? 0 : iv,
+                    side.openInterest()[i], side.volume()[i]));
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> tree(byte[] json) {
+        return mapper.readValue(json, Map.class);
+    }
+}
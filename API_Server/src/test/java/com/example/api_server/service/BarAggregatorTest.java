@@ -0,0 +1,138 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.repository.supabase.SupabaseHistoricalDataRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BarAggregatorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 9, 30);
+
+    @Test
+    void nMinuteBucketsMatchLegacyAggregation() {
+        List<HistoricalBar> minutes = LegacyAggregation.randomBars(START, 11_000, 1, 42);
+        List<HistoricalBar> fives = LegacyAggregation.randomBars(START, 5_000, 5, 7);
+
+        for (int n : new int[]{5, 15, 30, 240}) {
+            assertThat(kernel(minutes, BarBucketing.minutes(n)))
+                    .as("1m → %dm", n)
+                    .isEqualTo(LegacyAggregation.aggregateToNMinutes(minutes, n));
+        }
+        for (int n : new int[]{15, 30}) {
+            assertThat(kernel(fives, BarBucketing.minutes(n)))
+                    .as("5m → %dm", n)
+                    .isEqualTo(LegacyAggregation.aggregateToNMinutes(fives, n));
+        }
+    }
+
+    @Test
+    void weeklyBucketsMatchLegacyAggregation() {
+        List<HistoricalBar> daily = new ArrayList<>();
+        for (HistoricalBar b : LegacyAggregation.randomBars(START, 2_000, 1, 3)) {
+            // One bar per calendar day at midnight, skipping weekends like the 1d rows do.
+            LocalDateTime day = START.toLocalDate().plusDays(daily.size() * 7L / 5).atStartOfDay();
+            daily.add(new HistoricalBar(day, b.open(), b.high(), b.low(), b.close(), b.volume()));
+        }
+        assertThat(kernel(daily, BarBucketing.weekly()))
+                .isEqualTo(LegacyAggregation.aggregateToWeekly(daily));
+    }
+
+    @Test
+    void offsetHourBucketsRunThroughMidnight() {
+        List<HistoricalBar> minutes = LegacyAggregation.randomBars(LocalDateTime.of(2024, 1, 2, 22, 50), 120, 1, 13);
+        List<HistoricalBar> got = kernel(minutes, BarBucketing.minutes(60, 30));
+
+        assertThat(got).extracting(HistoricalBar::date).containsExactly(
+                LocalDateTime.of(2024, 1, 2, 22, 30),
+                LocalDateTime.of(2024, 1, 2, 23, 30),
+                LocalDateTime.of(2024, 1, 3, 0, 30));
+        List<HistoricalBar> hour = minutes.subList(40, 100);
+        HistoricalBar bar = got.get(1);
+        assertThat(bar.open()).isEqualTo(hour.get(0).open());
+        assertThat(bar.close()).isEqualTo(hour.get(59).close());
+        assertThat(bar.high()).isEqualTo(hour.stream().mapToDouble(HistoricalBar::high).max().orElseThrow());
+        assertThat(bar.low()).isEqualTo(hour.stream().mapToDouble(HistoricalBar::low).min().orElseThrow());
+    }
+
+    @Test
+    void partialRangeAndEmptyInput() {
+        List<HistoricalBar> minutes = LegacyAggregation.randomBars(START, 500, 1, 11);
+        BarSeries.Snapshot in = BarAggregator.columnsOf(minutes);
+        BarSeries.Snapshot out = BarAggregator.allocate(in.size());
+
+        int n = BarAggregator.aggregate(in, 100, 400, BarBucketing.minutes(15), out);
+        List<HistoricalBar> got = new BarSeries.Snapshot(out.time(), out.open(), out.high(),
+                out.low(), out.close(), out.volume(), n).toBars(0);
+        assertThat(got).isEqualTo(LegacyAggregation.aggregateToNMinutes(minutes.subList(100, 400), 15));
+
+        assertThat(BarAggregator.aggregate(in, 0, 0, BarBucketing.minutes(15), out)).isZero();
+    }
+
+    @Test
+    void downsampleKeepsExtremesWithinPointBudget() {
+        List<HistoricalBar> minutes = LegacyAggregation.randomBars(START, 11_000, 1, 5);
+        BarSeries.Snapshot in = BarAggregator.columnsOf(minutes);
+
+        BarSeries.Snapshot out = BarAggregator.downsample(in, 1_000, in.size(), 500);
+        assertThat(out.size()).isLessThanOrEqualTo(500).isGreaterThan(450);
+        List<HistoricalBar> range = minutes.subList(1_000, minutes.size());
+        List<HistoricalBar> got = out.toBars(0);
+        assertThat(got.get(0).date()).isEqualTo(range.get(0).date());
+        assertThat(got.get(0).open()).isEqualTo(range.get(0).open());
+        assertThat(got.get(got.size() - 1).close()).isEqualTo(range.get(range.size() - 1).close());
+        assertThat(got.stream().mapToDouble(HistoricalBar::high).max())
+                .isEqualTo(range.stream().mapToDouble(HistoricalBar::high).max());
+        assertThat(got.stream().mapToDouble(HistoricalBar::low).min())
+                .isEqualTo(range.stream().mapToDouble(HistoricalBar::low).min());
+        assertThat(got.stream().mapToLong(b -> b.volume() == null ? 0 : b.volume()).sum())
+                .isEqualTo(range.stream().mapToLong(b -> b.volume() == null ? 0 : b.volume()).sum());
+
+        // A range that already fits comes back row for row.
+        assertThat(BarAggregator.downsample(in, 0, 300, 500).toBars(0)).isEqualTo(minutes.subList(0, 300));
+    }
+
+    @Test
+    void incrementalRollupMatchesFullRebuild() {
+        LocalDateTime start = LocalDateTime.now().minusDays(20).withHour(9).withMinute(30).withSecond(0).withNano(0);
+        List<HistoricalBar> all = new ArrayList<>(LegacyAggregation.randomBars(start, 3_000, 5, 5));
+
+        SupabaseHistoricalDataRepository repo = mock(SupabaseHistoricalDataRepository.class);
+        when(repo.findBarsBySymbolAndIntervalSince(eq("SPY"), eq("5m"), any()))
+                .thenReturn(new ArrayList<>(all.subList(0, 1_000)));
+        BarStore store = new BarStore(repo, new ConcurrentMapCacheManager(BarStore.CACHE_NAME), new SingleFlight(), event -> { });
+        LocalDateTime fetched = LocalDateTime.now();
+        store.read("SPY", "5m", "30m", start, fetched);
+
+        for (int i = 1_000; i < all.size(); i += 7) {
+            // Each batch revises the previous developing bar and appends new ones.
+            HistoricalBar last = all.get(i - 1);
+            HistoricalBar revised = new HistoricalBar(last.date(), last.open(), last.high() + 0.5,
+                    last.low(), last.close() + 0.25, 123L);
+            all.set(i - 1, revised);
+            List<HistoricalBar> batch = new ArrayList<>();
+            batch.add(revised);
+            batch.addAll(all.subList(i, Math.min(all.size(), i + 7)));
+            fetched = fetched.plusSeconds(1);
+            store.onBarsWritten(BarsWrittenEvent.of("SPY", "5m", batch, fetched));
+        }
+
+        BarSeries.View view = store.read("SPY", "5m", "30m", start, fetched);
+        List<HistoricalBar> rolled = view.columns().toBars(view.from());
+        assertThat(rolled).isEqualTo(LegacyAggregation.aggregateToNMinutes(all, 30));
+    }
+
+    private static List<HistoricalBar> kernel(List<HistoricalBar> bars, BarBucketing bucketing) {
+        return BarAggregator.aggregate(BarAggregator.columnsOf(bars), 0, bucketing).toBars(0);
+    }
+}
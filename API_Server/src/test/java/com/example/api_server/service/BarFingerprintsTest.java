@@ -0,0 +1,66 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BarFingerprintsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 10, 14, 30);
+
+    @Test
+    void onlyNewAndRevisedBarsAreWritten() {
+        List<HistoricalBar> table = LegacyAggregation.randomBars(START, 390, 1, 3);
+        BarFingerprints fingerprints = new BarFingerprints();
+        AtomicInteger seeds = new AtomicInteger();
+
+        // Restart: the first run is diffed against what the table holds.
+        List<HistoricalBar> run = new ArrayList<>(table);
+        assertThat(fingerprints.changed("SPY", "1m", run, from -> {
+            seeds.incrementAndGet();
+            assertThat(from).isEqualTo(START);
+            return table;
+        })).isEmpty();
+
+        // Next run: the developing bar moved and one bar was appended.
+        run.set(run.size() - 1, revised(run.get(run.size() - 1)));
+        run.add(new HistoricalBar(START.plusMinutes(390), 450.0, 450.5, 449.5, 450.25, 1_000L));
+        List<HistoricalBar> changed = fingerprints.changed("SPY", "1m", run, from -> List.of());
+        assertThat(changed).containsExactly(run.get(389), run.get(390));
+        fingerprints.record("SPY", "1m", changed, START);
+
+        assertThat(fingerprints.changed("SPY", "1m", run, from -> List.of())).isEmpty();
+        assertThat(seeds).hasValue(1);
+    }
+
+    @Test
+    void unknownKeysWriteEverythingWhenTheTableIsEmpty() {
+        List<HistoricalBar> run = LegacyAggregation.randomBars(START, 12, 60, 5);
+        BarFingerprints fingerprints = new BarFingerprints();
+        assertThat(fingerprints.changed("NQ=F", "1h", run, from -> List.of())).isEqualTo(run);
+    }
+
+    @Test
+    void aFailedSeedLeavesNothingBehindAndIsRetried() {
+        List<HistoricalBar> run = LegacyAggregation.randomBars(START, 12, 5, 6);
+        BarFingerprints fingerprints = new BarFingerprints();
+
+        assertThatThrownBy(() -> fingerprints.changed("ES=F", "5m", run, from -> {
+            throw new IllegalStateException("pool exhausted");
+        })).hasMessage("pool exhausted");
+
+        assertThat(fingerprints.changed("ES=F", "5m", run, from -> run)).isEmpty();
+    }
+
+    private static HistoricalBar revised(HistoricalBar b) {
+        return new HistoricalBar(b.date(), b.open(), b.high() + 0.01, b.low(), b.close() + 0.01,
+                b.volume() == null ? 100L : b.volume() + 100);
+    }
+}
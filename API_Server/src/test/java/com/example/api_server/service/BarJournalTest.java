@@ -0,0 +1,214 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BarJournalTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 10, 14, 30);
+    private static final int MAX_ATTEMPTS = 3;
+    private static final LocalDateTime FETCHED = LocalDateTime.of(2025, 1, 10, 15, 0, 1, 250_000_000);
+
+    @TempDir
+    Path dir;
+
+    private final List<Written> written = new ArrayList<>();
+
+    @Test
+    void undrainedBarsAreReplayedAfterRestartAndDrainedOnce() {
+        List<HistoricalBar> first = LegacyAggregation.randomBars(START, 30, 1, 3);
+        HistoricalBar developing = first.get(29);
+        HistoricalBar revised = new HistoricalBar(developing.date(), developing.open(), developing.high() + 1,
+                developing.low(), developing.close() + 1, null);
+
+        try (BarJournal journal = open(1 << 16)) {
+            journal.append("SPY", "1m", first, FETCHED);
+            journal.append("SPY", "1m", List.of(revised), FETCHED.plusMinutes(1));
+            journal.append("IWM", "1h", first.subList(0, 2), FETCHED);
+        }
+
+        try (BarJournal journal = open(1 << 16)) {
+            assertThat(journal.drain(1_000, this::collect)).isEqualTo(33);
+        }
+        assertThat(written).hasSize(2);
+        Written spy = written.get(0);
+        assertThat(spy.symbol).isEqualTo("SPY");
+        assertThat(spy.fetchedAt).isEqualTo(FETCHED.plusMinutes(1));
+        // The later record wins the shared date; a null volume survives the trip.
+        assertThat(spy.bars).hasSize(30).endsWith(revised);
+        assertThat(spy.bars.subList(0, 29)).isEqualTo(first.subList(0, 29));
+        assertThat(written.get(1).bars).isEqualTo(first.subList(0, 2));
+
+        written.clear();
+        try (BarJournal journal = open(1 << 16)) {
+            assertThat(journal.drain(1_000, this::collect)).isZero();
+            assertThat(journal.stats()).containsEntry("pendingBytes", 0L);
+        }
+        assertThat(written).isEmpty();
+    }
+
+    @Test
+    void aFailedDrainLeavesTheBatchForTheNextAttempt() {
+        try (BarJournal journal = open(1 << 16)) {
+            journal.append("SPY", "5m", LegacyAggregation.randomBars(START, 12, 5, 4), FETCHED);
+
+            assertThatThrownBy(() -> journal.drain(1_000, (symbol, interval, bars, fetchedAt) -> {
+                throw new IllegalStateException("pooler dropped the connection");
+            })).hasMessageContaining("pooler");
+
+            assertThat(journal.drain(1_000, this::collect)).isEqualTo(12);
+            assertThat(journal.drain(1_000, this::collect)).isZero();
+        }
+        assertThat(written).hasSize(1);
+    }
+
+    @Test
+    void drainedSegmentsAreDeleted() throws Exception {
+        try (BarJournal journal = open(4_096)) {
+            for (int i = 0; i < 40; i++) {
+                journal.append("RTY=F", "1m", LegacyAggregation.randomBars(START.plusMinutes(10L * i), 10, 1, i),
+                        FETCHED);
+            }
+            assertThat(segmentFiles()).isGreaterThan(1);
+
+            int drained;
+            int batches = 0;
+            do {
+                drained = journal.drain(50, this::collect);
+                if (drained > 0) batches++;
+            } while (drained > 0);
+
+            assertThat(batches).isEqualTo(8);
+            assertThat(written.stream().mapToInt(w -> w.bars.size()).sum()).isEqualTo(400);
+            assertThat(segmentFiles()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void aTornTailIsIgnored() throws Exception {
+        try (BarJournal journal = open(1 << 16)) {
+            journal.append("DIA", "1m", LegacyAggregation.randomBars(START, 5, 1, 5), FETCHED);
+            journal.append("DIA", "1m", LegacyAggregation.randomBars(START.plusMinutes(5), 5, 1, 6), FETCHED);
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(dir)) {
+            segment = files.filter(p -> p.toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+        // Flip a byte in the last bar of the second record, as a crash mid-write would leave it.
+        int record = 8 + 12 + 4 + 2 + 3 + 2 + 2 + 5 * 48;
+        try (RandomAccessFile f = new RandomAccessFile(segment.toFile(), "rw")) {
+            f.seek(2L * record - 10);
+            int b = f.read();
+            f.seek(2L * record - 10);
+            f.write(b ^ 0xFF);
+        }
+
+        try (BarJournal journal = open(1 << 16)) {
+            assertThat(journal.drain(1_000, this::collect)).isEqualTo(5);
+            // Appends continue over the torn record.
+            journal.append("DIA", "1m", LegacyAggregation.randomBars(START.plusMinutes(5), 5, 1, 6), FETCHED);
+        }
+        try (BarJournal journal = open(1 << 16)) {
+            assertThat(journal.drain(1_000, this::collect)).isEqualTo(5);
+        }
+    }
+
+    @Test
+    void aGroupThatKeepsFailingIsDeadLetteredAndTheRestIsWritten() throws Exception {
+        List<HistoricalBar> bad = LegacyAggregation.randomBars(START, 4, 1, 7);
+        PoisonSink sink = new PoisonSink("BAD");
+        try (BarJournal journal = open(1 << 16)) {
+            journal.append("BAD", "1m", bad, FETCHED);
+            journal.append("SPY", "1m", LegacyAggregation.randomBars(START, 6, 1, 8), FETCHED);
+
+            for (int i = 1; i < MAX_ATTEMPTS; i++) {
+                assertThatThrownBy(() -> journal.drain(1_000, sink)).hasMessageContaining("violates");
+            }
+            assertThat(written).isEmpty();
+
+            assertThat(journal.drain(1_000, sink)).isEqualTo(10);
+            assertThat(journal.drain(1_000, sink)).isZero();
+            assertThat(journal.stats())
+                    .containsEntry("pendingBytes", 0L)
+                    .containsEntry("deadLetteredGroups", 1L)
+                    .containsEntry("deadLetteredBars", 4L);
+        }
+        assertThat(written).extracting(Written::symbol).containsExactly("SPY");
+        assertThat(sink.deadLettered).isEqualTo(bad);
+        List<String> lines = Files.readAllLines(dir.resolve("dead-letter.csv"));
+        assertThat(lines).hasSize(5);
+        assertThat(lines.get(1)).startsWith("BAD,1m," + FETCHED + "," + bad.get(0).date() + ",");
+    }
+
+    @Test
+    void retryableFailuresNeverDeadLetter() {
+        PoisonSink sink = new PoisonSink("SPY");
+        sink.retryable = true;
+        try (BarJournal journal = open(1 << 16)) {
+            journal.append("SPY", "1m", LegacyAggregation.randomBars(START, 6, 1, 9), FETCHED);
+
+            for (int i = 0; i < 2 * MAX_ATTEMPTS; i++) {
+                assertThatThrownBy(() -> journal.drain(1_000, sink)).hasMessageContaining("violates");
+            }
+            assertThat(journal.stats()).containsEntry("deadLetteredGroups", 0L);
+            assertThat(journal.drain(1_000, this::collect)).isEqualTo(6);
+        }
+        assertThat(written).hasSize(1);
+        assertThat(Files.exists(dir.resolve("dead-letter.csv"))).isFalse();
+    }
+
+    private BarJournal open(int segmentBytes) {
+        return BarJournal.open(dir, segmentBytes, MAX_ATTEMPTS);
+    }
+
+    private void collect(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime fetchedAt) {
+        written.add(new Written(symbol, interval, bars, fetchedAt));
+    }
+
+    private long segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".seg")).count();
+        }
+    }
+
+    /** Rejects one symbol's rows, as a constraint violation would, and collects the rest. */
+    private final class PoisonSink implements BarJournal.Sink {
+        final String poison;
+        boolean retryable;
+        List<HistoricalBar> deadLettered;
+
+        PoisonSink(String poison) {
+            this.poison = poison;
+        }
+
+        @Override
+        public void write(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime fetchedAt) {
+            if (symbol.equals(poison)) throw new IllegalStateException("row violates check constraint");
+            collect(symbol, interval, bars, fetchedAt);
+        }
+
+        @Override
+        public boolean retryable(RuntimeException ex) {
+            return retryable;
+        }
+
+        @Override
+        public void deadLettered(String symbol, String interval, List<HistoricalBar> bars) {
+            deadLettered = bars;
+        }
+    }
+
+    private record Written(String symbol, String interval, List<HistoricalBar> bars, LocalDateTime fetchedAt) {}
+}
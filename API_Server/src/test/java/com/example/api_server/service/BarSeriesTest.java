@@ -0,0 +1,259 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.repository.supabase.SupabaseHistoricalDataRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Copy-on-revise behaviour of {@link BarSeries}. The encoded-response cache
+ * treats "the {@link BarSeries.View} compares equal" as "its rows are
+ * unchanged", which holds only while in-place writes stay past every
+ * published snapshot's size and every other change swaps the arrays.
+ */
+class BarSeriesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 10, 14, 30);
+
+    @Test
+    void identicalReMergeIsNoChange() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 100, 1, 1);
+        BarSeries s = warmed(bars);
+        BarSeries.Snapshot before = s.snapshot();
+        BarSeries.View view = before.view(0);
+
+        assertThat(s.merge(bars, BarSeries.ALL_HISTORY)).isEqualTo(BarSeries.NO_CHANGE);
+        assertThat(s.snapshot()).isSameAs(before);
+        assertThat(s.snapshot().view(0)).isEqualTo(view);
+    }
+
+    @Test
+    void appendReusesTheColumnsWithoutTouchingOlderSnapshots() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 110, 1, 2);
+        BarSeries s = warmed(bars.subList(0, 100));
+        BarSeries.Snapshot before = s.snapshot();
+        BarSeries.View view = before.view(0);
+
+        long changedFrom = s.merge(bars.subList(100, 110), BarSeries.ALL_HISTORY);
+
+        BarSeries.Snapshot after = s.snapshot();
+        assertThat(changedFrom).isEqualTo(BarSeries.timeKey(bars.get(100).date()));
+        assertThat(after.time()).isSameAs(before.time());
+        assertThat(after.close()).isSameAs(before.close());
+        assertThat(after.toBars(0)).isEqualTo(bars);
+        assertThat(before.toBars(0)).isEqualTo(bars.subList(0, 100));
+        assertThat(after.view(0)).isNotEqualTo(view);
+    }
+
+    @Test
+    void aRevisionInTheMiddleCopiesTheColumns() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 100, 1, 3);
+        BarSeries s = warmed(bars);
+        BarSeries.Snapshot before = s.snapshot();
+        HistoricalBar old = bars.get(50);
+        HistoricalBar revised = new HistoricalBar(old.date(), old.open(), old.high() + 1, old.low(),
+                old.close(), old.volume());
+
+        long changedFrom = s.merge(List.of(bars.get(49), revised), BarSeries.ALL_HISTORY);
+
+        BarSeries.Snapshot after = s.snapshot();
+        assertThat(changedFrom).isEqualTo(BarSeries.timeKey(old.date()));
+        assertThat(after.time()).isNotSameAs(before.time());
+        assertThat(after.high()).isNotSameAs(before.high());
+        assertThat(after.toBars(0).get(50)).isEqualTo(revised);
+        assertThat(before.toBars(0)).isEqualTo(bars);
+        assertThat(after.view(0)).isNotEqualTo(before.view(0));
+    }
+
+    @Test
+    void trimmingCopiesTheColumnsAndRaisesCoverage() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 100, 1, 4);
+        BarSeries s = warmed(bars);
+        BarSeries.Snapshot before = s.snapshot();
+        long retainFrom = BarSeries.timeKey(bars.get(20).date());
+
+        // Nothing new in the batch: the trim alone reports no changed bar.
+        assertThat(s.merge(List.of(), retainFrom)).isEqualTo(BarSeries.NO_CHANGE);
+
+        BarSeries.Snapshot after = s.snapshot();
+        assertThat(after.time()).isNotSameAs(before.time());
+        assertThat(after.toBars(0)).isEqualTo(bars.subList(20, 100));
+        assertThat(before.toBars(0)).isEqualTo(bars);
+        assertThat(s.coveredFrom()).isEqualTo(retainFrom);
+        assertThat(s.covers(bars.get(20).date())).isTrue();
+        assertThat(s.covers(bars.get(19).date())).isFalse();
+    }
+
+    @Test
+    void replaceTailKeepsTheHeadAndDropsRowsBeforeRetainFrom() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 10, 1, 5);
+        BarSeries s = warmed(bars);
+        List<HistoricalBar> tail = LegacyAggregation.randomBars(bars.get(7).date(), 4, 1, 6);
+
+        s.replaceTail(BarSeries.timeKey(bars.get(7).date()), BarSeries.timeKey(bars.get(2).date()),
+                BarAggregator.columnsOf(tail));
+
+        List<HistoricalBar> expected = new ArrayList<>(bars.subList(2, 7));
+        expected.addAll(tail);
+        assertThat(s.snapshot().toBars(0)).isEqualTo(expected);
+    }
+
+    @Test
+    void atOrAfterNarrowsOnlyWhenItMustAtEveryBoundary() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 10, 5, 7);
+        BarSeries.View view = warmed(bars).snapshot().view(2);
+        long t2 = BarSeries.timeKey(bars.get(2).date());
+        long t5 = BarSeries.timeKey(bars.get(5).date());
+        long t9 = BarSeries.timeKey(bars.get(9).date());
+
+        assertThat(view.atOrAfter(Long.MIN_VALUE)).isSameAs(view);
+        assertThat(view.atOrAfter(t2)).isSameAs(view);
+        assertThat(view.atOrAfter(t5).from()).isEqualTo(5);
+        assertThat(view.atOrAfter(t5 + 1).from()).isEqualTo(6);
+        assertThat(view.atOrAfter(t9).size()).isEqualTo(1);
+        assertThat(view.atOrAfter(t9 + 1).isEmpty()).isTrue();
+        assertThat(view.atOrAfter(t5)).isEqualTo(view.atOrAfter(t5 - 1));
+    }
+
+    @Test
+    void extendReachesCoverageBackWithOnlyTheOlderRows() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 100, 1, 8);
+        BarSeries s = new BarSeries();
+        s.warm(bars.subList(50, 100), bars.get(50).date(), START);
+        assertThat(s.covers(bars.get(50).date())).isTrue();
+        assertThat(s.covers(bars.get(10).date())).isFalse();
+
+        long changedFrom = s.extend(bars.subList(0, 51), bars.get(0).date());
+
+        assertThat(changedFrom).isEqualTo(BarSeries.timeKey(bars.get(0).date()));
+        assertThat(s.covers(bars.get(0).date())).isTrue();
+        assertThat(s.snapshot().toBars(0)).isEqualTo(bars);
+        // Already resident: coverage moves, nothing changes.
+        assertThat(s.extend(bars.subList(0, 10), null)).isEqualTo(BarSeries.NO_CHANGE);
+        assertThat(s.coveredFrom()).isEqualTo(BarSeries.ALL_HISTORY);
+    }
+
+    @Test
+    void readsPastTheLookbackCapAreClampedAndExtendOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        SupabaseHistoricalDataRepository repo = mock(SupabaseHistoricalDataRepository.class);
+        when(repo.findBarsBySymbolAndIntervalSince(eq("SPY"), eq("1m"), any()))
+                .thenReturn(LegacyAggregation.randomBars(now.minusDays(13), 100, 1, 9));
+        when(repo.findBarsBySymbolAndIntervalBetween(eq("SPY"), eq("1m"), any(), any()))
+                .thenReturn(LegacyAggregation.randomBars(now.minusDays(29), 100, 1, 10));
+        BarStore store = new BarStore(repo, new ConcurrentMapCacheManager(BarStore.CACHE_NAME),
+                new SingleFlight(), event -> { });
+
+        store.read("SPY", "1m", "1m", now.minusDays(60), now);
+        store.read("SPY", "1m", "1m", now.minusDays(45), now);
+
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> until = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repo, times(1)).findBarsBySymbolAndIntervalBetween(eq("SPY"), eq("1m"),
+                from.capture(), until.capture());
+        assertThat(Duration.between(now.minusDays(30), from.getValue()).abs()).isLessThan(Duration.ofMinutes(1));
+        assertThat(Duration.between(now.minusDays(14), until.getValue()).abs()).isLessThan(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void downsampledReadsPastTheCapAreNotKeptAndWritesTrimBackToTheResidentWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        SupabaseHistoricalDataRepository repo = mock(SupabaseHistoricalDataRepository.class);
+        when(repo.findBarsBySymbolAndIntervalSince(eq("SPY"), eq("1m"), any()))
+                .thenReturn(LegacyAggregation.randomBars(now.minusDays(13), 100, 1, 9));
+        when(repo.findBarsBySymbolAndIntervalBetween(eq("SPY"), eq("1m"), any(), any()))
+                .thenReturn(LegacyAggregation.randomBars(now.minusDays(29), 100, 1, 10))
+                .thenReturn(LegacyAggregation.randomBars(now.minusDays(59), 100, 1, 11));
+        BarStore store = new BarStore(repo, new ConcurrentMapCacheManager(BarStore.CACHE_NAME),
+                new SingleFlight(), event -> { });
+
+        // Extends the series to the 30-day cap, then loads the rest for this read only.
+        assertThat(store.read("SPY", "1m", "1m", now.minusDays(60), now, true).size()).isEqualTo(300);
+        assertThat(store.readResident("SPY", "1m", "1m", now).size()).isEqualTo(200);
+        store.read("SPY", "1m", "1m", now.minusDays(60), now, true);
+        verify(repo, times(3)).findBarsBySymbolAndIntervalBetween(eq("SPY"), eq("1m"), any(), any());
+
+        // The next write drops the extension again.
+        store.onBarsWritten(BarsWrittenEvent.of("SPY", "1m",
+                LegacyAggregation.randomBars(now.minusDays(13).plusMinutes(100), 1, 1, 12), now.plusMinutes(1)));
+        BarSeries.View resident = store.readResident("SPY", "1m", "1m", null);
+        assertThat(resident.size()).isEqualTo(101);
+        assertThat(BarSeries.dateOf(resident.columns().time()[resident.from()])).isAfter(now.minusDays(14));
+    }
+
+    @Test
+    void refreshProbesLiveSeriesWithOneGroupedQuery() {
+        LocalDateTime synced = LocalDateTime.of(2025, 1, 10, 15, 0);
+        SupabaseHistoricalDataRepository repo = mock(SupabaseHistoricalDataRepository.class);
+        when(repo.findBarsBySymbolAndIntervalSince(any(), eq("1m"), any()))
+                .thenReturn(LegacyAggregation.randomBars(START, 30, 1, 11));
+        List<Object> events = new ArrayList<>();
+        BarStore store = new BarStore(repo, new ConcurrentMapCacheManager(BarStore.CACHE_NAME),
+                new SingleFlight(), events::add);
+        store.read("SPY", "1m", "1m", null, synced);
+        store.read("ES=F", "1m", "1m", null, synced);
+
+        // Saturday: both markets closed, nothing is probed.
+        assertThat(store.refreshResident(LocalDateTime.of(2025, 1, 11, 15, 0))).isZero();
+        verify(repo, never()).findMaxFetchedAtBySymbols(any());
+
+        // Thursday 18:00 ET: equities are past their grace, futures have reopened.
+        when(repo.findMaxFetchedAtBySymbols(any()))
+                .thenReturn(List.of(latest("ES=F", "1m", synced.plusMinutes(5))));
+        assertThat(store.refreshResident(LocalDateTime.of(2025, 1, 9, 23, 0))).isEqualTo(1);
+        ArgumentCaptor<Collection<String>> symbols = ArgumentCaptor.captor();
+        verify(repo).findMaxFetchedAtBySymbols(symbols.capture());
+        assertThat(symbols.getValue()).containsExactly("ES=F");
+
+        // Friday 10:30 ET: both are probed in the one query; only SPY has moved since.
+        when(repo.findMaxFetchedAtBySymbols(any())).thenReturn(List.of(
+                latest("ES=F", "1m", synced.plusMinutes(5)), latest("SPY", "1m", synced.plusMinutes(5))));
+        assertThat(store.refreshResident(LocalDateTime.of(2025, 1, 10, 15, 30))).isEqualTo(1);
+        verify(repo, times(2)).findMaxFetchedAtBySymbols(symbols.capture());
+        assertThat(symbols.getValue()).containsExactlyInAnyOrder("SPY", "ES=F");
+        verify(repo, never()).findMaxFetchedAtBySymbolAndIntervalType(any(), any());
+        assertThat(events).hasSize(2);
+    }
+
+    private static SupabaseHistoricalDataRepository.LatestFetch latest(String symbol, String interval,
+                                                                       LocalDateTime fetchedAt) {
+        return new SupabaseHistoricalDataRepository.LatestFetch() {
+            @Override
+            public String getSymbol() {
+                return symbol;
+            }
+
+            @Override
+            public String getIntervalType() {
+                return interval;
+            }
+
+            @Override
+            public LocalDateTime getMaxFetchedAt() {
+                return fetchedAt;
+            }
+        };
+    }
+
+    private static BarSeries warmed(List<HistoricalBar> bars) {
+        BarSeries s = new BarSeries();
+        s.warm(bars, null, START);
+        return s;
+    }
+}
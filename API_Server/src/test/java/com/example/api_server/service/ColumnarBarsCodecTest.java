@@ -0,0 +1,155 @@
+package com.example.api_server.service;
+
+import com.example.api_server.config.ColumnarBarsHttpMessageConverter;
+import com.example.api_server.config.WebMvcConfig;
+import com.example.api_server.controller.HistoricalDataController;
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.dto.HistoricalDataResponse;
+import com.example.api_server.dto.OhlcData;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverters;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+
+class ColumnarBarsCodecTest {
+
+    @Test
+    void intradayRoundTripsAndIsAnOrderOfMagnitudeSmallerThanJson() {
+        // ~30 days of 1m bars, prices at cent precision like ingestion writes them.
+        HistoricalDataResponse response = response("1m", bars(11_000, 1), false);
+        response.setLastFetched(1_760_000_000L);
+
+        byte[] encoded = ColumnarBarsCodec.encode(response);
+        HistoricalDataResponse decoded = ColumnarBarsCodec.decode(encoded);
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(response);
+        byte[] json = JsonMapper.builder().build().writeValueAsBytes(response);
+        assertThat(encoded.length * 10).isLessThan(json.length);
+    }
+
+    @Test
+    void dailyBarsKeepTheirDateStrings() {
+        HistoricalDataResponse response = response("1d", bars(500, 60 * 24), true);
+
+        HistoricalDataResponse decoded = ColumnarBarsCodec.decode(ColumnarBarsCodec.encode(response));
+
+        assertThat(decoded).usingRecursiveComparison().isEqualTo(response);
+        assertThat(decoded.getData().get(0).getTime()).matches("\\d{4}-\\d{2}-\\d{2}");
+    }
+
+    @Test
+    void encodingAViewMatchesEncodingTheResponseBuiltFromIt() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(LocalDateTime.of(2024, 1, 2, 9, 30), 400, 1, 12);
+        BarSeries series = new BarSeries();
+        series.warm(bars, null, bars.get(0).date());
+        BarSeries.View view = series.snapshot().view(0).atOrAfter(BarSeries.timeKey(bars.get(150).date()));
+
+        for (boolean intraday : new boolean[]{true, false}) {
+            List<OhlcData> data = new ArrayList<>();
+            BarSeries.Snapshot c = view.columns();
+            for (int i = view.from(); i < view.to(); i++) {
+                Long volume = c.volume()[i] == BarSeries.NO_VOLUME ? null : c.volume()[i];
+                data.add(new OhlcData(HistoricalDataService.timeLabel(c.time()[i], intraday),
+                        c.open()[i], c.high()[i], c.low()[i], c.close()[i], volume));
+            }
+            HistoricalDataResponse response =
+                    new HistoricalDataResponse("ES=F", "5d", "1m", "2024-01-02 10:00:00", data);
+
+            assertThat(ColumnarBarsCodec.encode("ES=F", "5d", "1m", "2024-01-02 10:00:00", view, intraday))
+                    .isEqualTo(ColumnarBarsCodec.encode(response));
+        }
+    }
+
+    @Test
+    void emptyResponseAndTruncatedInput() {
+        HistoricalDataResponse empty = new HistoricalDataResponse("SPY", "since", "5m", "2024-01-02 10:00:00", List.of());
+
+        byte[] encoded = ColumnarBarsCodec.encode(empty);
+
+        assertThat(ColumnarBarsCodec.decode(encoded)).usingRecursiveComparison().isEqualTo(empty);
+        assertThatThrownBy(() -> ColumnarBarsCodec.decode(Arrays.copyOf(encoded, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void aBarCountLargerThanThePayloadIsRejectedBeforeAllocating() {
+        byte[] empty = ColumnarBarsCodec.encode(
+                new HistoricalDataResponse("SPY", "since", "5m", "2024-01-02 10:00:00", List.of()));
+        // Swap the trailing zero count for ~268M bars.
+        byte[] forged = Arrays.copyOf(empty, empty.length + 3);
+        forged[empty.length - 1] = (byte) 0xFF;
+        forged[empty.length] = (byte) 0xFF;
+        forged[empty.length + 1] = (byte) 0xFF;
+        forged[empty.length + 2] = 0x7F;
+
+        assertThatThrownBy(() -> ColumnarBarsCodec.decode(forged))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("exceeds the payload");
+    }
+
+    @Test
+    void jsonStaysTheDefaultWithTheConverterRegisteredAheadOfJackson() throws Exception {
+        LiveHistoricalService live = mock(LiveHistoricalService.class);
+        when(live.getRecent1mBars("SPY")).thenReturn(response("1m", bars(3, 1), false));
+        HttpMessageConverters.ServerBuilder builder = HttpMessageConverters.forServer().registerDefaults();
+        new WebMvcConfig().configureMessageConverters(builder);
+        List<HttpMessageConverter<?>> converters = new ArrayList<>();
+        builder.build().forEach(converters::add);
+        assertThat(converters.get(0)).isInstanceOf(ColumnarBarsHttpMessageConverter.class);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new HistoricalDataController(
+                        mock(HistoricalDataService.class), live, mock(HistoricalBatchService.class)))
+                .setMessageConverters(converters.toArray(HttpMessageConverter[]::new))
+                .build();
+
+        mvc.perform(get("/api/historical/recent").param("symbol", "SPY").accept(MediaType.ALL))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mvc.perform(get("/api/historical/recent").param("symbol", "SPY"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        mvc.perform(get("/api/historical/recent").param("symbol", "SPY")
+                        .accept(ColumnarBarsHttpMessageConverter.COLUMNAR_BARS))
+                .andExpect(content().contentType(ColumnarBarsHttpMessageConverter.COLUMNAR_BARS));
+    }
+
+    private static List<OhlcData> bars(int count, int stepMinutes) {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(LocalDateTime.of(2024, 1, 2, 9, 30), count, stepMinutes, 11);
+        ZoneId zone = ZoneId.systemDefault();
+        List<OhlcData> out = new ArrayList<>(count);
+        for (HistoricalBar b : bars) {
+            out.add(new OhlcData(String.valueOf(b.date().atZone(zone).toEpochSecond()),
+                    cents(b.open()), cents(b.high()), cents(b.low()), cents(b.close()), b.volume()));
+        }
+        return out;
+    }
+
+    private static HistoricalDataResponse response(String interval, List<OhlcData> bars, boolean daily) {
+        if (daily) {
+            ZoneId zone = ZoneId.systemDefault();
+            for (OhlcData b : bars) {
+                b.setTime(Instant.ofEpochSecond(Long.parseLong(b.getTime()))
+                        .atZone(zone).toLocalDate().toString());
+            }
+        }
+        return new HistoricalDataResponse("ES=F", "max", interval, "2024-01-02 10:00:00", bars);
+    }
+
+    private static double cents(double price) {
+        return Math.round(price * 100.0) / 100.0;
+    }
+}
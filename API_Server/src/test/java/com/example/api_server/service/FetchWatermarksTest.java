@@ -0,0 +1,94 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.service.MarketDataIngestionService.OhlcBar;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FetchWatermarksTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 10, 14, 30);
+    private static final long DAY = BarBucketing.SECONDS_PER_DAY;
+
+    @Test
+    void windowStartsBehindTheLastFinalizedBar() {
+        FetchWatermarks marks = new FetchWatermarks();
+        List<HistoricalBar> run = LegacyAggregation.randomBars(START, 390, 1, 3);
+        long developing = BarSeries.timeKey(run.get(389).date());
+
+        assertThat(marks.writeFrom("SPY", "1m", 60, DAY, developing)).isNull();
+
+        marks.advance("SPY", "1m", run);
+        long finalized = developing - 60;
+        Long from = marks.writeFrom("SPY", "1m", 60, DAY, developing + 30);
+        assertThat(from).isEqualTo(finalized - FetchWatermarks.OVERLAP_BARS * 60);
+        assertThat(from).isLessThanOrEqualTo(developing);
+        assertThat(marks.writeFrom("SPY", "5m", 300, DAY, developing)).isNull();
+    }
+
+    @Test
+    void aWindowIsSanitizedExactlyAsTheFullFetchWas() {
+        // ES=F minutes into the 17:00 ET close, then the 18:00 reopen, with
+        // phantom opens and lows scattered through both sessions.
+        List<OhlcBar> all = new ArrayList<>();
+        Random rnd = new Random(5);
+        double price = 6_000;
+        LocalDateTime t = LocalDateTime.of(2025, 1, 10, 20, 0);
+        for (int i = 0; i < 240; i++) {
+            if (i == 120) t = t.plusHours(1);
+            double open = price;
+            double close = open + rnd.nextGaussian();
+            if (i % 13 == 5) open = close * 0.99;
+            double low = Math.min(open, close) - (i % 17 == 3 ? 40 : rnd.nextDouble());
+            all.add(new OhlcBar(t, open, Math.max(open, close) + rnd.nextDouble(), low, close, 100));
+            price = close;
+            t = t.plusMinutes(1);
+        }
+        List<HistoricalBar> full = MarketDataIngestionService.sanitize("ES=F", "1m", all, List.of());
+
+        // Runs ending just before, at and after the break, and mid-session.
+        for (int seen : new int[]{60, 119, 120, 121, 122, 124, 200}) {
+            FetchWatermarks marks = new FetchWatermarks();
+            marks.advance("ES=F", "1m", full.subList(0, seen));
+            long now = BarSeries.timeKey(all.get(seen).timestamp());
+            long writeFrom = marks.writeFrom("ES=F", "1m", 60, DAY, now);
+            int first = 0;
+            while (BarSeries.timeKey(all.get(first).timestamp()) < writeFrom) first++;
+            List<OhlcBar> window = all.subList(first, all.size());
+
+            List<Double> history = marks.closesBefore("ES=F", "1m", writeFrom,
+                    BarSeries.timeKey(window.get(0).timestamp()), 5);
+            List<HistoricalBar> expected = full.subList(first, full.size());
+            assertThat(MarketDataIngestionService.sanitize("ES=F", "1m", window, history))
+                    .as("after %d bars", seen)
+                    .isEqualTo(expected);
+            if (seen == 60) {
+                // Without the history the window's first phantom is clamped differently.
+                assertThat(MarketDataIngestionService.sanitize("ES=F", "1m", window, List.of()))
+                        .isNotEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void staleOrRewoundWatermarksDontNarrowTheFetch() {
+        FetchWatermarks marks = new FetchWatermarks();
+        List<HistoricalBar> run = LegacyAggregation.randomBars(START, 390, 1, 3);
+        marks.advance("SPY", "1m", run);
+        long finalized = BarSeries.timeKey(run.get(388).date());
+
+        // A shorter, older batch never moves the mark back.
+        marks.advance("SPY", "1m", run.subList(0, 10));
+        assertThat(marks.writeFrom("SPY", "1m", 60, DAY, finalized + 60))
+                .isEqualTo(finalized - FetchWatermarks.OVERLAP_BARS * 60);
+
+        // Past the range (a weekend), the full range is fetched again.
+        assertThat(marks.writeFrom("SPY", "1m", 60, DAY, finalized + 2 * DAY)).isNull();
+    }
+}
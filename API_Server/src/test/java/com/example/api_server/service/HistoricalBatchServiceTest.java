@@ -0,0 +1,51 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalQuery;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class HistoricalBatchServiceTest {
+
+    private final JsonMapper json = JsonMapper.builder().build();
+    private final HistoricalDataService data = mock(HistoricalDataService.class);
+
+    @Test
+    void aBadQueryAnywhereRejectsTheBatchBeforeAnyLoadStarts() {
+        BoundedLoadExecutor loads = mock(BoundedLoadExecutor.class);
+        HistoricalBatchService batch = new HistoricalBatchService(data, json, loads);
+
+        assertThatThrownBy(() -> batch.load(List.of(query("SPY", null), query("QQQ", null), query("IWM", 1))))
+                .isInstanceOf(IllegalArgumentException.class);
+        verify(loads, never()).submit(any());
+    }
+
+    @Test
+    void aFailedLoadReportsItsKindNotItsMessage() {
+        when(data.getHistoricalDataBody("SPY", "1mo", "1d", null))
+                .thenThrow(new IllegalStateException("ERROR: relation \"historical_data\" does not exist"));
+        HistoricalBatchService batch = new HistoricalBatchService(data, json, new BoundedLoadExecutor(2));
+
+        JsonNode entry = json.readTree(batch.load(List.of(query("SPY", null)))).get(0);
+
+        assertThat(entry.get("symbol").asString()).isEqualTo("SPY");
+        assertThat(entry.get("error").asString()).isEqualTo("load failed");
+    }
+
+    private static HistoricalQuery query(String symbol, Integer maxPoints) {
+        HistoricalQuery q = new HistoricalQuery();
+        q.setSymbol(symbol);
+        q.setMaxPoints(maxPoints);
+        return q;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.api_server.service;
+
+import com.example.api_server.controller.HistoricalDataController;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** ETag and Last-Modified on {@code /api/historical}. */
+class HistoricalValidatorsTest {
+
+    private static final LocalDateTime FETCHED = LocalDateTime.of(2025, 1, 10, 16, 0);
+    private static final ResponseBytes BYTES = ResponseBytes.of("{}".getBytes(), new byte[]{1});
+
+    private final HistoricalDataService service = mock(HistoricalDataService.class);
+    private final MockMvc mvc = MockMvcBuilders.standaloneSetup(new HistoricalDataController(
+            service, mock(LiveHistoricalService.class), mock(HistoricalBatchService.class))).build();
+
+    @Test
+    void aFallbackBodyIsNeverValidated() throws Exception {
+        when(service.getHistoricalDataBody("SPY", "1d", "1m", null))
+                .thenReturn(new HistoricalBody(BYTES, HistoricalBody.NO_BARS, true));
+
+        mvc.perform(get("/api/historical").param("symbol", "SPY").param("period", "1d").param("interval", "1m"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-store"))
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG))
+                .andExpect(header().doesNotExist(HttpHeaders.LAST_MODIFIED));
+        verify(service, never()).lastModified(any(), any());
+    }
+
+    @Test
+    void aMovedWindowChangesTheTagWithoutANewWrite() throws Exception {
+        when(service.lastModified("SPY", "1m")).thenReturn(FETCHED);
+        when(service.getHistoricalDataBody("SPY", "1mo", "1m", null))
+                .thenReturn(new HistoricalBody(BYTES, 1_000, false));
+        String etag = mvc.perform(get("/api/historical").param("symbol", "SPY").param("interval", "1m"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        mvc.perform(get("/api/historical").param("symbol", "SPY").param("interval", "1m")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        // Same fetched_at, but the lookback cap has dropped the oldest bar.
+        when(service.getHistoricalDataBody("SPY", "1mo", "1m", null))
+                .thenReturn(new HistoricalBody(BYTES, 1_060, false));
+        mvc.perform(get("/api/historical").param("symbol", "SPY").param("interval", "1m")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class IndicatorSeriesTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 2, 9, 30);
+    private static final ZoneId ET = ZoneId.of("America/New_York");
+
+    private static final List<IndicatorSpec> SPECS = List.of(
+            IndicatorSpec.of("sma", 20, null, null, null),
+            IndicatorSpec.of("ema", 21, null, null, null),
+            IndicatorSpec.of("bb", 20, 2.0, null, null),
+            IndicatorSpec.of("vwap", null, null, null, null),
+            IndicatorSpec.of("trend", null, null, 21, 200));
+
+    @Test
+    void matchesTheChartsFullRecalculation() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(START, 3_000, 5, 21);
+        BarSeries.Snapshot in = BarAggregator.columnsOf(bars);
+        int n = in.size();
+
+        IndicatorSeries sma = advancedOnce(SPECS.get(0), in);
+        IndicatorSeries ema = advancedOnce(SPECS.get(1), in);
+        IndicatorSeries bb = advancedOnce(SPECS.get(2), in);
+        for (int i = 0; i < n; i++) {
+            double[] window = closes(in, i - 19, i);
+            if (window == null) {
+                assertThat(sma.value(0, i)).isNaN();
+                continue;
+            }
+            double mean = mean(window);
+            double std = Math.sqrt(mean(squaredDeviations(window, mean)));
+            assertThat(sma.value(0, i)).isCloseTo(mean, within(1e-9));
+            assertThat(bb.value(0, i)).isCloseTo(mean + 2 * std, within(1e-9));
+            assertThat(bb.value(2, i)).isCloseTo(mean - 2 * std, within(1e-9));
+        }
+
+        // calcEMA: seeded with the SMA of the first `period` closes.
+        double e = mean(closes(in, 0, 20));
+        assertThat(ema.value(0, 19)).isNaN();
+        assertThat(ema.value(0, 20)).isCloseTo(e, within(1e-9));
+        for (int i = 21; i < n; i++) {
+            e = (in.close()[i] - e) * (2.0 / 22) + e;
+            assertThat(ema.value(0, i)).isCloseTo(e, within(1e-9));
+        }
+    }
+
+    @Test
+    void intradayVwapResetsAtEachSessionOpen() {
+        // Crosses the March DST change, with the odd overnight gap.
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(LocalDateTime.of(2024, 3, 6, 12, 0), 3_000, 5, 13);
+        BarSeries.Snapshot in = BarAggregator.columnsOf(bars);
+        IndicatorSpec vwap = SPECS.get(3);
+
+        for (String symbol : List.of("SPY", "ES=F")) {
+            // The session a bar belongs to, straight from the ET wall clock:
+            // the 09:30 open, or the 18:00 Globex open the evening before.
+            Duration shift = symbol.endsWith("=F") ? Duration.ofHours(6) : Duration.ofMinutes(-570);
+            IndicatorSeries s = new IndicatorSeries(symbol, "5m", vwap, true);
+            s.advance(in.view(0));
+
+            LocalDate session = null;
+            double volume = 0;
+            double weighted = 0;
+            int resets = 0;
+            for (int i = 0; i < in.size(); i++) {
+                LocalDate d = bars.get(i).date().atZone(ZoneOffset.UTC).withZoneSameInstant(ET)
+                        .toLocalDateTime().plus(shift).toLocalDate();
+                if (!d.equals(session)) {
+                    session = d;
+                    volume = 0;
+                    weighted = 0;
+                    resets++;
+                }
+                long v = Math.max(0, in.volume()[i]);
+                volume += v;
+                weighted += (in.high()[i] + in.low()[i] + in.close()[i]) / 3 * v;
+                if (volume == 0) {
+                    assertThat(s.value(0, i)).isNaN();
+                } else {
+                    assertThat(s.value(0, i)).as("%s @%d", symbol, i).isCloseTo(weighted / volume, within(1e-9));
+                }
+            }
+            assertThat(resets).isGreaterThan(10);
+        }
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFreshRebuild() {
+        List<HistoricalBar> all = new ArrayList<>(LegacyAggregation.randomBars(START, 4_000, 1, 9));
+        List<IndicatorSeries> live = new ArrayList<>();
+        for (IndicatorSpec spec : SPECS) live.add(new IndicatorSeries("SPY", "1m", spec, true));
+
+        int size = 1_000;
+        for (IndicatorSeries s : live) s.advance(BarAggregator.columnsOf(all.subList(0, size)).view(0));
+        while (size < all.size()) {
+            // Ingestion rewrites the developing bar and the one before it, then appends.
+            revise(all, size - 1);
+            revise(all, size - 2);
+            size = Math.min(all.size(), size + 7);
+            BarSeries.View view = BarAggregator.columnsOf(all.subList(0, size)).view(0);
+            for (IndicatorSeries s : live) s.advance(view);
+        }
+
+        // A correction deep in the history is only visible through the event.
+        revise(all, 2_000);
+        BarSeries.View view = BarAggregator.columnsOf(all).view(0);
+        for (IndicatorSeries s : live) {
+            s.invalidateFrom(BarSeries.timeKey(all.get(2_000).date()));
+            s.advance(view);
+        }
+
+        BarSeries.Snapshot in = view.columns();
+        for (IndicatorSeries s : live) {
+            IndicatorSeries fresh = advancedOnce(s.spec(), in);
+            assertThat(s.size()).isEqualTo(fresh.size());
+            for (int k = 0; k < s.spec().outputs().size(); k++) {
+                for (int i = 0; i < s.size(); i++) {
+                    assertThat(Double.valueOf(s.value(k, i))).as("%s[%d] @%d", s.spec().key(), k, i)
+                            .isEqualTo(Double.valueOf(fresh.value(k, i)));
+                }
+            }
+        }
+    }
+
+    private static IndicatorSeries advancedOnce(IndicatorSpec spec, BarSeries.Snapshot in) {
+        IndicatorSeries s = new IndicatorSeries("SPY", "5m", spec, true);
+        s.advance(in.view(0));
+        return s;
+    }
+
+    private static void revise(List<HistoricalBar> bars, int i) {
+        HistoricalBar b = bars.get(i);
+        bars.set(i, new HistoricalBar(b.date(), b.open(), b.high() + 0.1, b.low(), b.close() + 0.05,
+                b.volume() == null ? 100L : b.volume() + 100));
+    }
+
+    private static double[] closes(BarSeries.Snapshot in, int from, int to) {
+        if (from < 0) return null;
+        double[] out = new double[to - from + 1];
+        for (int i = from; i <= to; i++) out[i - from] = in.close()[i];
+        return out;
+    }
+
+    private static double mean(double[] xs) {
+        double sum = 0;
+        for (double x : xs) sum += x;
+        return sum / xs.length;
+    }
+
+    private static double[] squaredDeviations(double[] xs, double mean) {
+        double[] out = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) out[i] = (xs[i] - mean) * (xs[i] - mean);
+        return out;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The list-based aggregation {@code HistoricalDataService} used before
+ * {@link BarAggregator}, kept verbatim as the reference for the parity test
+ * and the baseline for {@code AggregationBenchmark}.
+ */
+public final class LegacyAggregation {
+
+    private LegacyAggregation() {}
+
+    public static List<HistoricalBar> aggregateToNMinutes(List<HistoricalBar> minuteData, int n) {
+        List<HistoricalBar> result = new ArrayList<>();
+        if (minuteData.isEmpty()) return result;
+
+        // Group 1m bars into time-aligned buckets
+        LinkedHashMap<LocalDateTime, List<HistoricalBar>> grouped = new LinkedHashMap<>();
+        for (HistoricalBar e : minuteData) {
+            LocalDateTime dt = e.date();
+            int totalMinutes = dt.getHour() * 60 + dt.getMinute();
+            int bucketMinutes = (totalMinutes / n) * n;
+            LocalDateTime bucketKey = dt.toLocalDate().atStartOfDay().plusMinutes(bucketMinutes);
+            grouped.computeIfAbsent(bucketKey, k -> new ArrayList<>()).add(e);
+        }
+
+        for (Map.Entry<LocalDateTime, List<HistoricalBar>> entry : grouped.entrySet()) {
+            List<HistoricalBar> bars = entry.getValue();
+            HistoricalBar first = bars.get(0);
+            double high = bars.stream().mapToDouble(HistoricalBar::high).max().orElse(0);
+            double low = bars.stream().mapToDouble(HistoricalBar::low).min().orElse(0);
+            long volume = bars.stream().mapToLong(b -> b.volume() == null ? 0L : b.volume()).sum();
+            result.add(new HistoricalBar(
+                    entry.getKey(),
+                    first.open(), high, low,
+                    bars.get(bars.size() - 1).close(),
+                    volume));
+        }
+        return result;
+    }
+
+    public static List<HistoricalBar> aggregateToWeekly(List<HistoricalBar> dailyData) {
+        List<HistoricalBar> result = new ArrayList<>();
+        if (dailyData.isEmpty()) return result;
+
+        LinkedHashMap<LocalDate, List<HistoricalBar>> grouped = new LinkedHashMap<>();
+        for (HistoricalBar e : dailyData) {
+            // Group by Monday of the week
+            LocalDate weekStart = e.date().toLocalDate().with(DayOfWeek.MONDAY);
+            grouped.computeIfAbsent(weekStart, k -> new ArrayList<>()).add(e);
+        }
+
+        for (Map.Entry<LocalDate, List<HistoricalBar>> entry : grouped.entrySet()) {
+            List<HistoricalBar> bars = entry.getValue();
+            HistoricalBar first = bars.get(0);
+            double high = bars.stream().mapToDouble(HistoricalBar::high).max().orElse(0);
+            double low = bars.stream().mapToDouble(HistoricalBar::low).min().orElse(0);
+            long volume = bars.stream().mapToLong(b -> b.volume() == null ? 0L : b.volume()).sum();
+            result.add(new HistoricalBar(
+                    entry.getKey().atStartOfDay(),
+                    first.open(), high, low,
+                    bars.get(bars.size() - 1).close(),
+                    volume));
+        }
+        return result;
+    }
+
+    /**
+     * Synthetic session-shaped bars: {@code stepMinutes} apart with random
+     * overnight gaps, ~10% NULL volumes, random-walk prices.
+     */
+    public static List<HistoricalBar> randomBars(LocalDateTime start, int count, int stepMinutes, long seed) {
+        Random rnd = new Random(seed);
+        List<HistoricalBar> out = new ArrayList<>(count);
+        LocalDateTime t = start;
+        double price = 450.0;
+        for (int i = 0; i < count; i++) {
+            double open = price;
+            double close = open + rnd.nextGaussian() * 0.25;
+            double high = Math.max(open, close) + rnd.nextDouble() * 0.2;
+            double low = Math.min(open, close) - rnd.nextDouble() * 0.2;
+            Long volume = rnd.nextInt(10) == 0 ? null : (long) rnd.nextInt(50_000);
+            out.add(new HistoricalBar(t, open, high, low, close, volume));
+            price = close;
+            t = rnd.nextInt(400) == 0 ? t.plusHours(17).plusMinutes(stepMinutes) : t.plusMinutes(stepMinutes);
+        }
+        return out;
+    }
+}
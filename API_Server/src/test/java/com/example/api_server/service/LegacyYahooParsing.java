@@ -0,0 +1,132 @@
+package com.example.api_server.service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code Map<String, Object>} walks {@link YahooChart} and
+ * {@link YahooOptionChain} replaced ({@code MarketDataIngestionService.parseBars},
+ * {@code GammaExposureComputeService.parseContracts}), kept as the
+ * reference the streaming decoders are checked and benchmarked against.
+ */
+public final class LegacyYahooParsing {
+
+    private LegacyYahooParsing() {}
+
+    public record Bar(LocalDateTime timestamp, double open, double high, double low, double close, long volume) {}
+
+    public record Contract(double strike, double iv, long openInterest, long volume) {}
+
+    public static List<Bar> parseBars(Map<String, Object> body, boolean intraday) {
+        List<Bar> bars = new ArrayList<>();
+        if (body == null) return bars;
+        Object chart = body.get("chart");
+        if (!(chart instanceof Map<?, ?> cm)) return bars;
+        Object resultList = cm.get("result");
+        if (!(resultList instanceof List<?> results) || results.isEmpty()) return bars;
+        Object first = results.get(0);
+        if (!(first instanceof Map<?, ?> firstMap)) return bars;
+
+        Object tsRaw = firstMap.get("timestamp");
+        if (!(tsRaw instanceof List<?> timestamps)) return bars;
+
+        Object indicators = firstMap.get("indicators");
+        if (!(indicators instanceof Map<?, ?> indMap)) return bars;
+        Object quoteList = indMap.get("quote");
+        if (!(quoteList instanceof List<?> qList) || qList.isEmpty()) return bars;
+        Object quoteFirst = qList.get(0);
+        if (!(quoteFirst instanceof Map<?, ?> quote)) return bars;
+
+        List<?> opens = asList(quote.get("open"));
+        List<?> highs = asList(quote.get("high"));
+        List<?> lows = asList(quote.get("low"));
+        List<?> closes = asList(quote.get("close"));
+        List<?> volumes = asList(quote.get("volume"));
+
+        Set<Long> seen = new LinkedHashSet<>();
+        for (int i = 0; i < timestamps.size(); i++) {
+            Long ts = readLong(timestamps.get(i));
+            if (ts == null) continue;
+            Double open = readDouble(get(opens, i));
+            Double high = readDouble(get(highs, i));
+            Double low = readDouble(get(lows, i));
+            Double close = readDouble(get(closes, i));
+            Long volume = readLong(get(volumes, i));
+            if (open == null || high == null || low == null || close == null) continue;
+            if (!seen.add(ts)) continue;
+
+            LocalDateTime barTime = intraday
+                    ? LocalDateTime.ofInstant(Instant.ofEpochSecond(ts), ZoneOffset.UTC)
+                    : LocalDateTime.ofInstant(Instant.ofEpochSecond(ts), ZoneOffset.UTC)
+                            .toLocalDate().atStartOfDay();
+            bars.add(new Bar(barTime, open, high, low, close, volume == null ? 0 : volume));
+        }
+        return bars;
+    }
+
+    /** {@code optionChain.result[0].options[0].calls} or {@code .puts}, or null. */
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> side(Map<String, Object> body, String side) {
+        if (body == null) return null;
+        Object chain = body.get("optionChain");
+        if (!(chain instanceof Map<?, ?> chainMap)) return null;
+        Object result = ((Map<String, Object>) chainMap).get("result");
+        if (!(result instanceof List<?> list) || list.isEmpty()) return null;
+        if (!(list.get(0) instanceof Map<?, ?> first)) return null;
+        Object opts = ((Map<String, Object>) first).get("options");
+        if (!(opts instanceof List<?> optList) || optList.isEmpty()
+                || !(optList.get(0) instanceof Map<?, ?> options)) {
+            return null;
+        }
+        return (List<Map<String, Object>>) ((Map<String, Object>) options).get(side);
+    }
+
+    public static List<Contract> parseContracts(List<Map<String, Object>> raw) {
+        if (raw == null) return List.of();
+        List<Contract> out = new ArrayList<>(raw.size());
+        for (Map<String, Object> r : raw) {
+            double strike = doubleOf(r.get("strike"), 0);
+            double iv = doubleOf(r.get("impliedVolatility"), 0);
+            long oi = longOf(r.get("openInterest"), 0);
+            long vol = longOf(r.get("volume"), 0);
+            if (strike <= 0) continue;
+            out.add(new Contract(strike, iv, oi, vol));
+        }
+        return out;
+    }
+
+    private static List<?> asList(Object o) { return o instanceof List<?> l ? l : List.of(); }
+    private static Object get(List<?> l, int i) { return i < l.size() ? l.get(i) : null; }
+    private static Double readDouble(Object v) {
+        if (!(v instanceof Number n)) return null;
+        double d = n.doubleValue();
+        return Double.isNaN(d) || Double.isInfinite(d) ? null : d;
+    }
+    private static Long readLong(Object v) {
+        if (!(v instanceof Number n)) return null;
+        double d = n.doubleValue();
+        return Double.isNaN(d) || Double.isInfinite(d) ? null : (long) d;
+    }
+
+    private static double doubleOf(Object o, double fallback) {
+        if (o instanceof Number n) {
+            double v = n.doubleValue();
+            return Double.isNaN(v) || Double.isInfinite(v) ? fallback : v;
+        }
+        return fallback;
+    }
+
+    private static long longOf(Object o, long fallback) {
+        if (o instanceof Number n) {
+            double v = n.doubleValue();
+            return Double.isNaN(v) || Double.isInfinite(v) ? fallback : (long) v;
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.api_server.service;
+
+import com.example.api_server.controller.LiveStreamController;
+import com.example.api_server.exception.GlobalExceptionHandler;
+import com.example.api_server.exception.MarketDataException;
+import com.example.api_server.dto.HistoricalBar;
+import com.example.api_server.dto.OhlcData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LiveStreamServiceTest {
+
+    private final BarStore barStore = mock(BarStore.class);
+    private final LiveStreamService service = new LiveStreamService(mock(LiveMarketDataService.class),
+            barStore, mock(HistoricalDataService.class), JsonMapper.builder().build(), 60_000, 2, 3);
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void unknownIntervalsAreA400() throws Exception {
+        assertThatThrownBy(() -> service.subscribe("SPY", "1h"))
+                .isInstanceOfSatisfying(MarketDataException.class, ex -> assertThat(ex.getStatusCode()).isEqualTo(400));
+        assertThatThrownBy(() -> service.subscribe("SPY", "banana"))
+                .isInstanceOf(MarketDataException.class);
+
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new LiveStreamController(service))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        mvc.perform(get("/api/stream").param("symbol", "SPY").param("interval", "2h")
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isBadRequest());
+        assertThat(service.stats()).containsEntry("topics", 0L).containsEntry("subscribers", 0L);
+    }
+
+    @Test
+    void subscribesPastEitherCapAreRefused() {
+        service.subscribe("SPY", "1m");
+        service.subscribe("SPY", "1m");
+        service.subscribe("QQQ", "5m");
+
+        // Third topic, and a fourth connection to an existing one.
+        assertThatThrownBy(() -> service.subscribe("IWM", "1m"))
+                .isInstanceOfSatisfying(MarketDataException.class, ex -> assertThat(ex.getStatusCode()).isEqualTo(503));
+        assertThatThrownBy(() -> service.subscribe("SPY", "1m"))
+                .isInstanceOf(MarketDataException.class);
+        assertThat(service.stats())
+                .containsEntry("topics", 2L)
+                .containsEntry("subscribers", 3L)
+                .containsEntry("rejected", 2L);
+    }
+
+    @Test
+    void barsArePushedFromTheSeriesAWriteJustPatched() {
+        List<HistoricalBar> bars = LegacyAggregation.randomBars(LocalDateTime.of(2025, 1, 10, 14, 30), 10, 5, 3);
+        BarSeries.Snapshot columns = BarAggregator.columnsOf(bars);
+        when(barStore.readResident(eq("QQQ"), eq("5m"), eq("15m"), any())).thenReturn(columns.view(0));
+        service.subscribe("SPY", "1m");
+        service.subscribe("QQQ", "15m");
+        verify(barStore, timeout(5_000)).readResident(eq("QQQ"), eq("5m"), eq("15m"), any());
+
+        service.onBarsWritten(BarsWrittenEvent.of("QQQ", "5m", bars.subList(9, 10), LocalDateTime.now()));
+        verify(barStore, timeout(5_000).times(2)).readResident(eq("QQQ"), eq("5m"), eq("15m"), any());
+        verify(barStore, timeout(5_000).times(1)).readResident(eq("SPY"), eq("1m"), eq("1m"), any());
+
+        OhlcData last = LiveStreamService.lastBar(columns.view(0));
+        assertThat(last.getTime()).isEqualTo(String.valueOf(HistoricalDataService.wireSeconds(columns.time()[9])));
+        assertThat(last.getClose()).isEqualTo(bars.get(9).close());
+        assertThat(LiveStreamService.lastBar(BarSeries.View.EMPTY)).isNull();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.api_server.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Test
+    void concurrentCallersShareOneLoad() throws Exception {
+        SingleFlight flights = new SingleFlight();
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Future<String>> results = runConcurrently(flights, () -> {
+            loads.incrementAndGet();
+            return "bars";
+        });
+
+        for (Future<String> f : results) assertThat(f.get(5, TimeUnit.SECONDS)).isEqualTo("bars");
+        assertThat(loads).hasValue(1);
+        assertThat(flights.stats().get("test")).containsEntry("loads", 1L).containsEntry("coalesced", CALLERS - 1L);
+
+        // The flight is over: the next caller loads again.
+        assertThat(flights.run("test", "SPY", () -> "fresh")).isEqualTo("fresh");
+        assertThat(flights.stats().get("test")).containsEntry("loads", 2L);
+    }
+
+    @Test
+    void waitersSeeTheLeadersFailure() throws Exception {
+        SingleFlight flights = new SingleFlight();
+
+        List<Future<String>> results = runConcurrently(flights, () -> {
+            throw new IllegalStateException("pool exhausted");
+        });
+
+        for (Future<String> f : results) {
+            assertThatThrownBy(() -> f.get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("pool exhausted");
+        }
+        assertThat(flights.stats().get("test")).containsEntry("loads", 1L).containsEntry("coalesced", CALLERS - 1L);
+    }
+
+    /**
+     * Run {@code loader} from {@link #CALLERS} threads at once. The leader
+     * holds its load open until every other caller has joined the flight,
+     * so the result never depends on how fast the threads get scheduled.
+     */
+    private static List<Future<String>> runConcurrently(SingleFlight flights, Supplier<String> loader) {
+        ExecutorService pool = Executors.newFixedThreadPool(CALLERS);
+        CountDownLatch entered = new CountDownLatch(CALLERS);
+        Supplier<String> gated = () -> {
+            await(entered);
+            awaitCoalesced(flights, "test", CALLERS - 1);
+            return loader.get();
+        };
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(pool.submit(() -> {
+                entered.countDown();
+                return flights.run("test", "SPY", gated);
+            }));
+        }
+        pool.shutdown();
+        return results;
+    }
+
+    /** Wait until {@code n} callers in {@code group} have been parked on someone else's load. */
+    static void awaitCoalesced(SingleFlight flights, String group, long n) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalesced(flights, group) < n) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("only " + coalesced(flights, group) + " of " + n + " callers joined");
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private static long coalesced(SingleFlight flights, String group) {
+        return flights.stats().getOrDefault(group, Map.of()).getOrDefault("coalesced", 0L);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.api_server.service;
+
+import com.example.api_server.dto.HistoricalBar;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class VolumeProfileTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 9, 23, 0);
+    private static final double TICK = 0.25;
+    private static final Path PYTHON_FIXTURE = Path.of("../functions/tests/fixtures/volume_profile_nq.json");
+
+    @Test
+    void splitsABarBetweenBodyAndWicks() {
+        // Range 1.5, body 0.5 → wick ratio 2/3 → body weight 0.65.
+        VolumeProfile p = new VolumeProfile(0.5);
+        p.advance(BarAggregator.columnsOf(List.of(
+                new HistoricalBar(START, 100.0, 101.0, 99.5, 100.5, 1000L))).view(0));
+
+        assertThat(p.price(p.lowTick())).isEqualTo(99.5);
+        assertThat(p.raw()).containsExactly(new double[]{175.0, 325.0, 325.0, 175.0}, within(1e-9));
+    }
+
+    /**
+     * Against {@code calculate_volume_profile}'s own output for the bars in
+     * the fixture, generated on pandas/numpy as
+     * {@code functions/tests/fixtures/README.md} describes.
+     */
+    @Test
+    void matchesThePythonImplementation() throws Exception {
+        JsonNode fixture = JsonMapper.builder().build().readTree(Files.readString(PYTHON_FIXTURE));
+        List<HistoricalBar> bars = new ArrayList<>();
+        for (JsonNode b : fixture.get("bars")) {
+            bars.add(new HistoricalBar(START.plusMinutes(bars.size()), b.get(0).doubleValue(), b.get(1).doubleValue(),
+                    b.get(2).doubleValue(), b.get(3).doubleValue(), b.get(4).isNull() ? null : b.get(4).longValue()));
+        }
+        VolumeProfile p = new VolumeProfile(fixture.get("tickSize").doubleValue());
+        p.advance(BarAggregator.columnsOf(bars).view(0));
+
+        assertMatches(p, profile(fixture.get("raw")), profile(fixture.get("smoothed")));
+    }
+
+    @Test
+    void incrementalUpdatesMatchAFreshRebuild() {
+        List<HistoricalBar> all = new ArrayList<>(nqBars(1_380, 11));
+        VolumeProfile live = new VolumeProfile(TICK);
+
+        int size = 200;
+        live.advance(BarAggregator.columnsOf(all.subList(0, size)).view(0));
+        while (size < all.size()) {
+            // Ingestion rewrites the developing bar and the one before it, then appends.
+            revise(all, size - 1);
+            revise(all, size - 2);
+            size = Math.min(all.size(), size + 5);
+            live.advance(BarAggregator.columnsOf(all.subList(0, size)).view(0));
+        }
+
+        revise(all, 700);
+        live.invalidateFrom(BarSeries.timeKey(all.get(700).date()));
+        live.advance(BarAggregator.columnsOf(all).view(0));
+
+        VolumeProfile fresh = new VolumeProfile(TICK);
+        fresh.advance(BarAggregator.columnsOf(all).view(0));
+        assertThat(live.size()).isEqualTo(fresh.size());
+        assertThat(live.lowTick()).isEqualTo(fresh.lowTick());
+        assertThat(live.raw()).containsExactly(fresh.raw());
+        assertThat(live.smoothed()).containsExactly(fresh.smoothed());
+    }
+
+    private static void assertMatches(VolumeProfile p, TreeMap<Double, Double> raw, TreeMap<Double, Double> smoothed) {
+        double[] gotRaw = p.raw();
+        double[] gotSmoothed = p.smoothed();
+        assertThat(p.price(p.lowTick())).isEqualTo(raw.firstKey());
+        assertThat(p.price(p.highTick())).isEqualTo(raw.lastKey());
+        for (int i = 0; i < gotRaw.length; i++) {
+            double price = p.price(p.lowTick() + i);
+            assertThat(gotRaw[i]).as("raw @%s", price).isEqualTo(raw.getOrDefault(price, 0.0));
+            assertThat(gotSmoothed[i]).as("smoothed @%s", price)
+                    .isCloseTo(smoothed.getOrDefault(price, 0.0), within(1e-9 * Math.max(1, gotSmoothed[i])));
+        }
+    }
+
+    private static TreeMap<Double, Double> profile(JsonNode rows) {
+        TreeMap<Double, Double> out = new TreeMap<>();
+        for (JsonNode r : rows) out.put(r.get(0).doubleValue(), r.get(1).doubleValue());
+        return out;
+    }
+
+    /** NQ-like 1m bars, with sprint bars, dojis, marubozus and missing volume mixed in. */
+    private static List<HistoricalBar> nqBars(int count, long seed) {
+        Random rnd = new Random(seed);
+        List<HistoricalBar> out = new ArrayList<>(count);
+        double price = 21_000.0;
+        for (int i = 0; i < count; i++) {
+            double open = price;
+            double close = open + rnd.nextGaussian() * (rnd.nextInt(60) == 0 ? 40 : 4);
+            int shape = rnd.nextInt(20);
+            if (shape == 0) close = open;
+            double high = Math.max(open, close) + (shape == 1 ? 0 : rnd.nextDouble() * 3);
+            double low = Math.min(open, close) - (shape == 1 ? 0 : rnd.nextDouble() * 3);
+            Long volume = shape == 2 ? null : shape == 3 ? 0L : (long) rnd.nextInt(5_000);
+            out.add(new HistoricalBar(START.plusMinutes(i), open, high, low, close, volume));
+            price = close;
+        }
+        return out;
+    }
+
+    private static void revise(List<HistoricalBar> bars, int i) {
+        HistoricalBar b = bars.get(i);
+        bars.set(i, new HistoricalBar(b.date(), b.open(), b.high() + 0.5, b.low(), b.close() + 0.25,
+                b.volume() == null ? 100L : b.volume() + 100));
+    }
+}
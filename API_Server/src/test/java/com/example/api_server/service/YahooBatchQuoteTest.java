@@ -0,0 +1,107 @@
+package com.example.api_server.service;
+
+import com.example.api_server.config.CacheConfig;
+import com.example.api_server.dto.TickerData;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** The spark batch path against a local stub of Yahoo's {@code /v7/finance/spark}. */
+class YahooBatchQuoteTest {
+
+    private final List<String> requested = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private YahooGateway yahoo;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v7/finance/spark", exchange -> {
+            String symbols = exchange.getRequestURI().getQuery().replaceAll(".*symbols=([^&]*).*", "$1");
+            requested.add(symbols);
+            byte[] body = spark(List.of(symbols.split(","))).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        SingleFlight flights = new SingleFlight();
+        SimpleCacheManager caches = (SimpleCacheManager) new CacheConfig().cacheManager(flights);
+        caches.afterPropertiesSet();
+        WebClient client = WebClient.builder().baseUrl("http://127.0.0.1:" + server.getAddress().getPort()).build();
+        yahoo = new YahooGateway(client, caches, flights);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void wholeTickerListIsOneUpstreamRequest() {
+        Map<String, TickerData> live = new LiveMarketDataService(yahoo)
+                .getLivePrices(List.of("SPY", "qqq", "NQ=F", "UNKNOWN"));
+
+        assertThat(requested).containsExactly("NQ=F,QQQ,SPY,UNKNOWN");
+        assertThat(live).containsOnlyKeys("NQ=F", "QQQ", "SPY");
+        TickerData spy = live.get("SPY");
+        assertThat(spy.getPrice()).isEqualTo(price("SPY"));
+        assertThat(spy.getVolume()).isEqualTo(1_000L * "SPY".length());
+        assertThat(spy.getPreviousClose()).isEqualTo(price("SPY") - 1);
+        // Futures carry only chartPreviousClose.
+        assertThat(live.get("NQ=F").getPreviousClose()).isEqualTo(price("NQ=F") - 2);
+        assertThat(live.get("NQ=F").getVolume()).isNull();
+    }
+
+    @Test
+    void longListsAreSplitIntoSparkSizedBatches() {
+        List<String> symbols = IntStream.range(0, 25).mapToObj(i -> "T" + (char) ('A' + i)).toList();
+
+        Map<String, YahooChart> quotes = yahoo.quotes(symbols);
+        yahoo.quotes(symbols);
+
+        assertThat(quotes).hasSize(25);
+        assertThat(requested).hasSize(2);
+        assertThat(requested.get(0).split(",")).hasSize(20);
+        assertThat(yahoo.stats().get("spark 1d/1d"))
+                .containsEntry("requests", 4L)
+                .containsEntry("upstream", 2L);
+    }
+
+    /** Spark-shaped body; {@code UNKNOWN} is left out the way Yahoo drops symbols it doesn't list. */
+    private static String spark(List<String> symbols) {
+        return symbols.stream()
+                .filter(s -> !s.equals("UNKNOWN"))
+                .map(YahooBatchQuoteTest::sparkEntry)
+                .collect(Collectors.joining(",", "{\"spark\":{\"result\":[", "],\"error\":null}}"));
+    }
+
+    private static String sparkEntry(String symbol) {
+        double price = price(symbol);
+        String meta = symbol.endsWith("=F")
+                ? "\"regularMarketPrice\":" + price + ",\"chartPreviousClose\":" + (price - 2)
+                : "\"regularMarketPrice\":" + price + ",\"regularMarketVolume\":" + 1_000L * symbol.length()
+                        + ",\"previousClose\":" + (price - 1) + ",\"chartPreviousClose\":" + (price - 2);
+        return "{\"symbol\":\"" + symbol + "\",\"response\":[{\"meta\":{\"symbol\":\"" + symbol + "\"," + meta
+                + "},\"timestamp\":[1760000000],\"indicators\":{\"quote\":[{\"close\":[" + price + "]}]}}]}";
+    }
+
+    private static double price(String symbol) {
+        return 100 + Math.abs(symbol.hashCode() % 500) + 0.25;
+    }
+}
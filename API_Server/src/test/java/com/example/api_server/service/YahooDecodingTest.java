@@ -0,0 +1,94 @@
+package com.example.api_server.service;
+
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class YahooDecodingTest {
+
+    private static final JsonMapper MAPPER = JsonMapper.builder().build();
+
+    @Test
+    void chartRowsMatchTheMapWalk() {
+        for (String symbol : List.of("NQ=F", "SPY")) {
+            byte[] json = YahooPayloads.chart(symbol, 1_380, symbol.length());
+            for (boolean intraday : new boolean[]{true, false}) {
+                assertThat(streamed(json, intraday)).as("%s intraday=%s", symbol, intraday)
+                        .isEqualTo(LegacyYahooParsing.parseBars(tree(json), intraday));
+            }
+
+            YahooChart chart = YahooChart.decode(json);
+            Map<?, ?> meta = (Map<?, ?>) ((Map<?, ?>) ((List<?>) ((Map<?, ?>) tree(json).get("chart"))
+                    .get("result")).get(0)).get("meta");
+            assertThat(chart.regularMarketPrice()).isEqualTo(((Number) meta.get("regularMarketPrice")).doubleValue());
+            assertThat(chart.regularMarketVolume()).isEqualTo(((Number) meta.get("regularMarketVolume")).longValue());
+            assertThat(chart.chartPreviousClose()).isEqualTo(21012.75);
+        }
+    }
+
+    @Test
+    void oddChartShapesMatchTheMapWalk() {
+        List<String> bodies = List.of(
+                "{\"chart\":{\"result\":null,\"error\":{\"code\":\"Not Found\",\"description\":\"No data\"}}}",
+                "{\"chart\":{\"result\":[],\"error\":null}}",
+                "{\"chart\":{\"result\":[{\"meta\":{\"regularMarketPrice\":null}}]}}",
+                // Columns shorter than the timestamps, a string, an extra result and quote.
+                "{\"chart\":{\"result\":[{\"timestamp\":[1736433000,1736433060,1736433120,1736433060],"
+                        + "\"indicators\":{\"quote\":[{\"open\":[1,2.5,3,4],\"high\":[2,\"x\",4,5],"
+                        + "\"low\":[0.5,1,2,3],\"close\":[1.5,2,3.5,4.5],\"volume\":[10,null]},{\"open\":[9]}],"
+                        + "\"adjclose\":[{\"adjclose\":[1,2]}]}},{\"timestamp\":[1]}]}}");
+        for (String body : bodies) {
+            byte[] json = body.getBytes(StandardCharsets.UTF_8);
+            assertThat(streamed(json, true)).as(body).isEqualTo(LegacyYahooParsing.parseBars(tree(json), true));
+        }
+        assertThat(YahooChart.decode(null).size()).isZero();
+        assertThat(YahooChart.decode(bodies.get(2).getBytes(StandardCharsets.UTF_8)).regularMarketPrice()).isNaN();
+    }
+
+    @Test
+    void optionContractsMatchTheMapWalk() {
+        byte[] json = YahooPayloads.options("SPY", 160, 3);
+        YahooOptionChain chain = YahooOptionChain.decode(json);
+        Map<String, Object> tree = tree(json);
+
+        assertThat(chain.expirations()).hasSize(18).startsWith(1736467200L);
+        assertThat(chain.expiration()).isEqualTo(1736467200L);
+        assertThat(contracts(chain.calls())).isEqualTo(
+                LegacyYahooParsing.parseContracts(LegacyYahooParsing.side(tree, "calls")));
+        assertThat(contracts(chain.puts())).isEqualTo(
+                LegacyYahooParsing.parseContracts(LegacyYahooParsing.side(tree, "puts")));
+        assertThat(YahooOptionChain.decode("{\"optionChain\":{\"result\":[]}}".getBytes(StandardCharsets.UTF_8))
+                .calls().size()).isZero();
+    }
+
+    private static List<LegacyYahooParsing.Bar> streamed(byte[] json, boolean intraday) {
+        List<LegacyYahooParsing.Bar> out = new ArrayList<>();
+        for (MarketDataIngestionService.OhlcBar b : MarketDataIngestionService.parseBars(YahooChart.decode(json), intraday)) {
+            out.add(new LegacyYahooParsing.Bar(b.timestamp(), b.open(), b.high(), b.low(), b.close(), b.volume()));
+        }
+        return out;
+    }
+
+    /** The contracts the GEX math keeps, with its defaults for missing fields. */
+    private static List<LegacyYahooParsing.Contract> contracts(YahooOptionChain.Contracts side) {
+        List<LegacyYahooParsing.Contract> out = new ArrayList<>();
+        for (int i = 0; i < side.size(); i++) {
+            if (!(side.strike()[i] > 0)) continue;
+            double iv = side.impliedVolatility()[i];
+            out.add(new LegacyYahooParsing.Contract(side.strike()[i], Double.isNaN(iv) ? 0 : iv,
+                    side.openInterest()[i], side.volume()[i]));
+        }
+        return out;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> tree(byte[] json) {
+        return MAPPER.readValue(json, Map.class);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.api_server.service;
+
+import com.example.api_server.config.CacheConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class YahooGatewayTest {
+
+    private static final int CALLERS = 8;
+
+    private final AtomicInteger upstream = new AtomicInteger();
+    private final SingleFlight flights = new SingleFlight();
+    /** Callers an upstream call holds out for before it answers; see {@link #gateway()}. */
+    private volatile int followers;
+    private volatile HttpStatus status = HttpStatus.OK;
+
+    @Test
+    void identicalRequestsShareOneUpstreamCall() throws Exception {
+        YahooGateway yahoo = gateway();
+
+        followers = CALLERS - 1;
+        List<Future<YahooChart>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(CALLERS)) {
+            for (int i = 0; i < CALLERS; i++) results.add(pool.submit(() -> yahoo.chart("NQ=F", "1d", "1d")));
+            for (Future<YahooChart> f : results) {
+                assertThat(f.get(5, TimeUnit.SECONDS).regularMarketPrice()).isEqualTo(21034.25);
+            }
+        }
+        // Still fresh: answered from the response cache.
+        yahoo.chart("NQ=F", "1d", "1d");
+        assertThat(upstream).hasValue(1);
+
+        yahoo.chart("NQ=F", "1m", "1d");
+        assertThat(upstream).hasValue(2);
+        assertThat(flights.stats().get(YahooGateway.CACHE_NAME)).containsEntry("coalesced", CALLERS - 1L);
+        assertThat(yahoo.stats().get("chart 1d/1d"))
+                .containsEntry("requests", CALLERS + 1L)
+                .containsEntry("upstream", 1L)
+                .containsEntry("shared", (long) CALLERS);
+        assertThat(yahoo.stats().get("chart 1m/1d")).containsEntry("upstream", 1L);
+    }
+
+    @Test
+    void windowedFetchesShareInFlightCallsButAreNotCached() throws Exception {
+        YahooGateway yahoo = gateway();
+
+        followers = CALLERS - 1;
+        List<Future<YahooChart>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(CALLERS)) {
+            for (int i = 0; i < CALLERS; i++) {
+                long period2 = 1_760_000_000L + i;
+                results.add(pool.submit(() -> yahoo.chart("NQ=F", "1m", 1_759_990_000L, period2)));
+            }
+            for (Future<YahooChart> f : results) f.get(5, TimeUnit.SECONDS);
+        }
+        assertThat(upstream).hasValue(1);
+        assertThat(flights.stats().get(YahooGateway.CACHE_NAME)).containsEntry("coalesced", CALLERS - 1L);
+
+        // A second later, same window start: goes upstream again.
+        yahoo.chart("NQ=F", "1m", 1_759_990_000L, 1_760_000_009L);
+        assertThat(upstream).hasValue(2);
+        assertThat(yahoo.stats().get("chart 1m/period"))
+                .containsEntry("requests", CALLERS + 1L)
+                .containsEntry("upstream", 2L);
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        YahooGateway yahoo = gateway();
+        status = HttpStatus.TOO_MANY_REQUESTS;
+
+        assertThatThrownBy(() -> yahoo.options("SPY", null)).hasMessageContaining("429");
+        status = HttpStatus.OK;
+        yahoo.options("SPY", null);
+
+        assertThat(upstream).hasValue(2);
+        assertThat(yahoo.stats().get("options")).containsEntry("upstream", 2L).containsEntry("failed", 1L);
+    }
+
+    /**
+     * Gateway over a stub upstream. Each upstream call first waits until
+     * {@link #followers} callers have joined its flight, so the sharing
+     * tests never race the thread scheduler.
+     */
+    private YahooGateway gateway() {
+        WebClient client = WebClient.builder()
+                .exchangeFunction(request -> {
+                    upstream.incrementAndGet();
+                    SingleFlightTest.awaitCoalesced(flights, YahooGateway.CACHE_NAME, followers);
+                    return Mono.just(ClientResponse.create(status)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body("{\"chart\":{\"result\":[{\"meta\":{\"regularMarketPrice\":21034.25}}]}}")
+                            .build());
+                })
+                .build();
+        SimpleCacheManager caches = (SimpleCacheManager) new CacheConfig().cacheManager(flights);
+        caches.afterPropertiesSet();
+        return new YahooGateway(client, caches, flights);
+    }
+}
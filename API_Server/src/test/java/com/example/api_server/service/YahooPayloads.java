@@ -0,0 +1,134 @@
+package com.example.api_server.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Chart and options bodies laid out field for field like Yahoo's — same
+ * meta block, trading periods and per-contract string fields, float32-ish
+ * equity prices, the odd null bucket — so decoders are exercised and timed
+ * on what the endpoints actually send.
+ */
+public final class YahooPayloads {
+
+    private YahooPayloads() {}
+
+    /** {@code /v8/finance/chart/{symbol}?interval=1m} with {@code bars} rows, about one in 150 null. */
+    public static byte[] chart(String symbol, int bars, long seed) {
+        Random rnd = new Random(seed);
+        long start = LocalDate.of(2025, 1, 9).atTime(14, 30).toEpochSecond(ZoneOffset.UTC);
+        StringBuilder ts = new StringBuilder();
+        StringBuilder open = new StringBuilder();
+        StringBuilder high = new StringBuilder();
+        StringBuilder low = new StringBuilder();
+        StringBuilder close = new StringBuilder();
+        StringBuilder volume = new StringBuilder();
+        double price = symbol.endsWith("=F") ? 21_000 : 446.61;
+        for (int i = 0; i < bars; i++) {
+            String sep = i == 0 ? "" : ",";
+            // The developing bar carries the last tick's wall-clock time.
+            long t = start + i * 60L + (i == bars - 1 ? 37 : 0);
+            ts.append(sep).append(t);
+            if (rnd.nextInt(150) == 0) {
+                open.append(sep).append("null");
+                high.append(sep).append("null");
+                low.append(sep).append("null");
+                close.append(sep).append("null");
+                volume.append(sep).append("null");
+                continue;
+            }
+            double o = price;
+            double c = o + rnd.nextGaussian() * price * 2e-4;
+            double h = Math.max(o, c) + rnd.nextDouble() * price * 1e-4;
+            double l = Math.min(o, c) - rnd.nextDouble() * price * 1e-4;
+            open.append(sep).append(quote(o));
+            high.append(sep).append(quote(h));
+            low.append(sep).append(quote(l));
+            close.append(sep).append(quote(c));
+            volume.append(sep).append(rnd.nextInt(40) == 0 ? 0 : rnd.nextInt(25_000));
+            price = c;
+        }
+
+        String period = "{\"timezone\":\"EST\",\"start\":" + start + ",\"end\":" + (start + 23_400)
+                + ",\"gmtoffset\":-18000}";
+        String json = "{\"chart\":{\"result\":[{\"meta\":{"
+                + "\"currency\":\"USD\",\"symbol\":\"" + symbol + "\",\"exchangeName\":\"CME\","
+                + "\"fullExchangeName\":\"CME\",\"instrumentType\":\"FUTURE\",\"firstTradeDate\":969249600,"
+                + "\"regularMarketTime\":" + (start + bars * 60L) + ",\"hasPrePostMarketData\":false,"
+                + "\"gmtoffset\":-18000,\"timezone\":\"EST\",\"exchangeTimezoneName\":\"America/New_York\","
+                + "\"regularMarketPrice\":" + quote(price) + ",\"fiftyTwoWeekHigh\":22450.0,"
+                + "\"fiftyTwoWeekLow\":17120.5,\"regularMarketDayHigh\":" + quote(price * 1.004) + ","
+                + "\"regularMarketDayLow\":" + quote(price * 0.994) + ",\"regularMarketVolume\":"
+                + (bars * 9_000L) + ",\"longName\":\"Nasdaq 100 Mar 25\",\"shortName\":\"Nasdaq 100 Mar 25\","
+                + "\"chartPreviousClose\":21012.75,\"previousClose\":21012.75,\"scale\":3,\"priceHint\":2,"
+                + "\"currentTradingPeriod\":{\"pre\":" + period + ",\"regular\":" + period
+                + ",\"post\":" + period + "},\"tradingPeriods\":[[" + period + "]],"
+                + "\"dataGranularity\":\"1m\",\"range\":\"1d\",\"validRanges\":[\"1d\",\"5d\",\"1mo\","
+                + "\"3mo\",\"6mo\",\"1y\",\"2y\",\"5y\",\"10y\",\"ytd\",\"max\"]},"
+                + "\"timestamp\":[" + ts + "],"
+                + "\"indicators\":{\"quote\":[{\"volume\":[" + volume + "],\"high\":[" + high + "],"
+                + "\"open\":[" + open + "],\"low\":[" + low + "],\"close\":[" + close + "]}]}}],"
+                + "\"error\":null}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** {@code /v7/finance/options/{symbol}} with {@code strikes} calls and puts around 500. */
+    public static byte[] options(String symbol, int strikes, long seed) {
+        Random rnd = new Random(seed);
+        long expiration = LocalDate.of(2025, 1, 10).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+        StringBuilder expirations = new StringBuilder();
+        for (int i = 0; i < 18; i++) {
+            if (i > 0) expirations.append(',');
+            expirations.append(expiration + i * 86_400L * (i < 8 ? 1 : 7));
+        }
+        StringBuilder strikesJson = new StringBuilder();
+        for (int i = 0; i < strikes; i++) {
+            if (i > 0) strikesJson.append(',');
+            strikesJson.append(440 + i * 0.5);
+        }
+        String json = "{\"optionChain\":{\"result\":[{\"underlyingSymbol\":\"" + symbol + "\","
+                + "\"expirationDates\":[" + expirations + "],\"strikes\":[" + strikesJson + "],"
+                + "\"hasMiniOptions\":false,\"quote\":{\"language\":\"en-US\",\"region\":\"US\","
+                + "\"quoteType\":\"ETF\",\"currency\":\"USD\",\"regularMarketPrice\":500.12,"
+                + "\"shortName\":\"SPDR S&P 500\",\"symbol\":\"" + symbol + "\"},"
+                + "\"options\":[{\"expirationDate\":" + expiration + ",\"hasMiniOptions\":false,"
+                + "\"calls\":[" + contracts(symbol, "C", expiration, strikes, rnd) + "],"
+                + "\"puts\":[" + contracts(symbol, "P", expiration, strikes, rnd) + "]}]}],"
+                + "\"error\":null}}";
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String contracts(String symbol, String side, long expiration, int strikes, Random rnd) {
+        StringBuilder out = new StringBuilder();
+        for (int i = 0; i < strikes; i++) {
+            if (i > 0) out.append(',');
+            double strike = 440 + i * 0.5;
+            out.append("{\"contractSymbol\":\"").append(symbol).append("250110").append(side)
+                    .append(String.format(Locale.ROOT, "%08d", (long) (strike * 1000))).append("\",")
+                    .append("\"strike\":").append(strike).append(',')
+                    .append("\"currency\":\"USD\",")
+                    .append("\"lastPrice\":").append(quote(rnd.nextDouble() * 20)).append(',')
+                    .append("\"change\":").append(quote(rnd.nextGaussian())).append(',')
+                    .append("\"percentChange\":").append(quote(rnd.nextGaussian() * 10)).append(',');
+            // Far strikes often have no prints today: Yahoo drops the field.
+            if (rnd.nextInt(6) != 0) out.append("\"volume\":").append(rnd.nextInt(20_000)).append(',');
+            out.append("\"openInterest\":").append(rnd.nextInt(60_000)).append(',')
+                    .append("\"bid\":").append(quote(rnd.nextDouble() * 20)).append(',')
+                    .append("\"ask\":").append(quote(rnd.nextDouble() * 20)).append(',')
+                    .append("\"contractSize\":\"REGULAR\",")
+                    .append("\"expiration\":").append(expiration).append(',')
+                    .append("\"lastTradeDate\":").append(expiration - rnd.nextInt(86_400)).append(',')
+                    .append("\"impliedVolatility\":").append(rnd.nextDouble() * 0.6 + 0.05).append(',')
+                    .append("\"inTheMoney\":").append(side.equals("C") == strike < 500).append('}');
+        }
+        return out.toString();
+    }
+
+    /** Prices as Yahoo prints them: float32 values widened to double. */
+    private static String quote(double v) {
+        return Double.toString((double) (float) v);
+    }
+}
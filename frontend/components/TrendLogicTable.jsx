@@ -1,11 +1,12 @@
 'use client'
 
 import { useEffect, useMemo, useState } from 'react'
-import { latestTrendState, TREND_COLORS } from './indicators'
+import { TREND_COLORS } from './indicators'
 
-// (label, interval, period) tuples. Periods are picked to give >= 200 bars on
-// each timeframe so the 200 EMA is fully warmed up. 4h is server-aggregated
-// from 1h so 1y of 1h data → ~437 4h bars; 1wk + max → a few hundred weeks.
+// (label, interval, period) tuples, mirrored by TrendScanService.TIMEFRAMES on
+// the server. Periods are picked to give >= 200 bars on each timeframe so the
+// 200 EMA is fully warmed up. 4h is server-aggregated from 1h so 1y of 1h
+// data → ~437 4h bars; 1wk + max → a few hundred weeks.
 const ALL_TIMEFRAMES = [
   { label: 'M15', interval: '15m', period: '3mo' },
   { label: 'M30', interval: '30m', period: '3mo' },
@@ -43,12 +44,24 @@ function loadConfig() {
   }
 }
 
-async function fetchHistorical(symbol, period, interval, signal) {
-  const url = `/api/historical?symbol=${encodeURIComponent(symbol)}&period=${period}&interval=${interval}`
-  const res = await fetch(url, { signal })
+// The server computes the trend state per timeframe from its cached EMAs, so
+// this is one small request instead of downloading every timeframe's bars.
+// Entries come back in request order; a failed timeframe carries `error`.
+async function fetchTrendScan(symbol, timeframes, fast, slow, signal) {
+  const params = new URLSearchParams({
+    symbols: symbol,
+    timeframes: timeframes.map(tf => tf.label).join(','),
+    fast: String(fast),
+    slow: String(slow),
+  })
+  const res = await fetch(`/api/indicators/trend?${params}`, { signal })
   if (!res.ok) throw new Error(`HTTP ${res.status}`)
   const body = await res.json()
-  return Array.isArray(body?.data) ? body.data : []
+  return timeframes.map((_, i) => {
+    const entry = Array.isArray(body) ? body[i] : null
+    if (!entry || entry.error) return { status: 'rejected', reason: entry?.error }
+    return { status: 'fulfilled', value: entry.state ?? null }
+  })
 }
 
 export default function TrendLogicTable({ symbol }) {
@@ -72,21 +85,18 @@ export default function TrendLogicTable({ symbol }) {
 
     const load = async () => {
       setLoading(true)
-      const results = await Promise.allSettled(
-        timeframes.map(tf => fetchHistorical(symbol, tf.period, tf.interval, ctrl.signal))
-      )
+      let results
+      try {
+        results = await fetchTrendScan(symbol, timeframes, config.fastPeriod, config.slowPeriod, ctrl.signal)
+      } catch (err) {
+        results = timeframes.map(() => ({ status: 'rejected', reason: err }))
+      }
       if (cancelled) return
       const next = {}
       for (let i = 0; i < timeframes.length; i++) {
         const tf = timeframes[i]
         const r = results[i]
-        if (r.status === 'fulfilled') {
-          const bars = r.value.map(d => ({ close: Number(d.close), time: d.time }))
-            .filter(d => Number.isFinite(d.close))
-          next[tf.label] = latestTrendState(bars, config.fastPeriod, config.slowPeriod)
-        } else {
-          next[tf.label] = null
-        }
+        next[tf.label] = r.status === 'fulfilled' ? r.value : null
       }
       setStates(next)
       setLoading(false)
@@ -9,6 +9,9 @@ const nextConfig = {
       { source: '/api/market', destination: `${apiUrl}/api/market` },
       { source: '/api/historical/:path+', destination: `${apiUrl}/api/historical/:path+` },
       { source: '/api/historical', destination: `${apiUrl}/api/historical` },
+      { source: '/api/indicators/:path+', destination: `${apiUrl}/api/indicators/:path+` },
+      { source: '/api/indicators', destination: `${apiUrl}/api/indicators` },
+      { source: '/api/volume-profile', destination: `${apiUrl}/api/volume-profile` },
       { source: '/api/gamma', destination: `${apiUrl}/api/gamma` },
     ]
   },
@@ -0,0 +1,72 @@
+"""Regenerate tests/fixtures/volume_profile_nq.json.
+
+The fixture pins calculate_volume_profile's raw and smoothed output for a
+fixed set of NQ-like 1m bars; the API server's array engine
+(VolumeProfileTest) and test_volume_profile both assert against it. Re-run
+after changing shared/volume_profile.py on purpose, on the pandas/numpy
+pinned in tests/requirements-fixtures.txt (see tests/fixtures/README.md;
+the volume-profile-fixture workflow checks the committed file is exactly
+what this writes):
+
+Run with: cd functions && pip install -r tests/requirements-fixtures.txt \
+          && python -m tests.make_volume_profile_fixture
+"""
+
+import json
+import os
+import random
+import sys
+
+sys.path.insert(0, os.path.abspath(os.path.join(os.path.dirname(__file__), '..')))
+
+import pandas as pd
+
+from shared.volume_profile import NQ_TICK_SIZE, calculate_volume_profile
+
+FIXTURE = os.path.join(os.path.dirname(__file__), 'fixtures', 'volume_profile_nq.json')
+
+
+def nq_bars(count=120, seed=7):
+    """Off-tick prices, with sprint bars, dojis, marubozus, flat bars and missing volume mixed in."""
+    rnd = random.Random(seed)
+    bars = []
+    price = 21000.0
+    for i in range(count):
+        o = price
+        c = o + rnd.gauss(0, 40 if i % 37 == 36 else 4)
+        shape = i % 11
+        if shape == 0:
+            c = o
+        h = max(o, c) + (0 if shape == 1 else rnd.random() * 3)
+        l = min(o, c) - (0 if shape == 1 else rnd.random() * 3)
+        if shape == 2:
+            h = l = c = o
+        volume = None if shape == 3 else 0 if shape == 4 else rnd.randrange(5000)
+        bars.append([round(o, 2), round(h, 2), round(l, 2), round(c, 2), volume])
+        price = c
+    return bars
+
+
+def frame(bars):
+    return pd.DataFrame(
+        [[o, h, l, c, float('nan') if v is None else float(v)] for o, h, l, c, v in bars],
+        columns=['open', 'high', 'low', 'close', 'volume'],
+    )
+
+
+def main():
+    bars = nq_bars()
+    result = calculate_volume_profile(frame(bars), tick_size=NQ_TICK_SIZE)
+    fixture = {
+        'tickSize': NQ_TICK_SIZE,
+        'bars': bars,
+        'raw': [[p, v] for p, v in result['raw'].items()],
+        'smoothed': [[p, v] for p, v in result['smoothed'].items()],
+    }
+    with open(FIXTURE, 'w') as f:
+        json.dump(fixture, f, indent=None, separators=(',', ':'))
+        f.write('\n')
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,35 @@
+"""Tests for shared.volume_profile against the checked-in fixture.
+
+Run with: cd functions && python -m unittest tests.test_volume_profile
+"""
+
+import json
+import os
+import sys
+import unittest
+
+sys.path.insert(0, os.path.abspath(os.path.join(os.path.dirname(__file__), '..')))
+
+from shared.volume_profile import calculate_volume_profile
+from tests.make_volume_profile_fixture import FIXTURE, frame
+
+
+class TestFixture(unittest.TestCase):
+    """The API server checks its port against the same file, so a change
+    here without regenerating it would let the two drift apart unnoticed."""
+
+    def test_profile_matches_fixture(self):
+        with open(FIXTURE) as f:
+            fixture = json.load(f)
+        result = calculate_volume_profile(frame(fixture['bars']), tick_size=fixture['tickSize'])
+
+        for name in ('raw', 'smoothed'):
+            expected = fixture[name]
+            got = list(result[name].items())
+            self.assertEqual([p for p, _ in got], [p for p, _ in expected], name)
+            for (price, v), (_, want) in zip(got, expected):
+                self.assertAlmostEqual(v, want, delta=1e-9 * max(1.0, want), msg=f'{name} @{price}')
+
+
+if __name__ == '__main__':
+    unittest.main()